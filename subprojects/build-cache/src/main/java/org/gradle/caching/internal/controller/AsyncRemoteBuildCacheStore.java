@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.controller.service.RemoteBuildCacheServiceHandle;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.util.internal.GFileUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Stores entries in the remote build cache on a bounded pool of background threads, so that the work producing the entries does not wait for their upload.
+ *
+ * <p>The total size of the entries that are being uploaded or are waiting to be uploaded is limited. Once the limit is reached,
+ * new stores wait for earlier uploads to finish. An entry larger than the limit is accepted once no other entry is in flight.</p>
+ *
+ * <p>Closing the store waits for all remaining uploads to finish.</p>
+ */
+class AsyncRemoteBuildCacheStore implements Closeable {
+    private static final int MAX_PARALLEL_STORES = 4;
+
+    private final RemoteBuildCacheServiceHandle remote;
+    private final ManagedExecutor executor;
+    private final long maxInFlightBytes;
+
+    private final Object lock = new Object();
+    private long inFlightBytes;
+    private int inFlightStores;
+
+    AsyncRemoteBuildCacheStore(RemoteBuildCacheServiceHandle remote, ExecutorFactory executorFactory, long maxInFlightBytes) {
+        this.remote = remote;
+        this.executor = executorFactory.create("Remote build cache store", MAX_PARALLEL_STORES);
+        this.maxInFlightBytes = maxInFlightBytes;
+    }
+
+    /**
+     * Stores the given file in the remote build cache in the background, and deletes it once stored.
+     */
+    void store(BuildCacheKey key, File file) {
+        long size = file.length();
+        reserve(size);
+        try {
+            executor.execute(() -> {
+                try {
+                    remote.maybeStore(key, file);
+                } finally {
+                    GFileUtils.deleteQuietly(file);
+                    release(size);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            GFileUtils.deleteQuietly(file);
+            release(size);
+            throw e;
+        }
+    }
+
+    private void reserve(long size) {
+        synchronized (lock) {
+            while (inFlightStores > 0 && inFlightBytes + size > maxInFlightBytes) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            inFlightBytes += size;
+            inFlightStores++;
+        }
+    }
+
+    private void release(long size) {
+        synchronized (lock) {
+            inFlightBytes -= size;
+            inFlightStores--;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.stop();
+    }
+}
@@ -45,6 +45,7 @@
 import org.gradle.caching.local.internal.BuildCacheTempFileStore;
 import org.gradle.caching.local.internal.DefaultBuildCacheTempFileStore;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.file.FileMetadata;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.file.TreeType;
@@ -57,13 +58,18 @@
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.gradle.internal.snapshot.MissingFileSnapshot;
 import org.gradle.internal.vfs.FileSystemAccess;
+import org.gradle.util.internal.GFileUtils;
 
 import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
@@ -78,8 +84,13 @@ public class DefaultBuildCacheController implements BuildCacheController {
     final LocalBuildCacheServiceHandle local;
 
     private final BuildCacheTempFileStore tmp;
+    private final TemporaryFileProvider temporaryFileProvider;
     private final boolean emitDebugLogging;
     private final PackOperationExecutor packExecutor;
+    @Nullable
+    private final AsyncRemoteBuildCacheStore asyncRemoteStore;
+    @Nullable
+    private final InMemoryBuildCacheEntries inMemoryEntries;
 
     private boolean closed;
 
@@ -93,12 +104,22 @@ public DefaultBuildCacheController(
         FileSystemAccess fileSystemAccess,
         BuildCacheEntryPacker packer,
         OriginMetadataFactory originMetadataFactory,
-        StringInterner stringInterner
+        StringInterner stringInterner,
+        ExecutorFactory executorFactory,
+        boolean asyncRemoteStore,
+        long maxInFlightRemoteStoreBytes,
+        @Nullable InMemoryBuildCacheEntries inMemoryEntries
     ) {
         this.emitDebugLogging = emitDebugLogging;
         this.local = toLocalHandle(config.getLocal(), config.isLocalPush());
         this.remote = toRemoteHandle(config.getRemote(), config.isRemotePush(), buildOperationExecutor, logStackTraces, disableRemoteOnError);
         this.tmp = toTempFileStore(config.getLocal(), temporaryFileProvider);
+        this.temporaryFileProvider = temporaryFileProvider;
+        this.asyncRemoteStore = asyncRemoteStore && remote.canStore()
+            ? new AsyncRemoteBuildCacheStore(remote, executorFactory, maxInFlightRemoteStoreBytes)
+            : null;
+        // Entries are kept in memory as part of the local cache
+        this.inMemoryEntries = config.getLocal() != null ? inMemoryEntries : null;
         this.packExecutor = new PackOperationExecutor(
             buildOperationExecutor,
             fileSystemAccess,
@@ -129,7 +150,13 @@ public Optional<BuildCacheLoadResult> load(BuildCacheKey key, CacheableEntity en
 
     private Optional<BuildCacheLoadResult> loadLocal(BuildCacheKey key, CacheableEntity entity) {
         try {
-            return local.maybeLoad(key, file -> packExecutor.unpack(key, entity, file));
+            if (inMemoryEntries != null) {
+                byte[] content = inMemoryEntries.get(key);
+                if (content != null) {
+                    return Optional.of(packExecutor.unpack(key, entity, content));
+                }
+            }
+            return local.maybeLoad(key, file -> unpackAndRemember(key, entity, file));
         } catch (Exception e) {
             throw new GradleException("Could not load from local cache: " + e.getMessage(), e);
         }
@@ -143,7 +170,7 @@ private Optional<BuildCacheLoadResult> loadRemoteAndStoreResultLocally(BuildCach
         tmp.withTempFile(key, file -> {
             Optional<BuildCacheLoadResult> remoteResult;
             try {
-                remoteResult = remote.maybeLoad(key, file, f -> packExecutor.unpack(key, entity, f));
+                remoteResult = remote.maybeLoad(key, file, f -> local.canStore() ? unpackAndRemember(key, entity, f) : packExecutor.unpack(key, entity, f));
             } catch (Exception e) {
                 throw new GradleException("Could not load from remote cache: " + e.getMessage(), e);
             }
@@ -155,6 +182,16 @@ private Optional<BuildCacheLoadResult> loadRemoteAndStoreResultLocally(BuildCach
         return result.get();
     }
 
+    private BuildCacheLoadResult unpackAndRemember(BuildCacheKey key, CacheableEntity entity, File file) {
+        byte[] content = inMemoryEntries != null ? inMemoryEntries.readIfSmall(file) : null;
+        if (inMemoryEntries == null || content == null) {
+            return packExecutor.unpack(key, entity, file);
+        }
+        BuildCacheLoadResult result = packExecutor.unpack(key, entity, content);
+        inMemoryEntries.remember(key, content);
+        return result;
+    }
+
     @Override
     public void store(BuildCacheKey key, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime) {
         if (!local.canStore() && !remote.canStore()) {
@@ -162,11 +199,37 @@ public void store(BuildCacheKey key, CacheableEntity entity, Map<String, FileSys
         }
         tmp.withTempFile(key, file -> {
             packExecutor.pack(file, key, entity, snapshots, executionTime);
-            remote.maybeStore(key, file);
+            if (asyncRemoteStore != null && remote.canStore()) {
+                asyncRemoteStore.store(key, fileForAsyncRemoteStore(file));
+            } else {
+                remote.maybeStore(key, file);
+            }
+            if (inMemoryEntries != null && local.canStore()) {
+                byte[] content = inMemoryEntries.readIfSmall(file);
+                if (content != null) {
+                    inMemoryEntries.remember(key, content);
+                }
+            }
             local.maybeStore(key, file);
         });
     }
 
+    private File fileForAsyncRemoteStore(File packedFile) {
+        // The packed file is moved into the local cache, or deleted, before the remote store happens
+        File file = temporaryFileProvider.createTemporaryFile("build-cache-", ".upload");
+        try {
+            if (local.canStore()) {
+                Files.copy(packedFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.move(packedFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            GFileUtils.deleteQuietly(file);
+            throw new UncheckedIOException(e);
+        }
+        return file;
+    }
+
     @Override
     public void close() throws IOException {
         if (!closed) {
@@ -174,6 +237,10 @@ public void close() throws IOException {
             Closer closer = Closer.create();
             closer.register(local);
             closer.register(remote);
+            if (asyncRemoteStore != null) {
+                // Closed first, waiting for the remaining stores before the remote is closed
+                closer.register(asyncRemoteStore);
+            }
             closer.close();
         }
     }
@@ -196,10 +263,18 @@ static class PackOperationExecutor {
 
         @VisibleForTesting
         BuildCacheLoadResult unpack(BuildCacheKey key, CacheableEntity entity, File file) {
+            return unpack(key, entity, file.length(), () -> new FileInputStream(file));
+        }
+
+        BuildCacheLoadResult unpack(BuildCacheKey key, CacheableEntity entity, byte[] content) {
+            return unpack(key, entity, content.length, () -> new ByteArrayInputStream(content));
+        }
+
+        private BuildCacheLoadResult unpack(BuildCacheKey key, CacheableEntity entity, long archiveSize, EntryContent content) {
             return buildOperationExecutor.call(new CallableBuildOperation<BuildCacheLoadResult>() {
                 @Override
                 public BuildCacheLoadResult call(BuildOperationContext context) throws IOException {
-                    try (InputStream input = new FileInputStream(file)) {
+                    try (InputStream input = content.open()) {
                         BuildCacheLoadResult metadata = doUnpack(entity, input);
                         context.setResult(new UnpackOperationResult(metadata.getArtifactEntryCount()));
                         return metadata;
@@ -209,7 +284,7 @@ public BuildCacheLoadResult call(BuildOperationContext context) throws IOExcepti
                 @Override
                 public BuildOperationDescriptor.Builder description() {
                     return BuildOperationDescriptor.displayName("Unpack build cache entry " + key.getHashCode())
-                        .details(new UnpackOperationDetails(key, file.length()))
+                        .details(new UnpackOperationDetails(key, archiveSize))
                         .progressDisplayName("Unpacking build cache entry");
                 }
             });
@@ -279,6 +354,10 @@ public BuildOperationDescriptor.Builder description() {
                 }
             });
         }
+
+        private interface EntryContent {
+            InputStream open() throws IOException;
+        }
     }
 
     private static RemoteBuildCacheServiceHandle toRemoteHandle(@Nullable BuildCacheService service, boolean push, BuildOperationExecutor buildOperationExecutor, boolean logStackTraces, boolean disableOnError) {
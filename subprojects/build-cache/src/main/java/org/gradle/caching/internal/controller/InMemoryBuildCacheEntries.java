@@ -0,0 +1,74 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.caching.BuildCacheKey;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Keeps the content of small build cache entries in memory across builds, in front of the local build cache.
+ *
+ * <p>Loading an entry that is kept in memory unpacks it without reading the local build cache directory.
+ * The total size of the kept entries is limited, and the least recently used entries are dropped first.</p>
+ */
+public class InMemoryBuildCacheEntries {
+    public static final long DEFAULT_MAX_ENTRY_BYTES = 128 * 1024;
+
+    private final Cache<String, byte[]> entries;
+    private final long maxEntryBytes;
+
+    public InMemoryBuildCacheEntries(long maxBytes, long maxEntryBytes) {
+        this.entries = CacheBuilder.newBuilder()
+            .maximumWeight(maxBytes)
+            .<String, byte[]>weigher((key, content) -> content.length)
+            .build();
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    @Nullable
+    public byte[] get(BuildCacheKey key) {
+        return entries.getIfPresent(key.getHashCode());
+    }
+
+    /**
+     * Reads the content of the given entry file if the entry is small enough to be kept in memory.
+     *
+     * @return the content of the entry, or {@code null} when the entry is too large to be kept.
+     */
+    @Nullable
+    public byte[] readIfSmall(File file) {
+        if (file.length() > maxEntryBytes) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void remember(BuildCacheKey key, byte[] content) {
+        entries.put(key.getHashCode(), content);
+    }
+}
@@ -28,6 +28,7 @@ import org.gradle.caching.internal.controller.service.BuildCacheServicesConfigur
 import org.gradle.caching.internal.origin.OriginMetadataFactory
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
 import org.gradle.caching.local.internal.LocalBuildCacheService
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.internal.snapshot.FileSystemSnapshot
 import org.gradle.internal.vfs.FileSystemAccess
@@ -36,6 +37,10 @@ import org.junit.Rule
 import spock.lang.Specification
 
 import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicBoolean
+
+import static java.util.concurrent.TimeUnit.SECONDS
 
 class DefaultBuildCacheControllerTest extends Specification {
 
@@ -57,6 +62,8 @@ class DefaultBuildCacheControllerTest extends Specification {
     def localPush = true
     def remote = Mock(BuildCacheService)
     def remotePush = true
+    def asyncRemoteStore = false
+    InMemoryBuildCacheEntries inMemoryEntries = null
     def loadmetadata = Mock(Object)
     FileSystemAccess fileSystemAccess = Stub(FileSystemAccess)
     BuildCacheEntryPacker packer = Stub(BuildCacheEntryPacker)
@@ -64,6 +71,7 @@ class DefaultBuildCacheControllerTest extends Specification {
     StringInterner stringInterner = Stub(StringInterner)
 
     def operations = new TestBuildOperationExecutor()
+    def executorFactory = new DefaultExecutorFactory()
 
     @Rule
     final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
@@ -86,7 +94,11 @@ class DefaultBuildCacheControllerTest extends Specification {
             fileSystemAccess,
             packer,
             originMetadataFactory,
-            stringInterner
+            stringInterner,
+            executorFactory,
+            asyncRemoteStore,
+            1024,
+            inMemoryEntries
         )
     }
 
@@ -265,6 +277,77 @@ class DefaultBuildCacheControllerTest extends Specification {
         1 * remote.store(key, _)
     }
 
+    def "stores to remote without waiting for the upload when async remote store is enabled"() {
+        given:
+        asyncRemoteStore = true
+        def releaseUpload = new CountDownLatch(1)
+        def uploaded = new AtomicBoolean()
+        remote.store(key, _) >> {
+            releaseUpload.await(10, SECONDS)
+            uploaded.set(true)
+        }
+        def controller = getController()
+
+        when:
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+
+        then:
+        1 * local.storeLocally(key, _)
+        !uploaded.get()
+
+        when:
+        releaseUpload.countDown()
+        controller.close()
+
+        then:
+        uploaded.get()
+    }
+
+    def "loads small entries kept in memory without reading the local cache"() {
+        given:
+        inMemoryEntries = new InMemoryBuildCacheEntries(1024, 1024)
+        packer.unpack(cacheableEntity, _, _) >> new BuildCacheEntryPacker.UnpackResult(null, 1, [:])
+        def controller = getController()
+
+        when:
+        def first = controller.load(key, cacheableEntity)
+
+        then:
+        1 * local.loadLocally(key, _) >> { BuildCacheKey key, Action<File> action ->
+            def file = tmpDir.file("local")
+            file.text = "foo"
+            action.execute(file)
+        }
+        first.present
+
+        when:
+        def second = controller.load(key, cacheableEntity)
+
+        then:
+        0 * local.loadLocally(key, _)
+        0 * remote.load(key, _)
+        second.present
+    }
+
+    def "does not keep large entries in memory"() {
+        given:
+        inMemoryEntries = new InMemoryBuildCacheEntries(1024, 2)
+        packer.unpack(cacheableEntity, _, _) >> new BuildCacheEntryPacker.UnpackResult(null, 1, [:])
+        def controller = getController()
+
+        when:
+        controller.load(key, cacheableEntity)
+        controller.load(key, cacheableEntity)
+
+        then:
+        2 * local.loadLocally(key, _) >> { BuildCacheKey key, Action<File> action ->
+            def file = tmpDir.file("local")
+            file.text = "foo"
+            action.execute(file)
+        }
+        inMemoryEntries.get(key) == null
+    }
+
     def "close only closes once"() {
         when:
         def controller = getController()
@@ -26,6 +26,7 @@ import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.internal.file.temp.TemporaryFileProvider
 import org.gradle.api.logging.LogLevel
 import org.gradle.cache.CacheRepository
+import org.gradle.cache.PersistentCache
 import org.gradle.cache.internal.CacheFactory
 import org.gradle.cache.internal.DefaultCacheRepository
 import org.gradle.cache.internal.CacheScopeMapping
@@ -33,6 +34,7 @@ import org.gradle.cache.internal.scopes.DefaultCacheScopeMapping
 import org.gradle.cache.internal.scopes.DefaultGlobalScopedCache
 import org.gradle.cache.scopes.GlobalScopedCache
 import org.gradle.initialization.layout.GlobalCacheDir
+import org.gradle.internal.file.FileAccessTimeJournal
 import org.gradle.internal.id.LongIdGenerator
 import org.gradle.internal.jvm.inspection.CachingJvmMetadataDetector
 import org.gradle.internal.jvm.inspection.DefaultJvmMetadataDetector
@@ -51,6 +53,7 @@ import org.gradle.internal.service.ServiceRegistryBuilder
 import org.gradle.internal.service.scopes.GlobalScopeServices
 import org.gradle.process.internal.health.memory.MemoryManager
 import org.gradle.process.internal.worker.DefaultWorkerProcessFactory
+import org.gradle.process.internal.worker.child.WorkerClassDataSharingArchives
 import org.gradle.process.internal.worker.child.WorkerProcessClassPathProvider
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.testfixtures.internal.NativeServicesTestFixture
@@ -60,6 +63,8 @@ import org.junit.Rule
 import spock.lang.Shared
 import spock.lang.Specification
 
+import java.util.function.Supplier
+
 abstract class AbstractWorkerProcessIntegrationSpec extends Specification {
     @Shared
     DefaultServiceRegistry services = (DefaultServiceRegistry) ServiceRegistryBuilder.builder()
@@ -97,7 +102,8 @@ abstract class AbstractWorkerProcessIntegrationSpec extends Specification {
         execHandleFactory,
         new DefaultJvmVersionDetector(new CachingJvmMetadataDetector(defaultJvmMetadataDetector)),
         outputEventListener,
-        Stub(MemoryManager)
+        Stub(MemoryManager),
+        new WorkerClassDataSharingArchives({ Stub(PersistentCache) { getBaseDir() >> tmpDir.file("worker-cds") } } as Supplier, Stub(FileAccessTimeJournal))
     )
 
     def setup() {
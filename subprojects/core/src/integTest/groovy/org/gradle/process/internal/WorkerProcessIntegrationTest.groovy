@@ -20,7 +20,9 @@ import org.gradle.api.Action
 import org.gradle.api.internal.file.temp.GradleUserHomeTemporaryFileProvider
 import org.gradle.api.logging.LogLevel
 import org.gradle.api.logging.Logging
+import org.gradle.cache.PersistentCache
 import org.gradle.internal.Actions
+import org.gradle.internal.file.FileAccessTimeJournal
 import org.gradle.internal.id.LongIdGenerator
 import org.gradle.internal.jvm.inspection.CachingJvmMetadataDetector
 import org.gradle.internal.jvm.inspection.DefaultJvmVersionDetector
@@ -30,11 +32,14 @@ import org.gradle.process.internal.worker.DefaultWorkerProcessFactory
 import org.gradle.process.internal.worker.WorkerProcess
 import org.gradle.process.internal.worker.WorkerProcessBuilder
 import org.gradle.process.internal.worker.WorkerProcessContext
+import org.gradle.process.internal.worker.child.WorkerClassDataSharingArchives
 import org.gradle.util.Requires
 import org.gradle.util.TestPrecondition
 import org.gradle.util.internal.TextUtil
 import spock.lang.Timeout
 
+import java.util.function.Supplier
+
 import static org.junit.Assert.assertFalse
 import static org.junit.Assert.assertTrue
 
@@ -99,7 +104,8 @@ class WorkerProcessIntegrationTest extends AbstractWorkerProcessIntegrationSpec
             execHandleFactory,
             new DefaultJvmVersionDetector(new CachingJvmMetadataDetector(defaultJvmMetadataDetector)),
             outputEventListener,
-            Stub(MemoryManager)
+            Stub(MemoryManager),
+            new WorkerClassDataSharingArchives({ Stub(PersistentCache) { getBaseDir() >> tmpDir.file("worker-cds") } } as Supplier, Stub(FileAccessTimeJournal))
         )
         and:
         execute(worker(loggingProcess))
@@ -118,7 +124,8 @@ class WorkerProcessIntegrationTest extends AbstractWorkerProcessIntegrationSpec
             execHandleFactory,
             new DefaultJvmVersionDetector(new CachingJvmMetadataDetector(defaultJvmMetadataDetector)),
             outputEventListener,
-            Stub(MemoryManager)
+            Stub(MemoryManager),
+            new WorkerClassDataSharingArchives({ Stub(PersistentCache) { getBaseDir() >> tmpDir.file("worker-cds") } } as Supplier, Stub(FileAccessTimeJournal))
         )
         and:
         execute(worker(loggingProcess))
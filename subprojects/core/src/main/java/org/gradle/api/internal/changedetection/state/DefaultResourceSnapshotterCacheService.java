@@ -20,6 +20,8 @@
 import org.gradle.internal.fingerprint.hashing.FileSystemLocationSnapshotHasher;
 import org.gradle.internal.fingerprint.hashing.RegularFileSnapshotContextHasher;
 import org.gradle.internal.fingerprint.hashing.RegularFileSnapshotContext;
+import org.gradle.internal.fingerprint.hashing.ZipEntryContext;
+import org.gradle.internal.fingerprint.hashing.ZipEntryContextHasher;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.Hasher;
 import org.gradle.internal.hash.Hashing;
@@ -49,9 +51,21 @@ public HashCode hashFile(RegularFileSnapshotContext fileSnapshotContext, Regular
         return hashFile(fileSnapshotContext.getSnapshot(), () -> hasher.hash(fileSnapshotContext), configurationHash);
     }
 
+    @Nullable
+    @Override
+    public HashCode hashZipEntry(ZipEntryContext zipEntryContext, ZipEntryContextHasher hasher, HashCode configurationHash) throws IOException {
+        HashCode contentHash = Hashing.hashBytes(zipEntryContext.getEntry().getContent());
+        return hashContent(contentHash, () -> hasher.hash(zipEntryContext), configurationHash);
+    }
+
     @Nullable
     private HashCode hashFile(FileSystemLocationSnapshot snapshot, IoSupplier<HashCode> hashCodeSupplier, HashCode configurationHash) throws IOException {
-        HashCode resourceHashCacheKey = resourceHashCacheKey(snapshot.getHash(), configurationHash);
+        return hashContent(snapshot.getHash(), hashCodeSupplier, configurationHash);
+    }
+
+    @Nullable
+    private HashCode hashContent(HashCode contentHash, IoSupplier<HashCode> hashCodeSupplier, HashCode configurationHash) throws IOException {
+        HashCode resourceHashCacheKey = resourceHashCacheKey(contentHash, configurationHash);
 
         HashCode resourceHash = persistentCache.getIfPresent(resourceHashCacheKey);
         if (resourceHash != null) {
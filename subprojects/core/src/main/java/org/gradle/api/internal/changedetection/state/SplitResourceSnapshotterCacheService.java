@@ -20,6 +20,8 @@
 import org.gradle.internal.fingerprint.hashing.FileSystemLocationSnapshotHasher;
 import org.gradle.internal.fingerprint.hashing.RegularFileSnapshotContextHasher;
 import org.gradle.internal.fingerprint.hashing.RegularFileSnapshotContext;
+import org.gradle.internal.fingerprint.hashing.ZipEntryContext;
+import org.gradle.internal.fingerprint.hashing.ZipEntryContextHasher;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 
@@ -59,4 +61,15 @@ public HashCode hashFile(RegularFileSnapshotContext fileSnapshotContext, Regular
             return localCache.hashFile(fileSnapshotContext, hasher, configurationHash);
         }
     }
+
+    @Nullable
+    @Override
+    public HashCode hashZipEntry(ZipEntryContext zipEntryContext, ZipEntryContextHasher hasher, HashCode configurationHash) throws IOException {
+        if (globalCacheLocations.isInsideGlobalCache(zipEntryContext.getRootParentName())) {
+            // Archives in the global caches do not change, so the result of hashing the whole archive is all that needs caching
+            return hasher.hash(zipEntryContext);
+        } else {
+            return localCache.hashZipEntry(zipEntryContext, hasher, configurationHash);
+        }
+    }
 }
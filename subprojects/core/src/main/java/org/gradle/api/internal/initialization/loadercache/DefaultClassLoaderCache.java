@@ -29,6 +29,7 @@
 import org.gradle.internal.classloader.FilteringClassLoader;
 import org.gradle.internal.classloader.HashingClassLoaderFactory;
 import org.gradle.internal.classpath.ClassPath;
+import org.gradle.internal.classpath.LazilyInstrumentedClassPath;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.hash.HashCode;
 import org.slf4j.Logger;
@@ -124,6 +125,9 @@ private CachedClassLoader getAndRetainLoader(ManagedClassLoaderSpec spec, ClassL
     }
 
     private ClassLoader createClassLoader(ManagedClassLoaderSpec spec) {
+        if (spec.classPath instanceof LazilyInstrumentedClassPath) {
+            return ((LazilyInstrumentedClassPath) spec.classPath).createClassLoader(spec.name, spec.parent, spec.implementationHash);
+        }
         return classLoaderFactory.createChildClassLoader(spec.name, spec.parent, spec.classPath, spec.implementationHash);
     }
 
@@ -26,6 +26,7 @@
 import org.gradle.caching.configuration.internal.DefaultBuildCacheConfiguration;
 import org.gradle.caching.configuration.internal.DefaultBuildCacheServiceRegistration;
 import org.gradle.caching.internal.controller.BuildCacheController;
+import org.gradle.caching.internal.controller.InMemoryBuildCacheEntries;
 import org.gradle.caching.internal.controller.RootBuildCacheControllerRef;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
@@ -39,6 +40,7 @@
 import org.gradle.caching.local.internal.DirectoryBuildCacheFileStoreFactory;
 import org.gradle.caching.local.internal.DirectoryBuildCacheServiceFactory;
 import org.gradle.internal.SystemProperties;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.file.FileException;
 import org.gradle.internal.hash.ChecksumService;
@@ -76,6 +78,18 @@ RootBuildCacheControllerRef createRootBuildCacheControllerRef() {
         });
     }
 
+    @Override
+    public void registerGradleUserHomeServices(ServiceRegistration registration) {
+        registration.addProvider(new Object() {
+            InMemoryBuildCacheEntries createInMemoryBuildCacheEntries() {
+                return new InMemoryBuildCacheEntries(
+                    Long.getLong(BuildCacheControllerFactory.IN_MEMORY_ENTRIES_MAX_BYTES_PROPERTY, BuildCacheControllerFactory.DEFAULT_IN_MEMORY_ENTRIES_MAX_BYTES),
+                    InMemoryBuildCacheEntries.DEFAULT_MAX_ENTRY_BYTES
+                );
+            }
+        });
+    }
+
     @Override
     public void registerBuildServices(ServiceRegistration registration) {
         registration.addProvider(new Object() {
@@ -148,10 +162,12 @@ BuildCacheController createBuildCacheController(
                 FileSystemAccess fileSystemAccess,
                 BuildCacheEntryPacker packer,
                 OriginMetadataFactory originMetadataFactory,
-                StringInterner stringInterner
+                StringInterner stringInterner,
+                ExecutorFactory executorFactory,
+                InMemoryBuildCacheEntries inMemoryEntries
             ) {
                 if (isRoot(gradle) || isGradleBuildTaskRoot(rootControllerRef)) {
-                    return doCreateBuildCacheController(serviceRegistry, buildCacheConfiguration, buildOperationExecutor, instantiatorFactory, gradle, temporaryFileProvider, fileSystemAccess, packer, originMetadataFactory, stringInterner);
+                    return doCreateBuildCacheController(serviceRegistry, buildCacheConfiguration, buildOperationExecutor, instantiatorFactory, gradle, temporaryFileProvider, fileSystemAccess, packer, originMetadataFactory, stringInterner, executorFactory, inMemoryEntries);
                 } else {
                     // must be an included build or buildSrc
                     return rootControllerRef.getForNonRootBuild();
@@ -174,7 +190,7 @@ private boolean isRoot(GradleInternal gradle) {
             private BuildCacheController doCreateBuildCacheController(
                 ServiceRegistry serviceRegistry, BuildCacheConfigurationInternal buildCacheConfiguration, BuildOperationExecutor buildOperationExecutor, InstantiatorFactory instantiatorFactory,
                 GradleInternal gradle, TemporaryFileProvider temporaryFileProvider, FileSystemAccess fileSystemAccess, BuildCacheEntryPacker packer, OriginMetadataFactory originMetadataFactory,
-                StringInterner stringInterner
+                StringInterner stringInterner, ExecutorFactory executorFactory, InMemoryBuildCacheEntries inMemoryEntries
             ) {
                 StartParameter startParameter = gradle.getStartParameter();
                 Path buildIdentityPath = gradle.getIdentityPath();
@@ -196,7 +212,9 @@ private BuildCacheController doCreateBuildCacheController(
                     fileSystemAccess,
                     packer,
                     originMetadataFactory,
-                    stringInterner
+                    stringInterner,
+                    executorFactory,
+                    inMemoryEntries
                 );
             }
         });
@@ -28,6 +28,7 @@
 import org.gradle.caching.internal.FinalizeBuildCacheConfigurationBuildOperationType;
 import org.gradle.caching.internal.controller.BuildCacheController;
 import org.gradle.caching.internal.controller.DefaultBuildCacheController;
+import org.gradle.caching.internal.controller.InMemoryBuildCacheEntries;
 import org.gradle.caching.internal.controller.NoOpBuildCacheController;
 import org.gradle.caching.internal.controller.service.BuildCacheServiceRole;
 import org.gradle.caching.internal.controller.service.BuildCacheServicesConfiguration;
@@ -36,6 +37,7 @@
 import org.gradle.caching.local.DirectoryBuildCache;
 import org.gradle.caching.local.internal.DirectoryBuildCacheService;
 import org.gradle.internal.Cast;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationExecutor;
@@ -55,6 +57,13 @@
 public final class BuildCacheControllerFactory {
 
     public static final String REMOTE_CONTINUE_ON_ERROR_PROPERTY = "org.gradle.unsafe.build-cache.remote-continue-on-error";
+    public static final String REMOTE_ASYNC_STORE_PROPERTY = "org.gradle.unsafe.build-cache.remote-async-store";
+    public static final String REMOTE_ASYNC_STORE_MAX_IN_FLIGHT_BYTES_PROPERTY = "org.gradle.unsafe.build-cache.remote-async-store-max-in-flight-bytes";
+    public static final String IN_MEMORY_ENTRIES_PROPERTY = "org.gradle.unsafe.build-cache.in-memory-entries";
+    public static final String IN_MEMORY_ENTRIES_MAX_BYTES_PROPERTY = "org.gradle.unsafe.build-cache.in-memory-entries-max-bytes";
+    public static final long DEFAULT_IN_MEMORY_ENTRIES_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final long DEFAULT_REMOTE_ASYNC_STORE_MAX_IN_FLIGHT_BYTES = 256L * 1024 * 1024;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BuildCacheControllerFactory.class);
 
@@ -79,7 +88,9 @@ public static BuildCacheController create(
         final FileSystemAccess fileSystemAccess,
         final BuildCacheEntryPacker packer,
         final OriginMetadataFactory originMetadataFactory,
-        final StringInterner stringInterner
+        final StringInterner stringInterner,
+        final ExecutorFactory executorFactory,
+        final InMemoryBuildCacheEntries inMemoryEntries
     ) {
         return buildOperationExecutor.call(new CallableBuildOperation<BuildCacheController>() {
             @Override
@@ -135,7 +146,11 @@ public BuildCacheController call(BuildOperationContext context) {
                         fileSystemAccess,
                         packer,
                         originMetadataFactory,
-                        stringInterner
+                        stringInterner,
+                        executorFactory,
+                        Boolean.getBoolean(REMOTE_ASYNC_STORE_PROPERTY),
+                        Long.getLong(REMOTE_ASYNC_STORE_MAX_IN_FLIGHT_BYTES_PROPERTY, DEFAULT_REMOTE_ASYNC_STORE_MAX_IN_FLIGHT_BYTES),
+                        Boolean.getBoolean(IN_MEMORY_ENTRIES_PROPERTY) ? inMemoryEntries : null
                     );
                 }
             }
@@ -16,6 +16,7 @@
 package org.gradle.configuration;
 
 import org.gradle.api.internal.GradleInternal;
+import org.gradle.configuration.project.BuildScriptPrecompiler;
 import org.gradle.execution.ProjectConfigurer;
 import org.gradle.initialization.ModelConfigurationListener;
 import org.gradle.initialization.ProjectsEvaluatedNotifier;
@@ -29,24 +30,28 @@ public class DefaultProjectsPreparer implements ProjectsPreparer {
     private final BuildModelParameters buildModelParameters;
     private final ModelConfigurationListener modelConfigurationListener;
     private final BuildStateRegistry buildStateRegistry;
+    private final BuildScriptPrecompiler buildScriptPrecompiler;
 
     public DefaultProjectsPreparer(
         ProjectConfigurer projectConfigurer,
         BuildModelParameters buildModelParameters,
         ModelConfigurationListener modelConfigurationListener,
         BuildOperationExecutor buildOperationExecutor,
-        BuildStateRegistry buildStateRegistry
+        BuildStateRegistry buildStateRegistry,
+        BuildScriptPrecompiler buildScriptPrecompiler
     ) {
         this.projectConfigurer = projectConfigurer;
         this.buildModelParameters = buildModelParameters;
         this.modelConfigurationListener = modelConfigurationListener;
         this.buildOperationExecutor = buildOperationExecutor;
         this.buildStateRegistry = buildStateRegistry;
+        this.buildScriptPrecompiler = buildScriptPrecompiler;
     }
 
     @Override
     public void prepareProjects(GradleInternal gradle) {
         if (!buildModelParameters.isConfigureOnDemand() || !gradle.isRootBuild()) {
+            buildScriptPrecompiler.precompile(gradle);
             projectConfigurer.configureHierarchy(gradle.getRootProject());
             new ProjectsEvaluatedNotifier(buildOperationExecutor).notify(gradle);
         }
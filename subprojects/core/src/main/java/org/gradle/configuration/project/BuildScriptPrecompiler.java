@@ -0,0 +1,237 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.project;
+
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.initialization.ClassLoaderScope;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectState;
+import org.gradle.configuration.CompileOperationFactory;
+import org.gradle.configuration.ProjectScriptTarget;
+import org.gradle.groovy.scripts.BasicScript;
+import org.gradle.groovy.scripts.ScriptCompilerFactory;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.internal.CompileOperation;
+import org.gradle.internal.Actions;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.scripts.ScriptingLanguages;
+import org.gradle.model.dsl.internal.transform.ClosureCreationInterceptingVerifier;
+import org.gradle.plugin.management.internal.autoapply.AutoAppliedPluginRegistry;
+import org.gradle.scripts.ScriptingLanguage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles the Groovy build scripts of the projects of a build in parallel, before the projects are evaluated.
+ *
+ * <p>The first pass of every build script, which contains the {@code buildscript {}} and {@code plugins {}} blocks, is compiled against the
+ * base class loader scope of the projects, which is known before any project is evaluated. The second pass of a build script is compiled against
+ * the class loader scope of its project, which depends on the plugins applied by the project and its parents. When neither the project nor any of
+ * its parents request plugins or classpath entries in their first pass, this scope exports the same class loader as the base scope, so the second pass
+ * is compiled against the base scope as well.</p>
+ *
+ * <p>The compiled scripts are kept in the script caches, where the evaluation of the projects then finds them. Failures are ignored,
+ * so that they are reported with the usual context when the project is evaluated.</p>
+ */
+public class BuildScriptPrecompiler {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.precompile-build-scripts";
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildScriptPrecompiler.class);
+
+    private final ScriptCompilerFactory scriptCompilerFactory;
+    private final CompileOperationFactory compileOperationFactory;
+    private final AutoAppliedPluginRegistry autoAppliedPluginRegistry;
+    private final BuildOperationExecutor buildOperationExecutor;
+
+    public BuildScriptPrecompiler(
+        ScriptCompilerFactory scriptCompilerFactory,
+        CompileOperationFactory compileOperationFactory,
+        AutoAppliedPluginRegistry autoAppliedPluginRegistry,
+        BuildOperationExecutor buildOperationExecutor
+    ) {
+        this.scriptCompilerFactory = scriptCompilerFactory;
+        this.compileOperationFactory = compileOperationFactory;
+        this.autoAppliedPluginRegistry = autoAppliedPluginRegistry;
+        this.buildOperationExecutor = buildOperationExecutor;
+    }
+
+    public void precompile(GradleInternal gradle) {
+        if (!Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))) {
+            return;
+        }
+        // Read everything needed from the project models up front, as the compilation runs on worker threads which do not hold the project locks
+        Map<ProjectState, BuildScript> buildScripts = new LinkedHashMap<>();
+        List<BuildScript> groovyScripts = new ArrayList<>();
+        for (ProjectState project : gradle.getOwner().getProjects().getAllProjects()) {
+            BuildScript buildScript = project.fromMutableState(this::buildScriptOf);
+            buildScripts.put(project, buildScript);
+            if (buildScript.classpathOperation != null) {
+                groovyScripts.add(buildScript);
+            }
+        }
+        if (groovyScripts.size() < 2) {
+            return;
+        }
+
+        ClassLoaderScope baseScope = gradle.baseProjectClassLoaderScope();
+        Set<BuildScript> withEmptyClasspathPass = ConcurrentHashMap.newKeySet();
+        buildOperationExecutor.runAll(queue -> {
+            for (BuildScript buildScript : groovyScripts) {
+                queue.add(new PrecompileBuildScript(buildScript.displayName, "classpath", () -> {
+                    boolean runDoesSomething = scriptCompilerFactory.createCompiler(buildScript.source)
+                        .compile(buildScript.scriptClass, buildScript.classpathOperation, baseScope, Actions.doNothing())
+                        .getRunDoesSomething();
+                    if (!runDoesSomething) {
+                        withEmptyClasspathPass.add(buildScript);
+                    }
+                }));
+            }
+        });
+
+        List<BuildScript> sharingBaseScope = new ArrayList<>();
+        for (ProjectState project : buildScripts.keySet()) {
+            BuildScript buildScript = buildScripts.get(project);
+            if (buildScript.classpathOperation != null && sharesBaseScope(project, buildScripts, withEmptyClasspathPass)) {
+                sharingBaseScope.add(buildScript);
+            }
+        }
+        buildOperationExecutor.runAll(queue -> {
+            for (BuildScript buildScript : sharingBaseScope) {
+                queue.add(new PrecompileBuildScript(buildScript.displayName, "body", () ->
+                    scriptCompilerFactory.createCompiler(buildScript.source)
+                        .compile(buildScript.scriptClass, buildScript.bodyOperation, baseScope, ClosureCreationInterceptingVerifier.INSTANCE)
+                ));
+            }
+        });
+    }
+
+    private BuildScript buildScriptOf(ProjectInternal project) {
+        ScriptSource source = project.getBuildScriptSource();
+        boolean autoAppliesPlugins = project.getParent() == null && !autoAppliedPluginRegistry.getAutoAppliedPlugins(project).isEmpty();
+        if (!isGroovyScript(source)) {
+            return new BuildScript(project.getDisplayName(), source, autoAppliesPlugins, null, null, null);
+        }
+        ProjectScriptTarget target = new ProjectScriptTarget(project);
+        return new BuildScript(
+            project.getDisplayName(),
+            source,
+            autoAppliesPlugins,
+            target.getScriptClass(),
+            compileOperationFactory.getPluginsBlockCompileOperation(target),
+            compileOperationFactory.getScriptCompileOperation(source, target)
+        );
+    }
+
+    private static boolean sharesBaseScope(ProjectState project, Map<ProjectState, BuildScript> buildScripts, Set<BuildScript> withEmptyClasspathPass) {
+        for (ProjectState current = project; current != null; current = current.getParent()) {
+            BuildScript buildScript = buildScripts.get(current);
+            if (buildScript == null) {
+                return false;
+            }
+            if (buildScript.classpathOperation != null) {
+                if (!withEmptyClasspathPass.contains(buildScript)) {
+                    return false;
+                }
+            } else if (!buildScript.source.getResource().getHasEmptyContent()) {
+                // Projects with build scripts in another language may add to their class loader scope
+                return false;
+            }
+            if (buildScript.autoAppliesPlugins) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isGroovyScript(ScriptSource source) {
+        String fileName = source.getFileName();
+        for (ScriptingLanguage scriptingLanguage : ScriptingLanguages.all()) {
+            if (scriptingLanguage.getProvider() != null && fileName.endsWith(scriptingLanguage.getExtension())) {
+                return false;
+            }
+        }
+        return !source.getResource().getHasEmptyContent();
+    }
+
+    /**
+     * What the precompiler needs to know about the build script of a project, captured while holding the project lock.
+     * The compile operations are only present for Groovy build scripts.
+     */
+    private static class BuildScript {
+        private final String displayName;
+        private final ScriptSource source;
+        private final boolean autoAppliesPlugins;
+        @Nullable
+        private final Class<? extends BasicScript> scriptClass;
+        @Nullable
+        private final CompileOperation<?> classpathOperation;
+        @Nullable
+        private final CompileOperation<?> bodyOperation;
+
+        BuildScript(
+            String displayName,
+            ScriptSource source,
+            boolean autoAppliesPlugins,
+            @Nullable Class<? extends BasicScript> scriptClass,
+            @Nullable CompileOperation<?> classpathOperation,
+            @Nullable CompileOperation<?> bodyOperation
+        ) {
+            this.displayName = displayName;
+            this.source = source;
+            this.autoAppliesPlugins = autoAppliesPlugins;
+            this.scriptClass = scriptClass;
+            this.classpathOperation = classpathOperation;
+            this.bodyOperation = bodyOperation;
+        }
+    }
+
+    private static class PrecompileBuildScript implements RunnableBuildOperation {
+        private final String projectDisplayName;
+        private final String stage;
+        private final Runnable compile;
+
+        PrecompileBuildScript(String projectDisplayName, String stage, Runnable compile) {
+            this.projectDisplayName = projectDisplayName;
+            this.stage = stage;
+            this.compile = compile;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            try {
+                compile.run();
+            } catch (Exception e) {
+                LOGGER.debug("Could not precompile the {} of the build script of {}.", stage, projectDisplayName, e);
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Precompile " + stage + " of build script of " + projectDisplayName);
+        }
+    }
+}
@@ -92,6 +92,9 @@ public BuildOperationDescriptor.Builder description() {
                     .details(new ResolveTaskMutationsDetails(taskIdentity));
             }
         });
+        if (failure == null) {
+            context.getService(SpeculativeInputSnapshotter.class).snapshotInputsOf(node);
+        }
     }
 
     private void doResolveMutations() {
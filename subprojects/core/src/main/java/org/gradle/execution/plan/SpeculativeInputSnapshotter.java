@@ -0,0 +1,153 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.api.internal.file.FileCollectionInternal;
+import org.gradle.api.internal.file.FileCollectionStructureVisitor;
+import org.gradle.api.internal.file.FileTreeInternal;
+import org.gradle.api.internal.file.collections.FileSystemMirroringFileTree;
+import org.gradle.api.internal.tasks.properties.InputFilePropertySpec;
+import org.gradle.api.internal.tasks.properties.TaskProperties;
+import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.internal.vfs.FileSystemAccess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Snapshots the input directories of a task in the background once its mutations are resolved, so the virtual file system
+ * is already warm by the time the task has acquired its locks and captures the state of its inputs.
+ *
+ * <p>Only unfiltered directory trees are snapshotted, and only when no node that has started in the build
+ * produces or destroys anything in them, as recorded by the output and destroyable {@link ExecutionNodeAccessHierarchy}.
+ * Any node that later writes to such a location invalidates it in the virtual file system before doing so.</p>
+ */
+@ServiceScope(Scopes.Build.class)
+public class SpeculativeInputSnapshotter implements Closeable {
+    public static final String SPECULATIVE_INPUT_SNAPSHOTTING_PROPERTY = "org.gradle.internal.execution.speculative-input-snapshotting";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpeculativeInputSnapshotter.class);
+    private static final int MAX_THREADS = 2;
+
+    private final ExecutionNodeAccessHierarchy outputHierarchy;
+    private final ExecutionNodeAccessHierarchy destroyableHierarchy;
+    private final FileSystemAccess fileSystemAccess;
+    @Nullable
+    private final ManagedExecutor executor;
+    private final Set<String> requestedLocations = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopped;
+
+    public SpeculativeInputSnapshotter(ExecutionNodeAccessHierarchies hierarchies, FileSystemAccess fileSystemAccess, ExecutorFactory executorFactory) {
+        this.outputHierarchy = hierarchies.getOutputHierarchy();
+        this.destroyableHierarchy = hierarchies.getDestroyableHierarchy();
+        this.fileSystemAccess = fileSystemAccess;
+        this.executor = Boolean.getBoolean(SPECULATIVE_INPUT_SNAPSHOTTING_PROPERTY)
+            ? executorFactory.create("Speculative input snapshotting", MAX_THREADS)
+            : null;
+    }
+
+    /**
+     * Schedules snapshotting of the input directories of the given node, whose mutations must already be resolved.
+     *
+     * The input file collections are visited on the calling thread, which holds the lock of the node's project.
+     */
+    public void snapshotInputsOf(LocalTaskNode node) {
+        TaskProperties taskProperties = node.getTaskProperties();
+        if (executor == null || taskProperties == null) {
+            return;
+        }
+        for (String location : collectInputDirectories(taskProperties)) {
+            if (isMutatedByStartedNode(location) || !requestedLocations.add(location)) {
+                continue;
+            }
+            executor.execute(() -> snapshot(location));
+        }
+    }
+
+    private static Set<String> collectInputDirectories(TaskProperties taskProperties) {
+        Set<String> inputDirectories = new LinkedHashSet<>();
+        for (InputFilePropertySpec spec : taskProperties.getInputFileProperties()) {
+            try {
+                spec.getPropertyFiles().visitStructure(new FileCollectionStructureVisitor() {
+                    @Override
+                    public VisitType prepareForVisit(FileCollectionInternal.Source source) {
+                        // Opaque sources are not snapshotted speculatively, so there is no need to resolve their contents
+                        return VisitType.NoContents;
+                    }
+
+                    @Override
+                    public void visitCollection(FileCollectionInternal.Source source, Iterable<File> contents) {
+                    }
+
+                    @Override
+                    public void visitGenericFileTree(FileTreeInternal fileTree, FileSystemMirroringFileTree sourceTree) {
+                    }
+
+                    @Override
+                    public void visitFileTree(File root, PatternSet patterns, FileTreeInternal fileTree) {
+                        if (patterns.isEmpty()) {
+                            inputDirectories.add(root.getAbsolutePath());
+                        }
+                    }
+
+                    @Override
+                    public void visitFileTreeBackedByFile(File file, FileTreeInternal fileTree, FileSystemMirroringFileTree sourceTree) {
+                    }
+                });
+            } catch (Exception e) {
+                // The inputs are resolved again when the task executes, which reports the problem
+                LOGGER.debug("Cannot determine input directories of property '{}' for speculative snapshotting", spec.getPropertyName(), e);
+            }
+        }
+        return inputDirectories;
+    }
+
+    private boolean isMutatedByStartedNode(String location) {
+        return !outputHierarchy.getNodesAccessing(location).isEmpty()
+            || !destroyableHierarchy.getNodesAccessing(location).isEmpty();
+    }
+
+    private void snapshot(String location) {
+        if (stopped) {
+            return;
+        }
+        try {
+            fileSystemAccess.read(location, snapshot -> snapshot);
+        } catch (Exception e) {
+            LOGGER.debug("Could not speculatively snapshot {}", location, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            // Snapshots which have not been started yet are not needed anymore
+            stopped = true;
+            executor.stop();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal;
+
+import org.codehaus.groovy.control.ClassNodeResolver;
+import org.codehaus.groovy.control.CompilationUnit;
+
+/**
+ * A {@link ClassNodeResolver} that does not look up again the classes that the script class loader was found not to contain.
+ */
+class CachingClassNodeResolver extends ClassNodeResolver {
+    private final ScriptClassResolutionCache.Resolutions resolutions;
+
+    CachingClassNodeResolver(ScriptClassResolutionCache.Resolutions resolutions) {
+        this.resolutions = resolutions;
+    }
+
+    @Override
+    public LookupResult findClassNode(String name, CompilationUnit compilationUnit) {
+        if (resolutions.isMissing(name)) {
+            return null;
+        }
+        LookupResult result = super.findClassNode(name, compilationUnit);
+        if (result == null) {
+            resolutions.missing(name);
+        }
+        return result;
+    }
+}
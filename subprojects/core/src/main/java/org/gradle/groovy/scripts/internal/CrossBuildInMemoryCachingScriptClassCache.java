@@ -13,6 +13,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+
 package org.gradle.groovy.scripts.internal;
 
 import groovy.lang.Script;
@@ -25,11 +26,26 @@
 import org.gradle.internal.Cast;
 import org.gradle.internal.hash.HashCode;
 
+import java.lang.ref.WeakReference;
+
+/**
+ * Caches compiled scripts in memory across builds, by script class name and target class loader.
+ *
+ * <p>When {@link #SHARE_IDENTICAL_SCRIPTS_PROPERTY} is enabled, scripts with the same content that are compiled against the same
+ * class loader share a single compiled script and its loaded classes, regardless of their location. The classes then report
+ * the location of the first of these scripts, for example in stack traces and in the locations of build failures.</p>
+ */
 public class CrossBuildInMemoryCachingScriptClassCache {
+    public static final String SHARE_IDENTICAL_SCRIPTS_PROPERTY = "org.gradle.internal.share-identical-script-classes";
+
     private final CrossBuildInMemoryCache<ScriptCacheKey, CachedCompiledScript> cachedCompiledScripts;
+    private final CrossBuildInMemoryCache<ContentCacheKey, CompiledScript<?, ?>> compiledScriptsByContent;
+    private final boolean shareIdenticalScripts;
 
     public CrossBuildInMemoryCachingScriptClassCache(CrossBuildInMemoryCacheFactory cacheFactory) {
         cachedCompiledScripts = cacheFactory.newCache();
+        compiledScriptsByContent = cacheFactory.newCache();
+        shareIdenticalScripts = Boolean.getBoolean(SHARE_IDENTICAL_SCRIPTS_PROPERTY);
     }
 
     public <T extends Script, M> CompiledScript<T, M> getOrCompile(ScriptSource source,
@@ -47,7 +63,20 @@ public <T extends Script, M> CompiledScript<T, M> getOrCompile(ScriptSource sour
                 return Cast.uncheckedCast(cached.compiledScript);
             }
         }
-        CompiledScript<T, M> compiledScript = delegate.compile(source, targetScope, operation, scriptBaseClass, verifier);
+        if (!shareIdenticalScripts) {
+            CompiledScript<T, M> compiledScript = delegate.compile(source, targetScope, operation, scriptBaseClass, verifier);
+            cachedCompiledScripts.put(key, new CachedCompiledScript(hash, compiledScript));
+            return compiledScript;
+        }
+
+        ContentCacheKey contentKey = new ContentCacheKey(hash, targetScope.getExportClassLoader(), operation.getId(), scriptBaseClass);
+        CompiledScript<T, M> compiledScript = Cast.uncheckedCast(compiledScriptsByContent.getIfPresent(contentKey));
+        if (compiledScript != null) {
+            compiledScript.onReuse();
+        } else {
+            compiledScript = delegate.compile(source, targetScope, operation, scriptBaseClass, verifier);
+            compiledScriptsByContent.put(contentKey, compiledScript);
+        }
         cachedCompiledScripts.put(key, new CachedCompiledScript(hash, compiledScript));
         return compiledScript;
     }
@@ -62,4 +91,44 @@ private CachedCompiledScript(HashCode hash, CompiledScript<?, ?> compiledScript)
         }
     }
 
+    private static class ContentCacheKey {
+        private final HashCode contentHash;
+        private final WeakReference<ClassLoader> classLoader;
+        private final String dslId;
+        private final Class<?> scriptBaseClass;
+
+        ContentCacheKey(HashCode contentHash, ClassLoader classLoader, String dslId, Class<?> scriptBaseClass) {
+            this.contentHash = contentHash;
+            this.classLoader = new WeakReference<>(classLoader);
+            this.dslId = dslId;
+            this.scriptBaseClass = scriptBaseClass;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            ContentCacheKey key = (ContentCacheKey) o;
+            ClassLoader loader = classLoader.get();
+            return loader != null && loader.equals(key.classLoader.get())
+                && contentHash.equals(key.contentHash)
+                && dslId.equals(key.dslId)
+                && scriptBaseClass.equals(key.scriptBaseClass);
+        }
+
+        @Override
+        public int hashCode() {
+            ClassLoader loader = classLoader.get();
+            int result = contentHash.hashCode();
+            result = 31 * result + (loader != null ? loader.hashCode() : 1);
+            result = 31 * result + dslId.hashCode();
+            result = 31 * result + scriptBaseClass.hashCode();
+            return result;
+        }
+    }
 }
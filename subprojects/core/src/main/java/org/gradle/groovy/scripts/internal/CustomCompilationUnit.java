@@ -28,6 +28,7 @@
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 
+import javax.annotation.Nullable;
 import java.lang.reflect.Field;
 import java.security.CodeSource;
 import java.util.List;
@@ -36,9 +37,10 @@
 @SuppressWarnings("deprecation")
 class CustomCompilationUnit extends CompilationUnit {
 
-    public CustomCompilationUnit(CompilerConfiguration compilerConfiguration, CodeSource codeSource, final Action<? super ClassNode> customVerifier, GroovyClassLoader groovyClassLoader, Map<String, List<String>> simpleNameToFQN) {
+    public CustomCompilationUnit(CompilerConfiguration compilerConfiguration, CodeSource codeSource, final Action<? super ClassNode> customVerifier, GroovyClassLoader groovyClassLoader, Map<String, List<String>> simpleNameToFQN,
+                                 @Nullable ScriptClassResolutionCache.Resolutions resolutions) {
         super(compilerConfiguration, codeSource, groovyClassLoader);
-        this.resolveVisitor = new GradleResolveVisitor(this, simpleNameToFQN);
+        this.resolveVisitor = new GradleResolveVisitor(this, simpleNameToFQN, resolutions);
         installCustomCodegen(customVerifier);
     }
 
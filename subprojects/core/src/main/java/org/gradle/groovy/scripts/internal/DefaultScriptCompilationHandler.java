@@ -74,10 +74,12 @@ public class DefaultScriptCompilationHandler implements ScriptCompilationHandler
 
     private final Deleter deleter;
     private final Map<String, List<String>> simpleNameToFQN;
+    private final ScriptClassResolutionCache classResolutionCache;
 
-    public DefaultScriptCompilationHandler(Deleter deleter, ImportsReader importsReader) {
+    public DefaultScriptCompilationHandler(Deleter deleter, ImportsReader importsReader, ScriptClassResolutionCache classResolutionCache) {
         this.deleter = deleter;
         this.simpleNameToFQN = importsReader.getSimpleNameToFullClassNamesMapping();
+        this.classResolutionCache = classResolutionCache;
     }
 
     @Override
@@ -113,12 +115,13 @@ private void compileScript(ScriptSource source, ClassLoader classLoader, Compile
 
         final EmptyScriptDetector emptyScriptDetector = new EmptyScriptDetector();
         final PackageStatementDetector packageDetector = new PackageStatementDetector();
+        final ScriptClassResolutionCache.Resolutions resolutions = classResolutionCache.forClassLoader(classLoader);
         GroovyClassLoader groovyClassLoader = new GroovyClassLoader(classLoader, configuration, false) {
             @Override
             protected CompilationUnit createCompilationUnit(CompilerConfiguration compilerConfiguration,
                                                             CodeSource codeSource) {
 
-                CompilationUnit compilationUnit = new CustomCompilationUnit(compilerConfiguration, codeSource, customVerifier, this, simpleNameToFQN);
+                CompilationUnit compilationUnit = new CustomCompilationUnit(compilerConfiguration, codeSource, customVerifier, this, simpleNameToFQN, resolutions);
 
                 if (transformer != null) {
                     transformer.register(compilationUnit);
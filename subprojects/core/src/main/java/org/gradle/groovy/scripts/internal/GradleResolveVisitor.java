@@ -62,6 +62,7 @@
 import org.codehaus.groovy.transform.trait.Traits;
 import org.objectweb.asm.Opcodes;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -97,6 +98,7 @@ public class GradleResolveVisitor extends ResolveVisitor {
 
     private ClassNode currentClass;
     private final Map<String, List<String>> simpleNameToFQN;
+    private final ScriptClassResolutionCache.Resolutions resolutions;
     private final CompilationUnit compilationUnit;
     private SourceUnit source;
     private VariableScope currentScope;
@@ -228,11 +230,12 @@ public String setName(String name) {
         }
     }
 
-    public GradleResolveVisitor(CompilationUnit cu, Map<String, List<String>> simpleNameToFQN) {
+    public GradleResolveVisitor(CompilationUnit cu, Map<String, List<String>> simpleNameToFQN, @Nullable ScriptClassResolutionCache.Resolutions resolutions) {
         super(cu);
         compilationUnit = cu;
-        this.classNodeResolver = new ClassNodeResolver();
+        this.classNodeResolver = resolutions == null ? new ClassNodeResolver() : new CachingClassNodeResolver(resolutions);
         this.simpleNameToFQN = simpleNameToFQN;
+        this.resolutions = resolutions;
     }
 
     @Override
@@ -571,18 +574,8 @@ private boolean resolveFromDefaultImports(ClassNode type, boolean testDefaultImp
                     return true;
                 }
             }
-            for (String packagePrefix : DEFAULT_IMPORTS) {
-                // We limit the inner class lookups here by using ConstructedClassWithPackage.
-                // This way only the name will change, the packagePrefix will
-                // not be included in the lookup. The case where the
-                // packagePrefix is really a class is handled elsewhere.
-                // WARNING: This code does not expect a class that has a static
-                //          inner class in DEFAULT_IMPORTS
-                ConstructedClassWithPackage tmp = new ConstructedClassWithPackage(packagePrefix, name);
-                if (resolve(tmp, false, false, false)) {
-                    type.setRedirect(tmp.redirect());
-                    return true;
-                }
+            if (resolveFromDefaultImportPackages(type, name)) {
+                return true;
             }
             if (TYPE_REDIRECT_MAPPING.containsKey(name)) {
                 type.setRedirect(TYPE_REDIRECT_MAPPING.get(name));
@@ -592,6 +585,46 @@ private boolean resolveFromDefaultImports(ClassNode type, boolean testDefaultImp
         return false;
     }
 
+    private boolean resolveFromDefaultImportPackages(ClassNode type, String name) {
+        if (resolutions != null) {
+            // reuse how this name was resolved when compiling other scripts against the same class loader
+            if (resolutions.isMissingFromDefaultImports(name)) {
+                return false;
+            }
+            String knownPackagePrefix = resolutions.getDefaultImportPackage(name);
+            if (knownPackagePrefix != null && resolveFromDefaultImportPackage(type, knownPackagePrefix, name)) {
+                return true;
+            }
+        }
+        for (String packagePrefix : DEFAULT_IMPORTS) {
+            if (resolveFromDefaultImportPackage(type, packagePrefix, name)) {
+                if (resolutions != null) {
+                    resolutions.resolvedFromDefaultImport(name, packagePrefix);
+                }
+                return true;
+            }
+        }
+        if (resolutions != null) {
+            resolutions.missingFromDefaultImports(name);
+        }
+        return false;
+    }
+
+    private boolean resolveFromDefaultImportPackage(ClassNode type, String packagePrefix, String name) {
+        // We limit the inner class lookups here by using ConstructedClassWithPackage.
+        // This way only the name will change, the packagePrefix will
+        // not be included in the lookup. The case where the
+        // packagePrefix is really a class is handled elsewhere.
+        // WARNING: This code does not expect a class that has a static
+        //          inner class in DEFAULT_IMPORTS
+        ConstructedClassWithPackage tmp = new ConstructedClassWithPackage(packagePrefix, name);
+        if (resolve(tmp, false, false, false)) {
+            type.setRedirect(tmp.redirect());
+            return true;
+        }
+        return false;
+    }
+
     protected boolean resolveFromCompileUnit(ClassNode type) {
         // look into the compile unit if there is a class with that name
         CompileUnit compileUnit = currentClass.getCompileUnit();
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers how class names referenced by scripts were resolved against each script class loader, across script compilations and builds.
+ *
+ * <p>Records the names that a class loader cannot load and the default import package that a simple class name resolves to, so that
+ * compiling another script against the same class loader does not probe the class loader again for these names. The resolved class nodes
+ * themselves are not shared, as they belong to a single compilation unit.</p>
+ */
+public class ScriptClassResolutionCache {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.script-class-resolution-cache";
+
+    private final Map<ClassLoader, Resolutions> resolutionsByClassLoader = new WeakHashMap<>();
+    private final boolean enabled;
+
+    public ScriptClassResolutionCache() {
+        this(Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true")));
+    }
+
+    ScriptClassResolutionCache(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the resolutions made against the given class loader, or {@code null} when the cache is disabled.
+     */
+    @Nullable
+    public Resolutions forClassLoader(ClassLoader classLoader) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (resolutionsByClassLoader) {
+            return resolutionsByClassLoader.computeIfAbsent(classLoader, key -> new Resolutions());
+        }
+    }
+
+    public static class Resolutions {
+        private final Set<String> missingClasses = ConcurrentHashMap.newKeySet();
+        private final Map<String, String> defaultImportPackages = new ConcurrentHashMap<>();
+        private final Set<String> namesMissingFromDefaultImports = ConcurrentHashMap.newKeySet();
+
+        public boolean isMissing(String className) {
+            return missingClasses.contains(className);
+        }
+
+        public void missing(String className) {
+            missingClasses.add(className);
+        }
+
+        /**
+         * Returns the default import package that the given simple name resolved to, or {@code null} when not known.
+         */
+        @Nullable
+        public String getDefaultImportPackage(String name) {
+            return defaultImportPackages.get(name);
+        }
+
+        public boolean isMissingFromDefaultImports(String name) {
+            return namesMissingFromDefaultImports.contains(name);
+        }
+
+        public void resolvedFromDefaultImport(String name, String packagePrefix) {
+            defaultImportPackages.put(name, packagePrefix);
+        }
+
+        public void missingFromDefaultImports(String name) {
+            namesMissingFromDefaultImports.add(name);
+        }
+    }
+}
@@ -51,6 +51,14 @@ enum StandardTransform {
      */
     Collection<URL> transform(Collection<URL> urls, StandardTransform transform);
 
+    /**
+     * Transforms a classpath that is only used to create a class loader through a {@link org.gradle.api.internal.initialization.ClassLoaderScope}.
+     *
+     * When instrumentation on load is enabled, the classes of a {@link StandardTransform#BuildLogic} classpath are not transformed up-front.
+     * Instead, the class loader created for the returned classpath instruments each class when it is loaded.
+     */
+    ClassPath transformForClassLoader(ClassPath classPath, StandardTransform transform);
+
     interface Transform {
         void applyConfigurationTo(Hasher hasher);
 
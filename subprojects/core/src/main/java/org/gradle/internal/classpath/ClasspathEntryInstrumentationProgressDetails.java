@@ -0,0 +1,40 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.classpath;
+
+/**
+ * Details about the instrumentation of a single classpath entry.
+ *
+ * Emitted as a progress event of the build operation that requested the classpath to be transformed, once the entry has been instrumented.
+ * Nothing is emitted for entries that were already instrumented and found in the cache.
+ */
+public interface ClasspathEntryInstrumentationProgressDetails {
+    /**
+     * The absolute path of the jar or directory that was instrumented.
+     */
+    String getSourcePath();
+
+    /**
+     * The number of classes that were instrumented.
+     */
+    int getClassCount();
+
+    /**
+     * The time spent instrumenting the entry, in milliseconds.
+     */
+    long getDurationMillis();
+}
@@ -29,6 +29,8 @@
 import org.gradle.internal.file.FileAccessTracker;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
 import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.vfs.FileSystemAccess;
 
@@ -50,6 +52,10 @@
 import static org.gradle.internal.UncheckedException.unchecked;
 
 public class DefaultCachedClasspathTransformer implements CachedClasspathTransformer, Closeable {
+    /**
+     * When set to true, build logic class loaders instrument their classes as they are loaded, rather than instrumenting all classes of their classpath up-front.
+     */
+    public static final String INSTRUMENT_ON_LOAD_PROPERTY = "org.gradle.internal.classpath.instrument-on-load";
 
     private final PersistentCache cache;
     private final FileAccessTracker fileAccessTracker;
@@ -59,6 +65,10 @@ public class DefaultCachedClasspathTransformer implements CachedClasspathTransfo
     private final GlobalCacheLocations globalCacheLocations;
     private final FileLockManager fileLockManager;
     private final ManagedExecutor executor;
+    private final ManagedExecutor classTransformExecutor;
+    private final int maxPendingClassTransforms;
+    private final BuildOperationProgressEventEmitter progressEventEmitter;
+    private final InstrumentedClassCache instrumentedClassCache;
 
     public DefaultCachedClasspathTransformer(
         GlobalScopedCache globalScopedCache,
@@ -69,7 +79,8 @@ public DefaultCachedClasspathTransformer(
         FileSystemAccess fileSystemAccess,
         ExecutorFactory executorFactory,
         GlobalCacheLocations globalCacheLocations,
-        FileLockManager fileLockManager
+        FileLockManager fileLockManager,
+        BuildOperationProgressEventEmitter progressEventEmitter
     ) {
         this.classpathWalker = classpathWalker;
         this.classpathBuilder = classpathBuilder;
@@ -78,12 +89,18 @@ public DefaultCachedClasspathTransformer(
         this.fileLockManager = fileLockManager;
         this.cache = classpathTransformerCacheFactory.createCache(globalScopedCache, fileAccessTimeJournal);
         this.fileAccessTracker = classpathTransformerCacheFactory.createFileAccessTracker(cache, fileAccessTimeJournal);
-        this.executor = executorFactory.create("jar transforms", Runtime.getRuntime().availableProcessors());
+        this.progressEventEmitter = progressEventEmitter;
+        int processors = Runtime.getRuntime().availableProcessors();
+        this.executor = executorFactory.create("jar transforms", processors);
+        // Jar transforms wait for class transforms, so class transforms need their own threads
+        this.classTransformExecutor = executorFactory.create("class transforms", processors);
+        this.maxPendingClassTransforms = 4 * processors;
+        this.instrumentedClassCache = new InstrumentedClassCache(cache.getBaseDir(), fileAccessTracker, new InstrumentingTransformer());
     }
 
     @Override
     public void close() {
-        CompositeStoppable.stoppable(executor, cache).stop();
+        CompositeStoppable.stoppable(executor, classTransformExecutor, cache).stop();
     }
 
     @Override
@@ -122,6 +139,14 @@ public List<URL> transform(Collection<URL> urls, StandardTransform transform) {
         );
     }
 
+    @Override
+    public ClassPath transformForClassLoader(ClassPath classPath, StandardTransform transform) {
+        if (classPath.isEmpty() || transform != StandardTransform.BuildLogic || !Boolean.getBoolean(INSTRUMENT_ON_LOAD_PROPERTY)) {
+            return transform(classPath, transform);
+        }
+        return new LazilyInstrumentedClassPath(classPath, instrumentedClassCache);
+    }
+
     private ClassPath transformFiles(ClassPath classPath, ClasspathFileTransformer transformer) {
         return DefaultClassPath.of(
             transformAll(
@@ -151,7 +176,16 @@ private ClasspathFileTransformer fileTransformerFor(StandardTransform transform)
     }
 
     private InstrumentingClasspathFileTransformer instrumentingClasspathFileTransformerFor(CachedClasspathTransformer.Transform transform) {
-        return new InstrumentingClasspathFileTransformer(fileLockManager, classpathWalker, classpathBuilder, transform);
+        return new InstrumentingClasspathFileTransformer(
+            fileLockManager,
+            classpathWalker,
+            classpathBuilder,
+            transform,
+            classTransformExecutor,
+            maxPendingClassTransforms,
+            progressEventEmitter,
+            CurrentBuildOperationRef.instance().getId()
+        );
     }
 
     private Optional<Either<URL, Callable<URL>>> cachedURL(URL original, ClasspathFileTransformer transformer, Set<HashCode> seen) {
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.classpath;
+
+import org.gradle.api.file.RelativePath;
+import org.gradle.internal.Pair;
+import org.gradle.internal.file.FileAccessTracker;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Instruments single classes, keeping the result in the instrumented jar cache keyed by the hash of the original class bytes.
+ *
+ * Each class is stored in its own directory of the cache, so that unused classes are cleaned up like unused jars.
+ * The entries are written to a temporary file and then moved into place, so that concurrent writers of the same class do not need to lock the cache.
+ */
+class InstrumentedClassCache {
+    private static final int CACHE_FORMAT = 1;
+
+    private final File cacheDir;
+    private final FileAccessTracker fileAccessTracker;
+    private final CachedClasspathTransformer.Transform transform;
+    private final HashCode configHash;
+
+    InstrumentedClassCache(File cacheDir, FileAccessTracker fileAccessTracker, CachedClasspathTransformer.Transform transform) {
+        this.cacheDir = cacheDir;
+        this.fileAccessTracker = fileAccessTracker;
+        this.transform = transform;
+        this.configHash = configHashFor(transform);
+    }
+
+    private static HashCode configHashFor(CachedClasspathTransformer.Transform transform) {
+        Hasher hasher = Hashing.defaultFunction().newHasher();
+        hasher.putString(InstrumentedClassCache.class.getSimpleName());
+        hasher.putInt(CACHE_FORMAT);
+        transform.applyConfigurationTo(hasher);
+        return hasher.hash();
+    }
+
+    /**
+     * Hashes the configuration of this cache, so that class loaders that instrument their classes differently have different implementation hashes.
+     */
+    void applyConfigurationTo(Hasher hasher) {
+        hasher.putHash(configHash);
+    }
+
+    /**
+     * Returns the instrumented bytes of the given class, instrumenting the class when it is not in the cache yet.
+     */
+    byte[] instrument(String className, byte[] bytes) throws IOException {
+        Hasher hasher = Hashing.defaultFunction().newHasher();
+        hasher.putHash(configHash);
+        hasher.putBytes(bytes);
+        File destDir = new File(cacheDir, hasher.hash().toString());
+        String fileName = className.replace('.', '/') + ".class";
+        File instrumented = new File(destDir, fileName.substring(fileName.lastIndexOf('/') + 1));
+        if (instrumented.isFile()) {
+            fileAccessTracker.markAccessed(destDir);
+            return Files.readAllBytes(instrumented.toPath());
+        }
+
+        ClasspathEntryVisitor.Entry entry = new InstrumentingClasspathFileTransformer.ContentEntry(fileName, RelativePath.parse(true, fileName), ClasspathEntryVisitor.Entry.CompressionMethod.DEFLATED, bytes);
+        ClassReader reader = new ClassReader(bytes);
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        Pair<RelativePath, ClassVisitor> chain = transform.apply(entry, classWriter);
+        reader.accept(chain.right, 0);
+        byte[] result = classWriter.toByteArray();
+
+        store(destDir, instrumented, result);
+        fileAccessTracker.markAccessed(destDir);
+        return result;
+    }
+
+    private static void store(File destDir, File instrumented, byte[] content) throws IOException {
+        Files.createDirectories(destDir.toPath());
+        File tempFile = new File(destDir, instrumented.getName() + "-" + UUID.randomUUID() + ".tmp");
+        try {
+            Files.write(tempFile.toPath(), content);
+            Files.move(tempFile.toPath(), instrumented.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // A concurrent writer stored the same class first
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.classpath;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ImplementationHashAware;
+import org.gradle.internal.classloader.TransformingClassLoader;
+import org.gradle.internal.hash.HashCode;
+
+import java.io.IOException;
+
+/**
+ * A class loader that instruments the classes of its classpath as they are defined, instead of loading them from an instrumented copy of the classpath.
+ */
+class InstrumentingClassLoader extends TransformingClassLoader implements ImplementationHashAware {
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    private final InstrumentedClassCache classCache;
+    private final HashCode implementationHash;
+
+    InstrumentingClassLoader(String name, ClassLoader parent, ClassPath classPath, InstrumentedClassCache classCache, HashCode implementationHash) {
+        super(name, parent, classPath);
+        this.classCache = classCache;
+        this.implementationHash = implementationHash;
+    }
+
+    @Override
+    public HashCode getImplementationHash() {
+        return implementationHash;
+    }
+
+    @Override
+    protected byte[] transform(String className, byte[] bytes) {
+        try {
+            return classCache.instrument(className, bytes);
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
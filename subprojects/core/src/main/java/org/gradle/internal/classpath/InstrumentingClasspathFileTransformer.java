@@ -24,12 +24,17 @@
 import org.gradle.cache.FileLock;
 import org.gradle.cache.FileLockManager;
 import org.gradle.internal.Pair;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.file.FileException;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.Hasher;
 import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
+import org.gradle.internal.operations.OperationIdentifier;
 import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.time.Time;
+import org.gradle.internal.time.Timer;
 import org.gradle.util.internal.GFileUtils;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -37,8 +42,16 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.lang.String.format;
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
@@ -51,18 +64,36 @@ class InstrumentingClasspathFileTransformer implements ClasspathFileTransformer
     private final ClasspathWalker classpathWalker;
     private final ClasspathBuilder classpathBuilder;
     private final CachedClasspathTransformer.Transform transform;
+    private final ExecutorService classTransformExecutor;
+    private final int maxPendingEntries;
+    private final BuildOperationProgressEventEmitter progressEventEmitter;
+    @Nullable
+    private final OperationIdentifier parentOperationId;
     private final HashCode configHash;
 
+    /**
+     * Classes are transformed on the given executor, so that the classes of a single large jar are transformed in parallel.
+     * At most {@code maxPendingEntries} entries are held in memory while waiting to be written, in the order in which they were read.
+     * The time spent instrumenting each entry is reported as a progress event of the given build operation, if any.
+     */
     public InstrumentingClasspathFileTransformer(
         FileLockManager fileLockManager,
         ClasspathWalker classpathWalker,
         ClasspathBuilder classpathBuilder,
-        CachedClasspathTransformer.Transform transform
+        CachedClasspathTransformer.Transform transform,
+        ExecutorService classTransformExecutor,
+        int maxPendingEntries,
+        BuildOperationProgressEventEmitter progressEventEmitter,
+        @Nullable OperationIdentifier parentOperationId
     ) {
         this.fileLockManager = fileLockManager;
         this.classpathWalker = classpathWalker;
         this.classpathBuilder = classpathBuilder;
         this.transform = transform;
+        this.classTransformExecutor = classTransformExecutor;
+        this.maxPendingEntries = maxPendingEntries;
+        this.progressEventEmitter = progressEventEmitter;
+        this.parentOperationId = parentOperationId;
         this.configHash = configHashFor(transform);
     }
 
@@ -129,40 +160,90 @@ private void transform(File source, File dest) {
             LOGGER.debug("Signed archive '{}'. Skipping instrumentation.", source.getName());
             GFileUtils.copyFile(source, dest);
         } else {
-            instrument(source, dest);
+            Timer timer = Time.startTimer();
+            int classCount = instrument(source, dest);
+            if (parentOperationId != null) {
+                progressEventEmitter.emit(parentOperationId, System.currentTimeMillis(), new DefaultClasspathEntryInstrumentationProgressDetails(source.getAbsolutePath(), classCount, timer.getElapsedMillis()));
+            }
         }
     }
 
-    private void instrument(File source, File dest) {
+    private int instrument(File source, File dest) {
+        AtomicInteger classCount = new AtomicInteger();
         classpathBuilder.jar(dest, builder -> {
             try {
-                visitEntries(source, builder);
+                visitEntries(source, builder, classCount);
             } catch (FileException e) {
                 // Badly formed archive, so discard the contents and produce an empty JAR
                 LOGGER.debug("Malformed archive '{}'. Discarding contents.", source.getName(), e);
             }
         });
+        return classCount.get();
     }
 
-    private void visitEntries(File source, ClasspathBuilder.EntryBuilder builder) throws IOException, FileException {
-        classpathWalker.visit(source, entry -> {
-            try {
-                if (entry.getName().endsWith(".class")) {
-                    ClassReader reader = new ClassReader(entry.getContent());
-                    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-                    Pair<RelativePath, ClassVisitor> chain = transform.apply(entry, classWriter);
-                    reader.accept(chain.right, 0);
-                    byte[] bytes = classWriter.toByteArray();
-                    builder.put(chain.left.getPathString(), bytes, entry.getCompressionMethod());
-                } else {
-                    builder.put(entry.getName(), entry.getContent(), entry.getCompressionMethod());
+    private void visitEntries(File source, ClasspathBuilder.EntryBuilder builder, AtomicInteger classCount) throws IOException, FileException {
+        Deque<Future<TransformedEntry>> pendingEntries = new ArrayDeque<>();
+        try {
+            classpathWalker.visit(source, entry -> {
+                pendingEntries.add(transformEntry(source, entry, classCount));
+                if (pendingEntries.size() >= maxPendingEntries) {
+                    writeEntry(pendingEntries.remove(), builder);
                 }
+            });
+            while (!pendingEntries.isEmpty()) {
+                writeEntry(pendingEntries.remove(), builder);
+            }
+        } finally {
+            for (Future<TransformedEntry> pendingEntry : pendingEntries) {
+                pendingEntry.cancel(false);
+            }
+        }
+    }
+
+    private Future<TransformedEntry> transformEntry(File source, ClasspathEntryVisitor.Entry entry, AtomicInteger classCount) throws IOException {
+        ClasspathEntryVisitor.Entry contentEntry;
+        try {
+            // Read the content on this thread, as entries can only be read while the walker is visiting them
+            contentEntry = new ContentEntry(entry.getName(), entry.getPath(), entry.getCompressionMethod(), entry.getContent());
+        } catch (Throwable e) {
+            throw failedToProcess(source, entry, e);
+        }
+        if (!entry.getName().endsWith(".class")) {
+            return CompletableFuture.completedFuture(new TransformedEntry(contentEntry.getName(), contentEntry.getContent(), contentEntry.getCompressionMethod()));
+        }
+        classCount.incrementAndGet();
+        return classTransformExecutor.submit(() -> {
+            try {
+                ClassReader reader = new ClassReader(contentEntry.getContent());
+                ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+                Pair<RelativePath, ClassVisitor> chain = transform.apply(contentEntry, classWriter);
+                reader.accept(chain.right, 0);
+                return new TransformedEntry(chain.left.getPathString(), classWriter.toByteArray(), contentEntry.getCompressionMethod());
             } catch (Throwable e) {
-                throw new IOException("Failed to process the entry '" + entry.getName() + "' from '" + source + "'", e);
+                throw failedToProcess(source, contentEntry, e);
             }
         });
     }
 
+    private static void writeEntry(Future<TransformedEntry> pendingEntry, ClasspathBuilder.EntryBuilder builder) throws IOException {
+        TransformedEntry entry;
+        try {
+            entry = pendingEntry.get();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+        builder.put(entry.name, entry.content, entry.compressionMethod);
+    }
+
+    private static IOException failedToProcess(File source, ClasspathEntryVisitor.Entry entry, Throwable e) {
+        return new IOException("Failed to process the entry '" + entry.getName() + "' from '" + source + "'", e);
+    }
+
     private boolean isSignedJar(File source) {
         if (!source.isFile()) {
             return false;
@@ -181,4 +262,77 @@ private boolean isSignedJar(File source) {
         }
         return false;
     }
+
+    static class ContentEntry implements ClasspathEntryVisitor.Entry {
+        private final String name;
+        private final RelativePath path;
+        private final CompressionMethod compressionMethod;
+        private final byte[] content;
+
+        ContentEntry(String name, RelativePath path, CompressionMethod compressionMethod, byte[] content) {
+            this.name = name;
+            this.path = path;
+            this.compressionMethod = compressionMethod;
+            this.content = content;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public RelativePath getPath() {
+            return path;
+        }
+
+        @Override
+        public CompressionMethod getCompressionMethod() {
+            return compressionMethod;
+        }
+
+        @Override
+        public byte[] getContent() {
+            return content;
+        }
+    }
+
+    private static class TransformedEntry {
+        private final String name;
+        private final byte[] content;
+        private final ClasspathEntryVisitor.Entry.CompressionMethod compressionMethod;
+
+        TransformedEntry(String name, byte[] content, ClasspathEntryVisitor.Entry.CompressionMethod compressionMethod) {
+            this.name = name;
+            this.content = content;
+            this.compressionMethod = compressionMethod;
+        }
+    }
+
+    private static class DefaultClasspathEntryInstrumentationProgressDetails implements ClasspathEntryInstrumentationProgressDetails {
+        private final String sourcePath;
+        private final int classCount;
+        private final long durationMillis;
+
+        DefaultClasspathEntryInstrumentationProgressDetails(String sourcePath, int classCount, long durationMillis) {
+            this.sourcePath = sourcePath;
+            this.classCount = classCount;
+            this.durationMillis = durationMillis;
+        }
+
+        @Override
+        public String getSourcePath() {
+            return sourcePath;
+        }
+
+        @Override
+        public int getClassCount() {
+            return classCount;
+        }
+
+        @Override
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.classpath;
+
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A classpath made of untransformed files, whose classes are instrumented when they are loaded by a class loader created with {@link #createClassLoader(String, ClassLoader, HashCode)}.
+ *
+ * The instrumentation is lost when this classpath is appended to another classpath, so it should be the whole classpath of a class loader.
+ */
+public class LazilyInstrumentedClassPath implements ClassPath {
+    private final ClassPath classPath;
+    private final InstrumentedClassCache classCache;
+
+    LazilyInstrumentedClassPath(ClassPath classPath, InstrumentedClassCache classCache) {
+        this.classPath = classPath;
+        this.classCache = classCache;
+    }
+
+    /**
+     * Creates a class loader that instruments the classes of this classpath as they are loaded.
+     */
+    public ClassLoader createClassLoader(String name, ClassLoader parent, HashCode implementationHash) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putHash(implementationHash);
+        classCache.applyConfigurationTo(hasher);
+        return new InstrumentingClassLoader(name, parent, classPath, classCache, hasher.hash());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return classPath.isEmpty();
+    }
+
+    @Override
+    public List<URI> getAsURIs() {
+        return classPath.getAsURIs();
+    }
+
+    @Override
+    public List<File> getAsFiles() {
+        return classPath.getAsFiles();
+    }
+
+    @Override
+    public List<URL> getAsURLs() {
+        return classPath.getAsURLs();
+    }
+
+    @Override
+    public URL[] getAsURLArray() {
+        return classPath.getAsURLArray();
+    }
+
+    @Override
+    public ClassPath plus(Collection<File> other) {
+        return new LazilyInstrumentedClassPath(classPath.plus(other), classCache);
+    }
+
+    @Override
+    public ClassPath plus(ClassPath other) {
+        return new LazilyInstrumentedClassPath(classPath.plus(other), classCache);
+    }
+
+    @Override
+    public ClassPath removeIf(Spec<? super File> filter) {
+        return new LazilyInstrumentedClassPath(classPath.removeIf(filter), classCache);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        LazilyInstrumentedClassPath other = (LazilyInstrumentedClassPath) obj;
+        return classPath.equals(other.classPath) && classCache == other.classCache;
+    }
+
+    @Override
+    public int hashCode() {
+        return classPath.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return classPath.toString();
+    }
+}
@@ -28,7 +28,9 @@
 import org.gradle.internal.fingerprint.classpath.ClasspathFingerprinter;
 import org.gradle.internal.fingerprint.impl.AbstractFileCollectionFingerprinter;
 
+import javax.annotation.Nullable;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 public class DefaultClasspathFingerprinter extends AbstractFileCollectionFingerprinter implements ClasspathFingerprinter {
     public DefaultClasspathFingerprinter(
@@ -39,16 +41,30 @@ public DefaultClasspathFingerprinter(
         Map<String, ResourceEntryFilter> propertiesFileFilters,
         StringInterner stringInterner,
         LineEndingSensitivity lineEndingSensitivity
+    ) {
+        this(cacheService, fileCollectionSnapshotter, classpathResourceFilter, manifestAttributeResourceEntryFilter, propertiesFileFilters, stringInterner, lineEndingSensitivity, null);
+    }
+
+    public DefaultClasspathFingerprinter(
+        ResourceSnapshotterCacheService cacheService,
+        FileCollectionSnapshotter fileCollectionSnapshotter,
+        ResourceFilter classpathResourceFilter,
+        ResourceEntryFilter manifestAttributeResourceEntryFilter,
+        Map<String, ResourceEntryFilter> propertiesFileFilters,
+        StringInterner stringInterner,
+        LineEndingSensitivity lineEndingSensitivity,
+        @Nullable Executor zipHashingExecutor
     ) {
         super(
             ClasspathFingerprintingStrategy.runtimeClasspath(
                 classpathResourceFilter,
                 manifestAttributeResourceEntryFilter,
                 propertiesFileFilters,
-                new RuntimeClasspathResourceHasher(),
+                new RuntimeClasspathResourceHasher(Boolean.getBoolean(RuntimeClasspathResourceHasher.USE_RECORDED_CHECKSUMS_PROPERTY)),
                 cacheService,
                 stringInterner,
-                lineEndingSensitivity
+                lineEndingSensitivity,
+                zipHashingExecutor
             ),
             fileCollectionSnapshotter
         );
@@ -95,6 +95,7 @@
 import org.gradle.configuration.ScriptPluginFactory;
 import org.gradle.configuration.ScriptPluginFactorySelector;
 import org.gradle.configuration.internal.UserCodeApplicationContext;
+import org.gradle.configuration.project.BuildScriptPrecompiler;
 import org.gradle.configuration.project.DefaultCompileOperationFactory;
 import org.gradle.configuration.project.PluginsProjectConfigureActions;
 import org.gradle.execution.CompositeAwareTaskSelector;
@@ -106,6 +107,7 @@
 import org.gradle.execution.plan.ExecutionNodeAccessHierarchies;
 import org.gradle.execution.plan.ExecutionPlanFactory;
 import org.gradle.execution.plan.OrdinalGroupFactory;
+import org.gradle.execution.plan.SpeculativeInputSnapshotter;
 import org.gradle.execution.plan.TaskDependencyResolver;
 import org.gradle.execution.plan.TaskNodeDependencyResolver;
 import org.gradle.execution.plan.TaskNodeFactory;
@@ -118,6 +120,7 @@
 import org.gradle.groovy.scripts.internal.DefaultScriptCompilationHandler;
 import org.gradle.groovy.scripts.internal.DefaultScriptRunnerFactory;
 import org.gradle.groovy.scripts.internal.FileCacheBackedScriptClassCompiler;
+import org.gradle.groovy.scripts.internal.ScriptClassResolutionCache;
 import org.gradle.groovy.scripts.internal.ScriptRunnerFactory;
 import org.gradle.initialization.BuildLoader;
 import org.gradle.initialization.BuildOperationFiringSettingsPreparer;
@@ -198,8 +201,10 @@
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.snapshot.CaseSensitivity;
+import org.gradle.internal.vfs.FileSystemAccess;
 import org.gradle.model.internal.inspect.ModelRuleSourceDetector;
 import org.gradle.plugin.management.internal.autoapply.AutoAppliedPluginHandler;
+import org.gradle.plugin.management.internal.autoapply.AutoAppliedPluginRegistry;
 import org.gradle.plugin.use.internal.PluginRequestApplicator;
 import org.gradle.process.internal.DefaultExecOperations;
 import org.gradle.process.internal.DefaultExecSpecFactory;
@@ -268,6 +273,10 @@ ExecutionNodeAccessHierarchies createExecutionNodeAccessHierarchies(FileSystem f
         return new ExecutionNodeAccessHierarchies(fileSystem.isCaseSensitive() ? CaseSensitivity.CASE_SENSITIVE : CaseSensitivity.CASE_INSENSITIVE, stat);
     }
 
+    SpeculativeInputSnapshotter createSpeculativeInputSnapshotter(ExecutionNodeAccessHierarchies executionNodeAccessHierarchies, FileSystemAccess fileSystemAccess, ExecutorFactory executorFactory) {
+        return new SpeculativeInputSnapshotter(executionNodeAccessHierarchies, fileSystemAccess, executorFactory);
+    }
+
     protected BuildScopedCache createBuildScopedCache(
         GradleUserHomeDirProvider userHomeDirProvider,
         BuildLayout buildLayout,
@@ -552,7 +561,10 @@ protected ProjectsPreparer createBuildConfigurer(
         BuildLoader buildLoader,
         ListenerManager listenerManager,
         BuildOperationExecutor buildOperationExecutor,
-        BuildModelParameters buildModelParameters
+        BuildModelParameters buildModelParameters,
+        ScriptCompilerFactory scriptCompilerFactory,
+        CompileOperationFactory compileOperationFactory,
+        AutoAppliedPluginRegistry autoAppliedPluginRegistry
     ) {
         ModelConfigurationListener modelConfigurationListener = listenerManager.getBroadcaster(ModelConfigurationListener.class);
         return new BuildOperationFiringProjectsPreparer(
@@ -562,7 +574,8 @@ protected ProjectsPreparer createBuildConfigurer(
                     buildModelParameters,
                     modelConfigurationListener,
                     buildOperationExecutor,
-                    buildStateRegistry),
+                    buildStateRegistry,
+                    new BuildScriptPrecompiler(scriptCompilerFactory, compileOperationFactory, autoAppliedPluginRegistry, buildOperationExecutor)),
                 buildLoader,
                 inclusionCoordinator,
                 buildSourceBuilder),
@@ -648,8 +661,8 @@ protected CompileOperationFactory createCompileOperationFactory(DocumentationReg
         return new DefaultCompileOperationFactory(documentationRegistry);
     }
 
-    protected DefaultScriptCompilationHandler createScriptCompilationHandler(Deleter deleter, ImportsReader importsReader) {
-        return new DefaultScriptCompilationHandler(deleter, importsReader);
+    protected DefaultScriptCompilationHandler createScriptCompilationHandler(Deleter deleter, ImportsReader importsReader, ScriptClassResolutionCache classResolutionCache) {
+        return new DefaultScriptCompilationHandler(deleter, importsReader, classResolutionCache);
     }
 
     protected ScriptRunnerFactory createScriptRunnerFactory(ListenerManager listenerManager, InstantiatorFactory instantiatorFactory) {
@@ -41,6 +41,7 @@
 import org.gradle.internal.execution.history.impl.DefaultExecutionHistoryStore;
 import org.gradle.internal.execution.history.impl.DefaultOutputFilesRepository;
 import org.gradle.internal.execution.impl.DefaultExecutionEngine;
+import org.gradle.internal.execution.impl.FileSystemWorkExecutor;
 import org.gradle.internal.execution.steps.AssignWorkspaceStep;
 import org.gradle.internal.execution.steps.BuildCacheStep;
 import org.gradle.internal.execution.steps.CancelExecutionStep;
@@ -125,6 +126,7 @@ public ExecutionEngine createExecutionEngine(
         CurrentBuildOperationRef currentBuildOperationRef,
         Deleter deleter,
         ExecutionStateChangeDetector changeDetector,
+        FileSystemWorkExecutor fileSystemWorkExecutor,
         OutputChangeListener outputChangeListener,
         WorkInputListeners workInputListeners, OutputFilesRepository outputFilesRepository,
         OutputSnapshotter outputSnapshotter,
@@ -158,7 +160,7 @@ public ExecutionEngine createExecutionEngine(
             new CreateOutputsStep<>(
             new TimeoutStep<>(timeoutHandler, currentBuildOperationRef,
             new CancelExecutionStep<>(cancellationToken,
-            new RemovePreviousOutputsStep<>(deleter, outputChangeListener,
+            new RemovePreviousOutputsStep<>(deleter, outputChangeListener, fileSystemWorkExecutor,
             new ExecuteStep<>(buildOperationExecutor
         ))))))))))))))))))))))));
         // @formatter:on
@@ -47,6 +47,7 @@
 import org.gradle.groovy.scripts.internal.CrossBuildInMemoryCachingScriptClassCache;
 import org.gradle.groovy.scripts.internal.DefaultScriptSourceHasher;
 import org.gradle.groovy.scripts.internal.RegistryAwareClassLoaderHierarchyHasher;
+import org.gradle.groovy.scripts.internal.ScriptClassResolutionCache;
 import org.gradle.groovy.scripts.internal.ScriptSourceHasher;
 import org.gradle.initialization.ClassLoaderRegistry;
 import org.gradle.initialization.ClassLoaderScopeRegistry;
@@ -84,6 +85,7 @@
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.worker.DefaultWorkerProcessFactory;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
+import org.gradle.process.internal.worker.child.WorkerClassDataSharingArchives;
 import org.gradle.process.internal.worker.child.WorkerProcessClassPathProvider;
 import org.gradle.util.GradleVersion;
 
@@ -133,6 +135,10 @@ CrossBuildInMemoryCachingScriptClassCache createCachingScriptCompiler(CrossBuild
         return new CrossBuildInMemoryCachingScriptClassCache(cacheFactory);
     }
 
+    ScriptClassResolutionCache createScriptClassResolutionCache() {
+        return new ScriptClassResolutionCache();
+    }
+
     ClassLoaderHierarchyHasher createClassLoaderHierarchyHasher(ClassLoaderRegistry registry, HashingClassLoaderFactory classLoaderFactory) {
         return new RegistryAwareClassLoaderHierarchyHasher(registry, classLoaderFactory);
     }
@@ -176,7 +182,8 @@ ExecFactory createExecFactory(ExecFactory parent, FileResolver fileResolver, Fil
     WorkerProcessFactory createWorkerProcessFactory(
         LoggingManagerInternal loggingManagerInternal, MessagingServer messagingServer, ClassPathRegistry classPathRegistry,
         TemporaryFileProvider temporaryFileProvider, JavaExecHandleFactory execHandleFactory, JvmVersionDetector jvmVersionDetector,
-        MemoryManager memoryManager, GradleUserHomeDirProvider gradleUserHomeDirProvider, OutputEventListener outputEventListener
+        MemoryManager memoryManager, GradleUserHomeDirProvider gradleUserHomeDirProvider, OutputEventListener outputEventListener,
+        WorkerClassDataSharingArchives classDataSharingArchives
     ) {
         return new DefaultWorkerProcessFactory(
             loggingManagerInternal,
@@ -188,10 +195,15 @@ WorkerProcessFactory createWorkerProcessFactory(
             execHandleFactory,
             jvmVersionDetector,
             outputEventListener,
-            memoryManager
+            memoryManager,
+            classDataSharingArchives
         );
     }
 
+    WorkerClassDataSharingArchives createWorkerClassDataSharingArchives(GlobalScopedCache cacheRepository, FileAccessTimeJournal fileAccessTimeJournal) {
+        return new WorkerClassDataSharingArchives(cacheRepository, fileAccessTimeJournal);
+    }
+
     ClassPathRegistry createClassPathRegistry(ModuleRegistry moduleRegistry, WorkerProcessClassPathProvider workerProcessClassPathProvider) {
         return new DefaultClassPathRegistry(
             new DefaultClassPathProvider(moduleRegistry),
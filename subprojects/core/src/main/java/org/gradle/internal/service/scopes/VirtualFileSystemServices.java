@@ -49,6 +49,7 @@
 import org.gradle.initialization.RootBuildLifecycleListener;
 import org.gradle.internal.build.BuildAddedListener;
 import org.gradle.internal.classloader.ClasspathHasher;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.execution.OutputChangeListener;
 import org.gradle.internal.execution.OutputSnapshotter;
@@ -58,6 +59,7 @@
 import org.gradle.internal.execution.fingerprint.impl.DefaultFileCollectionFingerprinterRegistry;
 import org.gradle.internal.execution.fingerprint.impl.DefaultInputFingerprinter;
 import org.gradle.internal.execution.impl.DefaultOutputSnapshotter;
+import org.gradle.internal.execution.impl.FileSystemWorkExecutor;
 import org.gradle.internal.file.Stat;
 import org.gradle.internal.fingerprint.GenericFileTreeSnapshotter;
 import org.gradle.internal.fingerprint.LineEndingSensitivity;
@@ -391,14 +393,15 @@ FileCollectionSnapshotter createFileCollectionSnapshotter(FileSystemAccess fileS
             return new DefaultFileCollectionSnapshotter(fileSystemAccess, genericFileTreeSnapshotter, stat);
         }
 
-        OutputSnapshotter createOutputSnapshotter(FileCollectionSnapshotter fileCollectionSnapshotter) {
-            return new DefaultOutputSnapshotter(fileCollectionSnapshotter);
+        OutputSnapshotter createOutputSnapshotter(FileCollectionSnapshotter fileCollectionSnapshotter, FileSystemWorkExecutor fileSystemWorkExecutor) {
+            return new DefaultOutputSnapshotter(fileCollectionSnapshotter, fileSystemWorkExecutor);
         }
 
         FileCollectionFingerprinterRegistrations createFileCollectionFingerprinterRegistrations(
             StringInterner stringInterner,
             FileCollectionSnapshotter fileCollectionSnapshotter,
-            ResourceSnapshotterCacheService resourceSnapshotterCacheService
+            ResourceSnapshotterCacheService resourceSnapshotterCacheService,
+            FileSystemWorkExecutor fileSystemWorkExecutor
         ) {
             return new FileCollectionFingerprinterRegistrations(
                 stringInterner,
@@ -406,7 +409,8 @@ FileCollectionFingerprinterRegistrations createFileCollectionFingerprinterRegist
                 resourceSnapshotterCacheService,
                 ResourceFilter.FILTER_NOTHING,
                 ResourceEntryFilter.FILTER_NOTHING,
-                PropertiesFileFilter.FILTER_NOTHING
+                PropertiesFileFilter.FILTER_NOTHING,
+                fileSystemWorkExecutor
             );
         }
 
@@ -414,12 +418,17 @@ FileCollectionFingerprinterRegistry createFileCollectionFingerprinterRegistry(Fi
             return new DefaultFileCollectionFingerprinterRegistry(fileCollectionFingerprinterRegistrations.getRegistrants());
         }
 
+        FileSystemWorkExecutor createFileSystemWorkExecutor(ExecutorFactory executorFactory) {
+            return new FileSystemWorkExecutor(executorFactory);
+        }
+
         InputFingerprinter createInputFingerprinter(
             FileCollectionSnapshotter snapshotter,
             FileCollectionFingerprinterRegistry fingerprinterRegistry,
-            ValueSnapshotter valueSnapshotter
+            ValueSnapshotter valueSnapshotter,
+            FileSystemWorkExecutor fileSystemWorkExecutor
         ) {
-            return new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter);
+            return new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter, fileSystemWorkExecutor);
         }
 
         ResourceSnapshotterCacheService createResourceSnapshotterCacheService(
@@ -17,6 +17,8 @@
 package org.gradle.process.internal.worker.child;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.Iterables;
+import org.gradle.api.JavaVersion;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.file.temp.TemporaryFileProvider;
@@ -70,21 +72,25 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory {
     private final ClassPathRegistry classPathRegistry;
     private final TemporaryFileProvider temporaryFileProvider;
     private final File gradleUserHomeDir;
+    private final WorkerClassDataSharingArchives classDataSharingArchives;
 
     public ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(
         ClassPathRegistry classPathRegistry,
         TemporaryFileProvider temporaryFileProvider,
-        File gradleUserHomeDir
+        File gradleUserHomeDir,
+        WorkerClassDataSharingArchives classDataSharingArchives
     ) {
         this.classPathRegistry = classPathRegistry;
         this.temporaryFileProvider = temporaryFileProvider;
         this.gradleUserHomeDir = gradleUserHomeDir;
+        this.classDataSharingArchives = classDataSharingArchives;
     }
 
     /**
      * Configures the Java command that will be used to launch the child process.
      */
-    public void prepareJavaCommand(long workerId, String displayName, WorkerProcessBuilder processBuilder, List<URL> implementationClassPath, List<URL> implementationModulePath, Address serverAddress, JavaExecHandleBuilder execSpec, boolean publishProcessInfo, boolean useOptionsFile) {
+    public void prepareJavaCommand(long workerId, String displayName, WorkerProcessBuilder processBuilder, List<URL> implementationClassPath, List<URL> implementationModulePath, Address serverAddress, JavaExecHandleBuilder execSpec, boolean publishProcessInfo, JavaVersion javaVersion) {
+        boolean useOptionsFile = javaVersion.isJava9Compatible();
         Collection<File> applicationClasspath = processBuilder.getApplicationClasspath();
         Set<File> applicationModulePath = processBuilder.getApplicationModulePath();
         LogLevel logLevel = processBuilder.getLogLevel();
@@ -102,6 +108,9 @@ public void prepareJavaCommand(long workerId, String displayName, WorkerProcessB
             // Use an options file to pass across application classpath
             File optionsFile = temporaryFileProvider.createTemporaryFile("gradle-worker-classpath", "txt");
             List<String> jvmArgs = writeOptionsFile(runAsModule, workerMainClassPath, implementationModulePath, applicationClasspath, applicationModulePath, optionsFile);
+            if (!runAsModule && applicationModulePath.isEmpty()) {
+                classDataSharingArchives.configure(execSpec, javaVersion, Iterables.concat(workerMainClassPath, applicationClasspath));
+            }
             execSpec.jvmArgs(jvmArgs);
         } else {
             // Use a dummy security manager, which hacks the application classpath into the system ClassLoader
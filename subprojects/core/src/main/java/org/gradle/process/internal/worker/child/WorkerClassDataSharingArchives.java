@@ -0,0 +1,221 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker.child;
+
+import org.gradle.api.JavaVersion;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup;
+import org.gradle.cache.internal.SingleDepthFilesFinder;
+import org.gradle.cache.scopes.GlobalScopedCache;
+import org.gradle.internal.file.FileAccessTimeJournal;
+import org.gradle.internal.file.FileAccessTracker;
+import org.gradle.internal.file.impl.SingleDepthFileAccessTracker;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.ExecHandle;
+import org.gradle.process.internal.ExecHandleListener;
+import org.gradle.process.internal.JavaExecHandleBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup.DEFAULT_MAX_AGE_IN_DAYS_FOR_RECREATABLE_CACHE_ENTRIES;
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Maintains application class data sharing (AppCDS) archives for worker processes in the Gradle user home.
+ *
+ * <p>Archives are keyed by the Java installation, the JVM arguments and the contents of the worker's class path. The first worker started for a key
+ * dumps the classes it loaded into an archive when it exits, and later workers for the same key map the archive instead of loading and verifying those classes again.
+ * Archives are only used with Java 13 and later, which support dynamic archives, and only for class paths made of files, as the JVM refuses to dump
+ * archives when the class path contains directories.</p>
+ *
+ * <p>Archives are opt-in, as creating one makes the worker take longer to exit. The cache holding them is only opened once a worker could use an archive,
+ * and archives that have not been used for a while are removed by the cleanup of the cache.</p>
+ */
+public class WorkerClassDataSharingArchives implements Closeable {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.worker.class-data-sharing";
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerClassDataSharingArchives.class);
+    private static final String CACHE_NAME = "worker-cds";
+    private static final int FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP = 1;
+
+    private final Supplier<PersistentCache> cacheOpener;
+    private final FileAccessTimeJournal fileAccessTimeJournal;
+    @Nullable
+    private OpenArchives openArchives;
+    private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+    private final Set<String> failedKeys = ConcurrentHashMap.newKeySet();
+
+    public WorkerClassDataSharingArchives(GlobalScopedCache cacheRepository, FileAccessTimeJournal fileAccessTimeJournal) {
+        this(
+            () -> cacheRepository.cache(CACHE_NAME)
+                .withDisplayName("worker class data sharing archives")
+                .withLockOptions(mode(FileLockManager.LockMode.OnDemand))
+                .withCleanup(new LeastRecentlyUsedCacheCleanup(
+                    new SingleDepthFilesFinder(FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP),
+                    fileAccessTimeJournal,
+                    DEFAULT_MAX_AGE_IN_DAYS_FOR_RECREATABLE_CACHE_ENTRIES
+                ))
+                .open(),
+            fileAccessTimeJournal
+        );
+    }
+
+    public WorkerClassDataSharingArchives(Supplier<PersistentCache> cacheOpener, FileAccessTimeJournal fileAccessTimeJournal) {
+        this.cacheOpener = cacheOpener;
+        this.fileAccessTimeJournal = fileAccessTimeJournal;
+    }
+
+    /**
+     * Adds the JVM arguments to use or create the archive for the given worker command. Must be called before any per-process arguments are added to the command.
+     */
+    public void configure(JavaExecHandleBuilder javaCommand, JavaVersion javaVersion, Iterable<File> classpath) {
+        if (!isEnabled() || !javaVersion.isCompatibleWith(JavaVersion.VERSION_13)) {
+            return;
+        }
+        Hasher hasher = Hashing.newHasher();
+        File javaHome = new File(javaCommand.getExecutable()).getAbsoluteFile().getParentFile().getParentFile();
+        hasher.putString(javaVersion.getMajorVersion());
+        if (!putFileState(hasher, new File(javaHome, "lib/modules"))) {
+            return;
+        }
+        for (String jvmArg : javaCommand.getAllJvmArgs()) {
+            hasher.putString(jvmArg);
+        }
+        hasher.putInt(0);
+        for (File file : classpath) {
+            if (!putFileState(hasher, file)) {
+                return;
+            }
+        }
+        String key = hasher.hash().toString();
+        if (failedKeys.contains(key)) {
+            return;
+        }
+
+        OpenArchives archives = open();
+        File archive = new File(archives.dir, key + ".jsa");
+        if (archive.isFile()) {
+            archives.fileAccessTracker.markAccessed(archive);
+            javaCommand.jvmArgs("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+        } else if (pendingKeys.add(key)) {
+            File tempArchive = new File(archives.dir, key + "-" + UUID.randomUUID() + ".jsa.tmp");
+            LOGGER.debug("Creating class data sharing archive {} for worker process.", archive);
+            javaCommand.jvmArgs("-XX:ArchiveClassesAtExit=" + tempArchive.getAbsolutePath());
+            javaCommand.listener(new ArchiveCompletion(archives, key, tempArchive, archive));
+        }
+    }
+
+    private synchronized OpenArchives open() {
+        if (openArchives == null) {
+            openArchives = new OpenArchives(cacheOpener.get(), fileAccessTimeJournal);
+        }
+        return openArchives;
+    }
+
+    private static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (openArchives != null) {
+            openArchives.cache.close();
+            openArchives = null;
+        }
+    }
+
+    private static boolean putFileState(Hasher hasher, File file) {
+        if (!file.isFile()) {
+            return false;
+        }
+        hasher.putString(file.getAbsolutePath());
+        hasher.putLong(file.length());
+        hasher.putLong(file.lastModified());
+        return true;
+    }
+
+    private static class OpenArchives {
+        private final PersistentCache cache;
+        private final File dir;
+        private final FileAccessTracker fileAccessTracker;
+
+        OpenArchives(PersistentCache cache, FileAccessTimeJournal fileAccessTimeJournal) {
+            this.cache = cache;
+            this.dir = cache.getBaseDir();
+            this.fileAccessTracker = new SingleDepthFileAccessTracker(fileAccessTimeJournal, dir, FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
+        }
+    }
+
+    private class ArchiveCompletion implements ExecHandleListener {
+        private final OpenArchives archives;
+        private final String key;
+        private final File tempArchive;
+        private final File archive;
+
+        ArchiveCompletion(OpenArchives archives, String key, File tempArchive, File archive) {
+            this.archives = archives;
+            this.key = key;
+            this.tempArchive = tempArchive;
+            this.archive = archive;
+        }
+
+        @Override
+        public void beforeExecutionStarted(ExecHandle execHandle) {
+            archives.dir.mkdirs();
+        }
+
+        @Override
+        public void executionStarted(ExecHandle execHandle) {
+        }
+
+        @Override
+        public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+            try {
+                if (execResult.getExitValue() != 0) {
+                    // The worker was stopped or failed before it could dump its classes, let the next worker try again
+                    return;
+                }
+                if (tempArchive.length() > 0) {
+                    Files.move(tempArchive.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    archives.fileAccessTracker.markAccessed(archive);
+                } else {
+                    // The JVM could not dump its classes, do not try again for this key
+                    failedKeys.add(key);
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Could not store class data sharing archive {}.", archive, e);
+                failedKeys.add(key);
+            } finally {
+                tempArchive.delete();
+                pendingKeys.remove(key);
+            }
+        }
+    }
+}
@@ -16,9 +16,11 @@
 
 package org.gradle.api.internal.changedetection.state
 
+import org.gradle.api.internal.file.archive.ZipEntry
 import org.gradle.internal.file.FileMetadata
 import org.gradle.internal.file.impl.DefaultFileMetadata
 import org.gradle.internal.fingerprint.hashing.ResourceHasher
+import org.gradle.internal.fingerprint.hashing.ZipEntryContext
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.hash.Hashing
 import org.gradle.internal.hash.TestHashCodes
@@ -78,6 +80,34 @@ class DefaultResourceSnapshotterCacheServiceTest extends Specification {
         0 * _
     }
 
+    def "caches zip entry results by content hash"() {
+        def expectedHash = TestHashCodes.hashCodeFrom(123)
+        def zipEntryContext = zipEntryWithContent([1, 2, 3] as byte[])
+        def otherZipEntryContext = zipEntryWithContent([1, 2, 3] as byte[])
+
+        when:
+        def actualHash = snapshotterCache.hashZipEntry(zipEntryContext, delegate, configurationHash)
+        then:
+        1 * delegate.hash(zipEntryContext) >> expectedHash
+        actualHash == expectedHash
+        0 * _
+
+        when:
+        actualHash = snapshotterCache.hashZipEntry(otherZipEntryContext, delegate, configurationHash)
+        then:
+        actualHash == expectedHash
+        0 * _
+    }
+
+    private ZipEntryContext zipEntryWithContent(byte[] content) {
+        def zipEntry = Stub(ZipEntry) {
+            getContent() >> content
+        }
+        return Stub(ZipEntryContext) {
+            getEntry() >> zipEntry
+        }
+    }
+
     private HashCode getConfigurationHash() {
         def hasher = Hashing.newHasher()
         hasher.putString(delegate.getClass().getName())
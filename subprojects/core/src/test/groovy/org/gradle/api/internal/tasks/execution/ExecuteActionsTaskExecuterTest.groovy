@@ -17,6 +17,7 @@ package org.gradle.api.internal.tasks.execution
 
 import com.google.common.collect.ImmutableSortedMap
 import com.google.common.collect.ImmutableSortedSet
+import com.google.common.util.concurrent.MoreExecutors
 import org.gradle.api.execution.TaskActionListener
 import org.gradle.api.file.FileCollection
 import org.gradle.api.internal.DocumentationRegistry
@@ -131,7 +132,7 @@ class ExecuteActionsTaskExecuterTest extends Specification {
     def virtualFileSystem = virtualFileSystem()
     def fileSystemAccess = fileSystemAccess(virtualFileSystem)
     def fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSystemAccess, genericFileTreeSnapshotter(), fileSystem())
-    def outputSnapshotter = new DefaultOutputSnapshotter(fileCollectionSnapshotter)
+    def outputSnapshotter = new DefaultOutputSnapshotter(fileCollectionSnapshotter, MoreExecutors.directExecutor())
     def fingerprinter = new AbsolutePathFileCollectionFingerprinter(DirectorySensitivity.DEFAULT, fileCollectionSnapshotter, FileSystemLocationSnapshotHasher.DEFAULT)
     def fingerprinterRegistry = Stub(FileCollectionFingerprinterRegistry) {
         getFingerprinter(_) >> fingerprinter
@@ -154,7 +155,7 @@ class ExecuteActionsTaskExecuterTest extends Specification {
         }
     }
     def valueSnapshotter = new DefaultValueSnapshotter([], classloaderHierarchyHasher)
-    def inputFingerprinter = new DefaultInputFingerprinter(fileCollectionSnapshotter, fingerprinterRegistry, valueSnapshotter)
+    def inputFingerprinter = new DefaultInputFingerprinter(fileCollectionSnapshotter, fingerprinterRegistry, valueSnapshotter, MoreExecutors.directExecutor())
     def reservedFileSystemLocationRegistry = Stub(ReservedFileSystemLocationRegistry)
     def overlappingOutputDetector = Stub(OverlappingOutputDetector)
     def fileCollectionFactory = fileCollectionFactory()
@@ -179,7 +180,7 @@ class ExecuteActionsTaskExecuterTest extends Specification {
         new ResolveInputChangesStep<>(
         new CaptureStateAfterExecutionStep<>(buildOperationExecutor, buildId, outputSnapshotter, outputChangeListener,
         new CancelExecutionStep<>(cancellationToken,
-        new RemovePreviousOutputsStep<>(deleter, outputChangeListener,
+        new RemovePreviousOutputsStep<>(deleter, outputChangeListener, MoreExecutors.directExecutor(),
         new ExecuteStep<>(buildOperationExecutor
     ))))))))))))))))
     // @formatter:on
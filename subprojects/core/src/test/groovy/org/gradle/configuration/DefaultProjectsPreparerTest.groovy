@@ -19,6 +19,7 @@ package org.gradle.configuration
 import org.gradle.api.internal.GradleInternal
 import org.gradle.api.internal.StartParameterInternal
 import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.configuration.project.BuildScriptPrecompiler
 import org.gradle.execution.ProjectConfigurer
 import org.gradle.initialization.ModelConfigurationListener
 import org.gradle.internal.build.BuildStateRegistry
@@ -35,7 +36,8 @@ class DefaultProjectsPreparerTest extends Specification {
     def modelListener = Mock(ModelConfigurationListener)
     def buildOperationExecutor = Mock(BuildOperationExecutor)
     def buildStateRegistry = Mock(BuildStateRegistry)
-    def configurer = new DefaultProjectsPreparer(projectConfigurer, modelParameters, modelListener, buildOperationExecutor, buildStateRegistry)
+    def buildScriptPrecompiler = Mock(BuildScriptPrecompiler)
+    def configurer = new DefaultProjectsPreparer(projectConfigurer, modelParameters, modelListener, buildOperationExecutor, buildStateRegistry, buildScriptPrecompiler)
 
     def setup() {
         gradle.startParameter >> startParameter
@@ -46,6 +48,9 @@ class DefaultProjectsPreparerTest extends Specification {
         when:
         configurer.prepareProjects(gradle)
 
+        then:
+        1 * buildScriptPrecompiler.precompile(gradle)
+
         then:
         1 * projectConfigurer.configureHierarchy(rootProject)
     }
@@ -57,6 +62,7 @@ class DefaultProjectsPreparerTest extends Specification {
         then:
         gradle.rootBuild >> true
         modelParameters.configureOnDemand >> true
+        0 * buildScriptPrecompiler._
     }
 
     def "configures non-root build for on demand mode"() {
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.project
+
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.initialization.ClassLoaderScope
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectState
+import org.gradle.configuration.CompileOperationFactory
+import org.gradle.groovy.scripts.ScriptCompiler
+import org.gradle.groovy.scripts.ScriptCompilerFactory
+import org.gradle.groovy.scripts.ScriptRunner
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.groovy.scripts.internal.CompileOperation
+import org.gradle.internal.build.BuildProjectRegistry
+import org.gradle.internal.build.BuildState
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.internal.resource.TextResource
+import org.gradle.plugin.management.internal.PluginRequests
+import org.gradle.plugin.management.internal.autoapply.AutoAppliedPluginRegistry
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.function.Function
+
+class BuildScriptPrecompilerTest extends Specification {
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+
+    def scriptCompilerFactory = Mock(ScriptCompilerFactory)
+    def classpathOperation = Stub(CompileOperation)
+    def bodyOperation = Stub(CompileOperation)
+    def compileOperationFactory = Stub(CompileOperationFactory) {
+        getPluginsBlockCompileOperation(_) >> classpathOperation
+        getScriptCompileOperation(_, _) >> bodyOperation
+    }
+    def autoAppliedPluginRegistry = Stub(AutoAppliedPluginRegistry) {
+        getAutoAppliedPlugins(_) >> PluginRequests.EMPTY
+    }
+    def baseScope = Stub(ClassLoaderScope)
+    def projects = Stub(BuildProjectRegistry)
+    def gradle = Stub(GradleInternal) {
+        getOwner() >> Stub(BuildState) {
+            getProjects() >> projects
+        }
+        baseProjectClassLoaderScope() >> baseScope
+    }
+    def precompiler = new BuildScriptPrecompiler(scriptCompilerFactory, compileOperationFactory, autoAppliedPluginRegistry, new TestBuildOperationExecutor())
+
+    def "compiles both passes of build scripts against the base scope when no project requests plugins"() {
+        def root = project("build.gradle", null)
+        def child1 = project("build.gradle", root)
+        def child2 = project("build.gradle", root)
+        projects.getAllProjects() >> ([root, child1, child2].collect { it.owner } as Set)
+
+        when:
+        precompiler.precompile(gradle)
+
+        then:
+        3 * scriptCompilerFactory.createCompiler(_) >> compiler(classpathOperation, false)
+
+        then:
+        3 * scriptCompilerFactory.createCompiler(_) >> compiler(bodyOperation, false)
+    }
+
+    def "does not compile the body of build scripts whose project or parent requests plugins"() {
+        def root = project("build.gradle", null)
+        def child = project("build.gradle", root)
+        def grandChild = project("build.gradle", child)
+        def otherChild = project("build.gradle", root)
+        projects.getAllProjects() >> ([root, child, grandChild, otherChild].collect { it.owner } as Set)
+
+        when:
+        precompiler.precompile(gradle)
+
+        then:
+        1 * scriptCompilerFactory.createCompiler(child.buildScriptSource) >> compiler(classpathOperation, true)
+        3 * scriptCompilerFactory.createCompiler(_) >> compiler(classpathOperation, false)
+
+        then:
+        1 * scriptCompilerFactory.createCompiler(root.buildScriptSource) >> compiler(bodyOperation, false)
+        1 * scriptCompilerFactory.createCompiler(otherChild.buildScriptSource) >> compiler(bodyOperation, false)
+        0 * scriptCompilerFactory._
+    }
+
+    def "does not compile build scripts of other languages"() {
+        def root = project("build.gradle.kts", null)
+        def child1 = project("build.gradle", root)
+        def child2 = project("build.gradle", root)
+        projects.getAllProjects() >> ([root, child1, child2].collect { it.owner } as Set)
+
+        when:
+        precompiler.precompile(gradle)
+
+        then:
+        2 * scriptCompilerFactory.createCompiler(_) >> compiler(classpathOperation, false)
+        0 * scriptCompilerFactory._
+    }
+
+    def "does nothing when disabled"() {
+        System.setProperty(BuildScriptPrecompiler.ENABLED_PROPERTY, "false")
+        def root = project("build.gradle", null)
+        def child = project("build.gradle", root)
+        projects.getAllProjects() >> ([root, child].collect { it.owner } as Set)
+
+        when:
+        precompiler.precompile(gradle)
+
+        then:
+        0 * scriptCompilerFactory._
+    }
+
+    def "ignores compilation failures"() {
+        def root = project("build.gradle", null)
+        def child = project("build.gradle", root)
+        projects.getAllProjects() >> ([root, child].collect { it.owner } as Set)
+
+        when:
+        precompiler.precompile(gradle)
+
+        then:
+        1 * scriptCompilerFactory.createCompiler(root.buildScriptSource) >> { throw new RuntimeException("broken") }
+        1 * scriptCompilerFactory.createCompiler(child.buildScriptSource) >> compiler(classpathOperation, false)
+
+        then:
+        0 * scriptCompilerFactory._
+    }
+
+    private ProjectInternal project(String fileName, ProjectInternal parent) {
+        def source = Stub(ScriptSource) {
+            getFileName() >> fileName
+            getResource() >> Stub(TextResource) {
+                getHasEmptyContent() >> false
+            }
+        }
+        def project = Stub(ProjectInternal)
+        def state = Stub(ProjectState) {
+            fromMutableState(_) >> { Function function -> function.apply(project) }
+            getParent() >> parent?.owner
+        }
+        project.getBuildScriptSource() >> source
+        project.getDisplayName() >> "project"
+        project.getParent() >> parent
+        project.getOwner() >> state
+        return project
+    }
+
+    private ScriptCompiler compiler(CompileOperation expectedOperation, boolean runDoesSomething) {
+        def runner = Stub(ScriptRunner) {
+            getRunDoesSomething() >> runDoesSomething
+        }
+        return Stub(ScriptCompiler) {
+            compile(_, expectedOperation, baseScope, _) >> runner
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import com.google.common.collect.ImmutableSortedSet
+import org.gradle.api.internal.file.FileCollectionInternal
+import org.gradle.api.internal.file.FileCollectionStructureVisitor
+import org.gradle.api.internal.file.FileTreeInternal
+import org.gradle.api.internal.tasks.properties.InputFilePropertySpec
+import org.gradle.api.internal.tasks.properties.TaskProperties
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.file.Stat
+import org.gradle.internal.snapshot.CaseSensitivity
+import org.gradle.internal.vfs.FileSystemAccess
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class SpeculativeInputSnapshotterTest extends Specification {
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+    @Rule
+    final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def hierarchies = new ExecutionNodeAccessHierarchies(CaseSensitivity.CASE_SENSITIVE, Stub(Stat))
+    def fileSystemAccess = Mock(FileSystemAccess)
+    def sources = temporaryFolder.createDir("src")
+    def resources = temporaryFolder.createDir("resources")
+    def generated = temporaryFolder.createDir("build/generated")
+
+    def "does not snapshot inputs by default"() {
+        def snapshotter = new SpeculativeInputSnapshotter(hierarchies, fileSystemAccess, new DefaultExecutorFactory())
+
+        when:
+        snapshotter.snapshotInputsOf(taskWithInputs(directoryTree(sources)))
+        snapshotter.close()
+
+        then:
+        0 * fileSystemAccess._
+    }
+
+    def "snapshots unfiltered input directories which are not mutated by started nodes"() {
+        System.setProperty(SpeculativeInputSnapshotter.SPECULATIVE_INPUT_SNAPSHOTTING_PROPERTY, "true")
+        def snapshotter = new SpeculativeInputSnapshotter(hierarchies, fileSystemAccess, new DefaultExecutorFactory())
+        hierarchies.outputHierarchy.recordNodeAccessingLocations(Stub(Node), [temporaryFolder.file("build").absolutePath])
+
+        when:
+        snapshotter.snapshotInputsOf(taskWithInputs(
+            directoryTree(sources),
+            directoryTree(resources, new PatternSet().include("**/*.properties")),
+            directoryTree(generated)
+        ))
+        snapshotter.close()
+
+        then:
+        1 * fileSystemAccess.read(sources.absolutePath, _)
+        0 * fileSystemAccess._
+    }
+
+    def "snapshots each input directory once"() {
+        System.setProperty(SpeculativeInputSnapshotter.SPECULATIVE_INPUT_SNAPSHOTTING_PROPERTY, "true")
+        def snapshotter = new SpeculativeInputSnapshotter(hierarchies, fileSystemAccess, new DefaultExecutorFactory())
+
+        when:
+        snapshotter.snapshotInputsOf(taskWithInputs(directoryTree(sources)))
+        snapshotter.snapshotInputsOf(taskWithInputs(directoryTree(sources)))
+        snapshotter.close()
+
+        then:
+        1 * fileSystemAccess.read(sources.absolutePath, _)
+        0 * fileSystemAccess._
+    }
+
+    private LocalTaskNode taskWithInputs(FileCollectionInternal... inputs) {
+        def inputProperties = inputs.collect { files ->
+            Stub(InputFilePropertySpec) {
+                getPropertyFiles() >> files
+                getPropertyName() >> "input"
+            }
+        }
+        def taskProperties = Stub(TaskProperties) {
+            getInputFileProperties() >> ImmutableSortedSet.copyOf({ a, b -> inputProperties.indexOf(a) <=> inputProperties.indexOf(b) } as Comparator, inputProperties)
+        }
+        return Stub(LocalTaskNode) {
+            getTaskProperties() >> taskProperties
+        }
+    }
+
+    private FileCollectionInternal directoryTree(File root, PatternSet patterns = new PatternSet()) {
+        return Stub(FileCollectionInternal) {
+            visitStructure(_ as FileCollectionStructureVisitor) >> { FileCollectionStructureVisitor visitor ->
+                visitor.visitFileTree(root, patterns, Stub(FileTreeInternal))
+            }
+        }
+    }
+}
@@ -42,7 +42,8 @@ class BuildScriptTransformerSpec extends Specification {
 
     final DefaultScriptCompilationHandler scriptCompilationHandler = new DefaultScriptCompilationHandler(
         TestFiles.deleter(),
-        importsReader
+        importsReader,
+        new ScriptClassResolutionCache()
     )
 
     File scriptCacheDir
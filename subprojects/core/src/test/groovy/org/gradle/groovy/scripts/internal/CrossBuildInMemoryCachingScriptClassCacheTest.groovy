@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal
+
+import org.gradle.api.internal.initialization.ClassLoaderScope
+import org.gradle.cache.internal.TestCrossBuildInMemoryCacheFactory
+import org.gradle.groovy.scripts.Script
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.resource.TextResource
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class CrossBuildInMemoryCachingScriptClassCacheTest extends Specification {
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+
+    def delegate = Mock(ScriptClassCompiler)
+    def operation = Stub(CompileOperation) {
+        getId() >> "proj"
+    }
+    def classLoader = new URLClassLoader(new URL[0])
+    def targetScope = Stub(ClassLoaderScope) {
+        getExportClassLoader() >> classLoader
+    }
+
+    def "reuses compiled script for unchanged script"() {
+        def cache = new CrossBuildInMemoryCachingScriptClassCache(new TestCrossBuildInMemoryCacheFactory())
+        def source = source("build_a", 1)
+        def compiledScript = Mock(CompiledScript)
+
+        when:
+        def first = cache.getOrCompile(source, targetScope, operation, Script, null, delegate)
+        def second = cache.getOrCompile(source, targetScope, operation, Script, null, delegate)
+
+        then:
+        1 * delegate.compile(source, targetScope, operation, Script, null) >> compiledScript
+        1 * compiledScript.onReuse()
+        first == compiledScript
+        second == compiledScript
+    }
+
+    def "compiles identical scripts at different locations separately by default"() {
+        def cache = new CrossBuildInMemoryCachingScriptClassCache(new TestCrossBuildInMemoryCacheFactory())
+        def source1 = source("build_a", 1)
+        def source2 = source("build_b", 1)
+
+        when:
+        cache.getOrCompile(source1, targetScope, operation, Script, null, delegate)
+        cache.getOrCompile(source2, targetScope, operation, Script, null, delegate)
+
+        then:
+        1 * delegate.compile(source1, targetScope, operation, Script, null) >> Mock(CompiledScript)
+        1 * delegate.compile(source2, targetScope, operation, Script, null) >> Mock(CompiledScript)
+    }
+
+    def "shares compiled script between identical scripts compiled against the same class loader when enabled"() {
+        System.setProperty(CrossBuildInMemoryCachingScriptClassCache.SHARE_IDENTICAL_SCRIPTS_PROPERTY, "true")
+        def cache = new CrossBuildInMemoryCachingScriptClassCache(new TestCrossBuildInMemoryCacheFactory())
+        def source1 = source("build_a", 1)
+        def source2 = source("build_b", 1)
+        def compiledScript = Mock(CompiledScript)
+
+        when:
+        def first = cache.getOrCompile(source1, targetScope, operation, Script, null, delegate)
+        def second = cache.getOrCompile(source2, targetScope, operation, Script, null, delegate)
+
+        then:
+        1 * delegate.compile(source1, targetScope, operation, Script, null) >> compiledScript
+        1 * compiledScript.onReuse()
+        0 * delegate._
+        first == compiledScript
+        second == compiledScript
+    }
+
+    def "does not share compiled script between different scripts or class loaders when enabled"() {
+        System.setProperty(CrossBuildInMemoryCachingScriptClassCache.SHARE_IDENTICAL_SCRIPTS_PROPERTY, "true")
+        def cache = new CrossBuildInMemoryCachingScriptClassCache(new TestCrossBuildInMemoryCacheFactory())
+        def source1 = source("build_a", 1)
+        def source2 = source("build_b", 2)
+        def source3 = source("build_c", 1)
+        def otherScope = Stub(ClassLoaderScope) {
+            getExportClassLoader() >> new URLClassLoader(new URL[0])
+        }
+
+        when:
+        cache.getOrCompile(source1, targetScope, operation, Script, null, delegate)
+        cache.getOrCompile(source2, targetScope, operation, Script, null, delegate)
+        cache.getOrCompile(source3, otherScope, operation, Script, null, delegate)
+
+        then:
+        1 * delegate.compile(source1, targetScope, operation, Script, null) >> Mock(CompiledScript)
+        1 * delegate.compile(source2, targetScope, operation, Script, null) >> Mock(CompiledScript)
+        1 * delegate.compile(source3, otherScope, operation, Script, null) >> Mock(CompiledScript)
+    }
+
+    private ScriptSource source(String className, int contentHash) {
+        return Stub(ScriptSource) {
+            getClassName() >> className
+            getResource() >> Stub(TextResource) {
+                getContentHash() >> TestHashCodes.hashCodeFrom(contentHash)
+            }
+        }
+    }
+}
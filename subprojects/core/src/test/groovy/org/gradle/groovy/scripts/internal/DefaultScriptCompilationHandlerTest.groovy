@@ -97,7 +97,8 @@ class DefaultScriptCompilationHandlerTest extends Specification {
         importsReader = Stub(ImportsReader.class)
         scriptCompilationHandler = new DefaultScriptCompilationHandler(
             TestFiles.deleter(),
-            importsReader
+            importsReader,
+            new ScriptClassResolutionCache()
         )
         scriptCacheDir = new File(testProjectDir, "cache")
         scriptClassPath = DefaultClassPath.of(scriptCacheDir)
@@ -455,6 +456,52 @@ Outer.Inner entry = null
         ]
     }
 
+    def "reuses class resolutions made when compiling other scripts against the same class loader"() {
+        def lookups = []
+        def recordingClassLoader = new ClassLoader(classLoader) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) {
+                lookups << name
+                return super.loadClass(name, resolve)
+            }
+
+            @Override
+            URL getResource(String name) {
+                lookups << name
+                return super.getResource(name)
+            }
+        }
+        def script = "File file = null; URI uri = null"
+
+        when:
+        scriptCompilationHandler.compileToDir(new TextResourceScriptSource(new StringTextResource("first.gradle", script)), recordingClassLoader, scriptCacheDir, metadataCacheDir, null, expectedScriptClass, verifier)
+
+        then:
+        lookups.any { it.startsWith("java.lang.File") || it.startsWith("java/lang/File") }
+
+        when:
+        lookups.clear()
+        scriptCompilationHandler.compileToDir(new TextResourceScriptSource(new StringTextResource("second.gradle", script)), recordingClassLoader, scriptCacheDir, metadataCacheDir, null, expectedScriptClass, verifier)
+
+        then:
+        !lookups.any { it.startsWith("java.lang.File") || it.startsWith("java/lang/File") }
+        !lookups.any { it.startsWith("java.lang.URI") || it.startsWith("java/lang/URI") }
+    }
+
+    def "resolves class declared by a script after the class was not found when compiling another script"() {
+        when:
+        scriptCompilationHandler.compileToDir(new TextResourceScriptSource(new StringTextResource("first.gradle", "new Declared()")), classLoader, scriptCacheDir, metadataCacheDir, null, expectedScriptClass, verifier)
+
+        then:
+        thrown(ScriptCompilationException)
+
+        when:
+        scriptCompilationHandler.compileToDir(new TextResourceScriptSource(new StringTextResource("second.gradle", "class Declared { }\nnew Declared()")), classLoader, scriptCacheDir, metadataCacheDir, null, expectedScriptClass, verifier)
+
+        then:
+        noExceptionThrown()
+    }
+
     @Issue('GRADLE-3423')
     @Ignore
     def testCompileWithInnerInnerClassReference() {
@@ -27,12 +27,18 @@ import org.gradle.internal.Pair
 import org.gradle.internal.classloader.FilteringClassLoader
 import org.gradle.internal.file.FileAccessTimeJournal
 import org.gradle.internal.hash.Hasher
+import org.gradle.internal.hash.TestHashCodes
 import org.gradle.internal.io.ClassLoaderObjectInputStream
+import org.gradle.internal.operations.BuildOperationProgressEventEmitter
+import org.gradle.internal.operations.BuildOperationRef
+import org.gradle.internal.operations.CurrentBuildOperationRef
+import org.gradle.internal.operations.OperationIdentifier
 import org.gradle.test.fixtures.archive.ZipTestFixture
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.testfixtures.internal.TestInMemoryCacheFactory
+import org.gradle.util.SetSystemProperties
 import org.junit.Rule
 import spock.lang.Subject
 
@@ -45,6 +51,8 @@ class DefaultCachedClasspathTransformerTest extends ConcurrentSpec {
     @Rule
     TestNameTestDirectoryProvider testDirectoryProvider = new TestNameTestDirectoryProvider(getClass())
     def testDir = testDirectoryProvider.testDirectory
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
 
     def cachedDir = testDir.file("cached")
     def cache = new TestInMemoryCacheFactory().open(cachedDir, "jars")
@@ -67,6 +75,7 @@ class DefaultCachedClasspathTransformerTest extends ConcurrentSpec {
     def fileSystemAccess = TestFiles.fileSystemAccess()
     def globalCacheLocations = Stub(GlobalCacheLocations)
     def fileLockManager = Stub(FileLockManager)
+    def progressEventEmitter = Mock(BuildOperationProgressEventEmitter)
     URLClassLoader testClassLoader = null
 
     @Subject
@@ -79,7 +88,8 @@ class DefaultCachedClasspathTransformerTest extends ConcurrentSpec {
         fileSystemAccess,
         executorFactory,
         globalCacheLocations,
-        fileLockManager
+        fileLockManager,
+        progressEventEmitter
     )
 
     def cleanup() {
@@ -261,6 +271,35 @@ class DefaultCachedClasspathTransformerTest extends ConcurrentSpec {
         0 * fileAccessTimeJournal._
     }
 
+    def "reports instrumented entries to the current build operation"() {
+        given:
+        def file = testDir.file("thing.jar")
+        jar(file)
+        def classpath = DefaultClassPath.of(file)
+        def operationId = new OperationIdentifier(12)
+        CurrentBuildOperationRef.instance().set(Stub(BuildOperationRef) {
+            getId() >> operationId
+        })
+
+        when:
+        transformer.transform(classpath, BuildLogic)
+
+        then:
+        1 * progressEventEmitter.emit(operationId, _, { ClasspathEntryInstrumentationProgressDetails details ->
+            details.sourcePath == file.absolutePath && details.classCount == 1
+        })
+        0 * progressEventEmitter._
+
+        when:
+        transformer.transform(classpath, BuildLogic)
+
+        then:
+        0 * progressEventEmitter._
+
+        cleanup:
+        CurrentBuildOperationRef.instance().clear()
+    }
+
     def "transforms directory into cache when usage is build logic"() {
         given:
         def dir = testDir.file("thing.dir")
@@ -513,6 +552,70 @@ class DefaultCachedClasspathTransformerTest extends ConcurrentSpec {
         result == "123"
     }
 
+    def "instruments classes as they are loaded when instrumentation on load is enabled"() {
+        given:
+        System.setProperty(DefaultCachedClasspathTransformer.INSTRUMENT_ON_LOAD_PROPERTY, "true")
+        def file = testDir.file("thing.jar")
+        classpathBuilder.jar(file) {
+            it.put(SystemPropertyAccessingThing.name.replace('.', '/') + ".class", classOne())
+        }
+        def listener = Mock(Instrumented.Listener)
+        Instrumented.setListener(listener)
+
+        when:
+        def classpath = transformer.transformForClassLoader(DefaultClassPath.of(file), BuildLogic)
+
+        then:
+        classpath instanceof LazilyInstrumentedClassPath
+        classpath.asFiles == [file]
+        0 * fileAccessTimeJournal._
+
+        when:
+        def cl = loadLazilyInstrumented(classpath, SystemPropertyAccessingThing)
+        cl.readProperty()
+
+        then:
+        1 * listener.systemPropertyQueried("prop", null, SystemPropertyAccessingThing.name)
+        0 * listener._
+
+        and:
+        def cachedClass = cachedDir.listFiles().find { it.directory }.file("${SystemPropertyAccessingThing.simpleName}.class")
+        cachedClass.file
+        1 * fileAccessTimeJournal.setLastAccessTime(cachedClass.parentFile, _)
+
+        when:
+        testClassLoader.close()
+        def reloaded = loadLazilyInstrumented(classpath, SystemPropertyAccessingThing)
+        reloaded.readProperty()
+
+        then:
+        1 * listener.systemPropertyQueried("prop", null, SystemPropertyAccessingThing.name)
+        1 * fileAccessTimeJournal.setLastAccessTime(cachedClass.parentFile, _)
+
+        cleanup:
+        Instrumented.discardListener()
+    }
+
+    def "transforms classpath up-front when instrumentation on load is disabled"() {
+        given:
+        def file = testDir.file("thing.jar")
+        jar(file)
+
+        when:
+        def classpath = transformer.transformForClassLoader(DefaultClassPath.of(file), BuildLogic)
+
+        then:
+        !(classpath instanceof LazilyInstrumentedClassPath)
+        classpath.asFiles.size() == 1
+        classpath.asFiles[0] != file
+    }
+
+    Class loadLazilyInstrumented(ClassPath classpath, Class cl) {
+        def filtering = new FilteringClassLoader(getClass().classLoader, new FilteringClassLoader.Spec([Action.name, Instrumented.name], [], [], [], [], [], []))
+        testClassLoader = (URLClassLoader) ((LazilyInstrumentedClassPath) classpath).createClassLoader("test", filtering, TestHashCodes.hashCodeFrom(123))
+        return testClassLoader.loadClass(cl.name)
+    }
+
     Object recreate(Object value) {
         def outputStream = new ByteArrayOutputStream()
         new ObjectOutputStream(outputStream).with {
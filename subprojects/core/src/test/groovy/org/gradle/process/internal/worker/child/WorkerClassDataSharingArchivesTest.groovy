@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker.child
+
+import org.gradle.api.JavaVersion
+import org.gradle.cache.PersistentCache
+import org.gradle.internal.file.FileAccessTimeJournal
+import org.gradle.process.ExecResult
+import org.gradle.process.internal.ExecHandle
+import org.gradle.process.internal.ExecHandleListener
+import org.gradle.process.internal.JavaExecHandleBuilder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.function.Supplier
+
+class WorkerClassDataSharingArchivesTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties((WorkerClassDataSharingArchives.ENABLED_PROPERTY): "true")
+
+    def archivesDir = tmpDir.file("archives")
+    def fileAccessTimeJournal = Mock(FileAccessTimeJournal)
+    def cache = Stub(PersistentCache) { getBaseDir() >> archivesDir }
+    def cacheOpens = 0
+    def archives = new WorkerClassDataSharingArchives({ cacheOpens++; cache } as Supplier, fileAccessTimeJournal)
+    def javaCommand = Mock(JavaExecHandleBuilder)
+    def jar = tmpDir.file("lib/worker.jar").createFile()
+
+    def setup() {
+        tmpDir.file("jdk/lib/modules").createFile()
+        _ * javaCommand.executable >> tmpDir.file("jdk/bin/java").absolutePath
+        _ * javaCommand.allJvmArgs >> ["-Xmx64m"]
+    }
+
+    def "does not use archives for Java versions without dynamic archive support"() {
+        when:
+        archives.configure(javaCommand, JavaVersion.VERSION_11, [jar])
+
+        then:
+        0 * javaCommand.jvmArgs(*_)
+        0 * javaCommand.listener(_)
+    }
+
+    def "does not use archives when the class path contains a directory"() {
+        when:
+        archives.configure(javaCommand, JavaVersion.VERSION_17, [jar, tmpDir.createDir("classes")])
+
+        then:
+        0 * javaCommand.jvmArgs(*_)
+        0 * javaCommand.listener(_)
+    }
+
+    def "first worker creates the archive and later workers use it"() {
+        def archiveArgs = []
+        ExecHandleListener listener = null
+
+        when:
+        archives.configure(javaCommand, JavaVersion.VERSION_17, [jar])
+
+        then:
+        1 * javaCommand.jvmArgs(*_) >> { args -> archiveArgs.addAll(args.flatten()) }
+        1 * javaCommand.listener(_) >> { args -> listener = args[0] }
+
+        when:
+        archives.configure(javaCommand, JavaVersion.VERSION_17, [jar])
+
+        then:
+        // The archive is still being created
+        0 * javaCommand.jvmArgs(*_)
+
+        when:
+        def tempArchive = new File((archiveArgs[0] as String) - "-XX:ArchiveClassesAtExit=")
+        listener.beforeExecutionStarted(Stub(ExecHandle))
+        tempArchive.text = "archive"
+        listener.executionFinished(Stub(ExecHandle), Stub(ExecResult) { getExitValue() >> 0 })
+        archives.configure(javaCommand, JavaVersion.VERSION_17, [jar])
+
+        then:
+        !tempArchive.exists()
+        archivesDir.listFiles().length == 1
+        2 * fileAccessTimeJournal.setLastAccessTime({ File archive -> archive.name.endsWith(".jsa") }, _)
+        1 * javaCommand.jvmArgs(*_) >> { args -> archiveArgs = args.flatten() }
+        0 * javaCommand.listener(_)
+        archiveArgs == ["-XX:SharedArchiveFile=" + archivesDir.listFiles()[0].absolutePath]
+    }
+
+    def "does not use archives by default"() {
+        System.clearProperty(WorkerClassDataSharingArchives.ENABLED_PROPERTY)
+
+        when:
+        archives.configure(javaCommand, JavaVersion.VERSION_17, [jar])
+        archives.close()
+
+        then:
+        0 * javaCommand.jvmArgs(*_)
+        0 * javaCommand.listener(_)
+        cacheOpens == 0
+    }
+
+    def "opens the cache once, when the first worker could use an archive"() {
+        when:
+        archives.configure(javaCommand, JavaVersion.VERSION_11, [jar])
+
+        then:
+        cacheOpens == 0
+
+        when:
+        archives.configure(javaCommand, JavaVersion.VERSION_17, [jar])
+        archives.configure(javaCommand, JavaVersion.VERSION_17, [jar])
+
+        then:
+        cacheOpens == 1
+    }
+}
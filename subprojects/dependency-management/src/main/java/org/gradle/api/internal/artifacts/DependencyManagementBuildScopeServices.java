@@ -159,6 +159,7 @@
 import org.gradle.internal.execution.history.PreviousExecutionState;
 import org.gradle.internal.execution.history.changes.ExecutionStateChangeDetector;
 import org.gradle.internal.execution.impl.DefaultExecutionEngine;
+import org.gradle.internal.execution.impl.FileSystemWorkExecutor;
 import org.gradle.internal.execution.steps.AssignWorkspaceStep;
 import org.gradle.internal.execution.steps.CachingContext;
 import org.gradle.internal.execution.steps.CachingResult;
@@ -704,6 +705,7 @@ ExecutionEngine createExecutionEngine(
         ClassLoaderHierarchyHasher classLoaderHierarchyHasher,
         Deleter deleter,
         ExecutionStateChangeDetector changeDetector,
+        FileSystemWorkExecutor fileSystemWorkExecutor,
         InputFingerprinter inputFingerprinter,
         ListenerManager listenerManager,
         OutputSnapshotter outputSnapshotter,
@@ -733,7 +735,7 @@ ExecutionEngine createExecutionEngine(
             new CaptureStateAfterExecutionStep<>(buildOperationExecutor, fixedUniqueId, outputSnapshotter, outputChangeListener,
             new CreateOutputsStep<>(
             new TimeoutStep<>(timeoutHandler, currentBuildOperationRef,
-            new RemovePreviousOutputsStep<>(deleter, outputChangeListener,
+            new RemovePreviousOutputsStep<>(deleter, outputChangeListener, fileSystemWorkExecutor,
             new ExecuteStep<>(buildOperationExecutor
         ))))))))))))))))));
         // @formatter:on
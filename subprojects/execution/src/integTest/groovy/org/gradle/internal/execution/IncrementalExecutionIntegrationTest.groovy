@@ -19,6 +19,7 @@ package org.gradle.internal.execution
 import com.google.common.collect.ImmutableList
 import com.google.common.collect.Iterables
 import com.google.common.collect.Maps
+import com.google.common.util.concurrent.MoreExecutors
 import groovy.transform.Immutable
 import org.gradle.api.internal.DocumentationRegistry
 import org.gradle.api.internal.file.TestFiles
@@ -121,10 +122,10 @@ class IncrementalExecutionIntegrationTest extends Specification implements Valid
     def outputFilesRepository = Stub(OutputFilesRepository) {
         isGeneratedByGradle() >> true
     }
-    def outputSnapshotter = new DefaultOutputSnapshotter(snapshotter)
+    def outputSnapshotter = new DefaultOutputSnapshotter(snapshotter, MoreExecutors.directExecutor())
     def fingerprinterRegistry = new DefaultFileCollectionFingerprinterRegistry([FingerprinterRegistration.registration(DirectorySensitivity.DEFAULT, LineEndingSensitivity.DEFAULT, fingerprinter)])
     def valueSnapshotter = new DefaultValueSnapshotter([], classloaderHierarchyHasher)
-    def inputFingerprinter = new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter)
+    def inputFingerprinter = new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter, MoreExecutors.directExecutor())
     def buildCacheController = Mock(BuildCacheController)
     def buildOperationExecutor = new TestBuildOperationExecutor()
     def validationWarningReporter = Mock(ValidateStep.ValidationWarningRecorder)
@@ -169,7 +170,7 @@ class IncrementalExecutionIntegrationTest extends Specification implements Valid
             new ResolveInputChangesStep<>(
             new CaptureStateAfterExecutionStep<>(buildOperationExecutor, buildInvocationScopeId.getId(), outputSnapshotter, outputChangeListener,
             new CreateOutputsStep<>(
-            new RemovePreviousOutputsStep<>(deleter, outputChangeListener,
+            new RemovePreviousOutputsStep<>(deleter, outputChangeListener, MoreExecutors.directExecutor(),
             new ExecuteStep<>(buildOperationExecutor
         ))))))))))))))))))
         // @formatter:on
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Interners;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.fingerprint.FileSystemLocationFingerprint;
+import org.gradle.internal.fingerprint.impl.DefaultFileSystemLocationFingerprint;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing and reading the fingerprint of a class directory with {@link FileCollectionFingerprintSerializer}.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class FileCollectionFingerprintSerializerBenchmark {
+    private static final String ROOT = "/home/user/projects/some-project/subproject/build/classes/java/main";
+
+    @Param({"100", "10000"})
+    int fileCount;
+
+    private final FileCollectionFingerprintSerializer serializer = new FileCollectionFingerprintSerializer(Interners.newWeakInterner());
+    private FileCollectionFingerprint fingerprint;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() throws Exception {
+        ImmutableMap.Builder<String, FileSystemLocationFingerprint> fingerprints = ImmutableMap.builder();
+        fingerprints.put(ROOT, new DefaultFileSystemLocationFingerprint("", FileType.Directory, FileSystemLocationFingerprint.DIR_SIGNATURE));
+        for (int i = 0; i < fileCount; i++) {
+            String relativePath = "org/gradle/package" + (i / 50) + "/SomeClass" + i + ".class";
+            HashCode contentHash = Hashing.hashString(relativePath);
+            fingerprints.put(ROOT + "/" + relativePath, new DefaultFileSystemLocationFingerprint(relativePath, FileType.RegularFile, contentHash));
+        }
+        fingerprint = new SerializableFileCollectionFingerprint(fingerprints.build(), ImmutableMultimap.of(ROOT, Hashing.hashString(ROOT)), Hashing.hashString("strategy"));
+        serialized = write();
+    }
+
+    @Benchmark
+    public byte[] write() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (KryoBackedEncoder encoder = new KryoBackedEncoder(output)) {
+            serializer.write(encoder, fingerprint);
+        }
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public FileCollectionFingerprint read() throws Exception {
+        try (KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(serialized))) {
+            return serializer.read(decoder);
+        }
+    }
+}
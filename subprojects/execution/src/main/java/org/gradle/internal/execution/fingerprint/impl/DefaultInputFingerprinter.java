@@ -19,6 +19,7 @@
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.deprecation.DeprecationLogger;
 import org.gradle.internal.execution.fingerprint.FileCollectionFingerprinter;
 import org.gradle.internal.execution.fingerprint.FileCollectionFingerprinterRegistry;
@@ -28,25 +29,40 @@
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
 import org.gradle.internal.fingerprint.DirectorySensitivity;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.gradle.internal.snapshot.ValueSnapshot;
 import org.gradle.internal.snapshot.ValueSnapshotter;
 
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Consumer;
 
 public class DefaultInputFingerprinter implements InputFingerprinter {
+    public static final String PARALLEL_FINGERPRINTING_PROPERTY = "org.gradle.internal.execution.parallel-input-fingerprinting";
 
     private final FileCollectionSnapshotter snapshotter;
     private final FileCollectionFingerprinterRegistry fingerprinterRegistry;
     private final ValueSnapshotter valueSnapshotter;
+    @Nullable
+    private final Executor fingerprintingExecutor;
 
     public DefaultInputFingerprinter(
         FileCollectionSnapshotter snapshotter,
         FileCollectionFingerprinterRegistry fingerprinterRegistry,
-        ValueSnapshotter valueSnapshotter
+        ValueSnapshotter valueSnapshotter,
+        Executor fingerprintingExecutor
     ) {
         this.snapshotter = snapshotter;
         this.fingerprinterRegistry = fingerprinterRegistry;
         this.valueSnapshotter = valueSnapshotter;
+        this.fingerprintingExecutor = Boolean.parseBoolean(System.getProperty(PARALLEL_FINGERPRINTING_PROPERTY, "true"))
+            ? fingerprintingExecutor
+            : null;
     }
 
     @Override
@@ -57,7 +73,7 @@ public Result fingerprintInputProperties(
         ImmutableSortedMap<String, CurrentFileCollectionFingerprint> knownCurrentFingerprints,
         Consumer<InputVisitor> inputs
     ) {
-        InputCollectingVisitor visitor = new InputCollectingVisitor(previousValueSnapshots, previousFingerprints, snapshotter, fingerprinterRegistry, valueSnapshotter, knownCurrentValueSnapshots, knownCurrentFingerprints);
+        InputCollectingVisitor visitor = new InputCollectingVisitor(previousValueSnapshots, previousFingerprints, snapshotter, fingerprinterRegistry, valueSnapshotter, knownCurrentValueSnapshots, knownCurrentFingerprints, fingerprintingExecutor);
         inputs.accept(visitor);
         return visitor.complete();
     }
@@ -75,9 +91,11 @@ private static class InputCollectingVisitor implements InputVisitor {
         private final ValueSnapshotter valueSnapshotter;
         private final ImmutableSortedMap<String, ValueSnapshot> knownCurrentValueSnapshots;
         private final ImmutableSortedMap<String, CurrentFileCollectionFingerprint> knownCurrentFingerprints;
+        @Nullable
+        private final Executor fingerprintingExecutor;
 
         private final ImmutableSortedMap.Builder<String, ValueSnapshot> valueSnapshotsBuilder = ImmutableSortedMap.naturalOrder();
-        private final ImmutableSortedMap.Builder<String, CurrentFileCollectionFingerprint> fingerprintsBuilder = ImmutableSortedMap.naturalOrder();
+        private final Map<String, FutureTask<CurrentFileCollectionFingerprint>> pendingFingerprints = new LinkedHashMap<>();
         private final ImmutableSet.Builder<String> propertiesRequiringIsEmptyCheck = ImmutableSet.builder();
 
         public InputCollectingVisitor(
@@ -87,7 +105,8 @@ public InputCollectingVisitor(
             FileCollectionFingerprinterRegistry fingerprinterRegistry,
             ValueSnapshotter valueSnapshotter,
             ImmutableSortedMap<String, ValueSnapshot> knownCurrentValueSnapshots,
-            ImmutableSortedMap<String, CurrentFileCollectionFingerprint> knownCurrentFingerprints
+            ImmutableSortedMap<String, CurrentFileCollectionFingerprint> knownCurrentFingerprints,
+            @Nullable Executor fingerprintingExecutor
         ) {
             this.previousValueSnapshots = previousValueSnapshots;
             this.previousFingerprints = previousFingerprints;
@@ -96,6 +115,7 @@ public InputCollectingVisitor(
             this.valueSnapshotter = valueSnapshotter;
             this.knownCurrentValueSnapshots = knownCurrentValueSnapshots;
             this.knownCurrentFingerprints = knownCurrentFingerprints;
+            this.fingerprintingExecutor = fingerprintingExecutor;
         }
 
         @Override
@@ -132,8 +152,9 @@ public void visitInputFileProperty(String propertyName, InputPropertyType type,
                 DirectorySensitivity directorySensitivity = determineDirectorySensitivity(propertyName, type, value, result);
                 FileNormalizationSpec normalizationSpec = DefaultFileNormalizationSpec.from(value.getNormalizer(), directorySensitivity, value.getLineEndingNormalization());
                 FileCollectionFingerprinter fingerprinter = fingerprinterRegistry.getFingerprinter(normalizationSpec);
-                CurrentFileCollectionFingerprint fingerprint = fingerprinter.fingerprint(result.getSnapshot(), previousFingerprint);
-                fingerprintsBuilder.put(propertyName, fingerprint);
+                FileSystemSnapshot snapshot = result.getSnapshot();
+                // Fingerprinting only needs the snapshot, so it can happen on another thread, see complete()
+                pendingFingerprints.put(propertyName, new FutureTask<>(() -> fingerprinter.fingerprint(snapshot, previousFingerprint)));
                 if (result.containsArchiveTrees()) {
                     propertiesRequiringIsEmptyCheck.add(propertyName);
                 }
@@ -164,9 +185,44 @@ public Result complete() {
                 knownCurrentValueSnapshots,
                 valueSnapshotsBuilder.build(),
                 knownCurrentFingerprints,
-                fingerprintsBuilder.build(),
+                completeFingerprints(),
                 propertiesRequiringIsEmptyCheck.build());
         }
+
+        /**
+         * Fingerprints the visited input file properties, in parallel when there is more than one.
+         *
+         * The fingerprints are collected in the order the properties were visited.
+         * Fingerprints that have not been started by the executor yet are computed on the current thread, so it never waits for a busy executor.
+         */
+        private ImmutableSortedMap<String, CurrentFileCollectionFingerprint> completeFingerprints() {
+            if (fingerprintingExecutor != null && pendingFingerprints.size() > 1) {
+                try {
+                    pendingFingerprints.values().forEach(fingerprintingExecutor::execute);
+                } catch (RejectedExecutionException e) {
+                    // Fingerprint the remaining properties on the current thread
+                }
+            }
+            ImmutableSortedMap.Builder<String, CurrentFileCollectionFingerprint> fingerprintsBuilder = ImmutableSortedMap.naturalOrder();
+            for (Map.Entry<String, FutureTask<CurrentFileCollectionFingerprint>> entry : pendingFingerprints.entrySet()) {
+                String propertyName = entry.getKey();
+                FutureTask<CurrentFileCollectionFingerprint> fingerprint = entry.getValue();
+                // Does nothing when the executor has already started this fingerprint
+                fingerprint.run();
+                try {
+                    fingerprintsBuilder.put(propertyName, fingerprint.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Exception) {
+                        throw new InputFileFingerprintingException(propertyName, cause);
+                    }
+                    throw UncheckedException.throwAsUncheckedException(cause);
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            return fingerprintsBuilder.build();
+        }
     }
 
     @VisibleForTesting
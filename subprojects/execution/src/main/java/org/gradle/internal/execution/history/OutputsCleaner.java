@@ -19,19 +19,18 @@
 import com.google.common.collect.Ordering;
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.file.FileType;
-import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
-import org.gradle.internal.snapshot.SnapshotUtil;
+import org.gradle.internal.snapshot.SnapshotVisitResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.function.Predicate;
 
@@ -66,9 +65,18 @@ public OutputsCleaner(Deleter deleter, Predicate<File> fileSafeToDelete, Predica
      * After cleaning up the files, the empty directories are removed as well.
      */
     public void cleanupOutputs(FileSystemSnapshot snapshot) throws IOException {
-        // TODO We could make this faster by visiting the snapshot
-        for (Map.Entry<String, FileSystemLocationSnapshot> entry : SnapshotUtil.index(snapshot).entrySet()) {
-            cleanupOutput(new File(entry.getKey()), entry.getValue().getType());
+        try {
+            // Visit the snapshot directly instead of indexing it first, as it can contain a lot of entries
+            snapshot.accept(location -> {
+                try {
+                    cleanupOutput(new File(location.getAbsolutePath()), location.getType());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return SnapshotVisitResult.CONTINUE;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
         cleanupDirectories();
     }
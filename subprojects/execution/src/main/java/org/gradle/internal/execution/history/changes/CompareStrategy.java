@@ -38,6 +38,11 @@ public CompareStrategy(
         this.changeDetector = changeDetector;
     }
 
+    /**
+     * Visits the changes between the previous and the current state.
+     *
+     * The root hashes are Merkle hashes of the file trees, so when they are unchanged, the individual files are not compared.
+     */
     public boolean visitChangesSince(C previous, C current, String propertyTitle, ChangeVisitor visitor) {
         if (Iterables.elementsEqual(rootHasher.apply(previous).entries(), rootHasher.apply(current).entries())) {
             return true;
@@ -30,6 +30,9 @@
 import org.gradle.internal.snapshot.SnapshotVisitResult;
 
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Map;
 
 import static org.gradle.internal.snapshot.SnapshotUtil.getRootHashes;
@@ -56,57 +59,85 @@ public OverlappingOutputs detect(ImmutableSortedMap<String, FileSystemSnapshot>
 
     @Nullable
     private static OverlappingOutputs detect(String propertyName, FileSystemSnapshot previous, FileSystemSnapshot before) {
-        Map<String, FileSystemLocationSnapshot> previousIndex = SnapshotUtil.index(previous);
-        OverlappingOutputsDetectingVisitor outputsDetectingVisitor = new OverlappingOutputsDetectingVisitor(previousIndex);
+        OverlappingOutputsDetectingVisitor outputsDetectingVisitor = new OverlappingOutputsDetectingVisitor(SnapshotUtil.rootIndex(previous));
         before.accept(outputsDetectingVisitor);
         String overlappingPath = outputsDetectingVisitor.getOverlappingPath();
         return overlappingPath == null ? null : new OverlappingOutputs(propertyName, overlappingPath);
     }
 
+    /**
+     * Walks the current snapshot alongside the previous one, only looking at the entries of directories
+     * whose hash has changed since the last execution, so the cost is proportional to what changed in the outputs.
+     */
     private static class OverlappingOutputsDetectingVisitor extends RootTrackingFileSystemSnapshotHierarchyVisitor {
-        private final Map<String, FileSystemLocationSnapshot> previousSnapshots;
+        private final Map<String, FileSystemLocationSnapshot> previousRoots;
+        private final Deque<Map<String, FileSystemLocationSnapshot>> previousChildren = new ArrayDeque<>();
+        private DirectorySnapshot previousDirectoryToEnter;
         private String overlappingPath;
 
-        public OverlappingOutputsDetectingVisitor(Map<String, FileSystemLocationSnapshot> previousSnapshots) {
-            this.previousSnapshots = previousSnapshots;
+        public OverlappingOutputsDetectingVisitor(Map<String, FileSystemLocationSnapshot> previousRoots) {
+            this.previousRoots = previousRoots;
+        }
+
+        @Override
+        public void enterDirectory(DirectorySnapshot directorySnapshot, boolean isRoot) {
+            previousChildren.push(indexChildren(previousDirectoryToEnter));
+            previousDirectoryToEnter = null;
+        }
+
+        @Override
+        public void leaveDirectory(DirectorySnapshot directorySnapshot, boolean isRoot) {
+            previousChildren.pop();
         }
 
         @Override
         public SnapshotVisitResult visitEntry(FileSystemLocationSnapshot snapshot, boolean isRoot) {
-            boolean newContent = snapshot.accept(new FileSystemLocationSnapshotTransformer<Boolean>() {
+            FileSystemLocationSnapshot previousSnapshot = isRoot
+                ? previousRoots.get(snapshot.getAbsolutePath())
+                : previousChildren.element().get(snapshot.getAbsolutePath());
+            SnapshotVisitResult result = snapshot.accept(new FileSystemLocationSnapshotTransformer<SnapshotVisitResult>() {
                 @Override
-                public Boolean visitDirectory(DirectorySnapshot directorySnapshot) {
-                    // Check if a new directory appeared. For matching directories don't check content
-                    // hash as we should detect individual entries that are different instead)
-                    return hasNewContent(directorySnapshot);
+                public SnapshotVisitResult visitDirectory(DirectorySnapshot directorySnapshot) {
+                    // Check if a new directory appeared. For matching directories we detect
+                    // the individual entries that are different instead
+                    if (hasNewContent(directorySnapshot, previousSnapshot)) {
+                        return SnapshotVisitResult.TERMINATE;
+                    }
+                    // Nothing has changed below a directory with the same hash as before
+                    if (directorySnapshot.getHash().equals(previousSnapshot.getHash())) {
+                        return SnapshotVisitResult.SKIP_SUBTREE;
+                    }
+                    previousDirectoryToEnter = (DirectorySnapshot) previousSnapshot;
+                    return SnapshotVisitResult.CONTINUE;
                 }
 
                 @Override
-                public Boolean visitRegularFile(RegularFileSnapshot fileSnapshot) {
+                public SnapshotVisitResult visitRegularFile(RegularFileSnapshot fileSnapshot) {
                     // Check if a new file has appeared, or if an existing file's content has changed
-                    return hasNewContent(fileSnapshot);
+                    return hasNewContent(fileSnapshot, previousSnapshot)
+                        ? SnapshotVisitResult.TERMINATE
+                        : SnapshotVisitResult.CONTINUE;
                 }
 
                 @Override
-                public Boolean visitMissing(MissingFileSnapshot missingSnapshot) {
+                public SnapshotVisitResult visitMissing(MissingFileSnapshot missingSnapshot) {
                     // If the root has gone missing then we don't have overlaps
                     if (isRoot) {
-                        return false;
+                        return SnapshotVisitResult.CONTINUE;
                     }
                     // Otherwise check for newly added broken symlinks and unreadable files
-                    return hasNewContent(missingSnapshot);
+                    return hasNewContent(missingSnapshot, previousSnapshot)
+                        ? SnapshotVisitResult.TERMINATE
+                        : SnapshotVisitResult.CONTINUE;
                 }
             });
-            if (newContent) {
+            if (result == SnapshotVisitResult.TERMINATE) {
                 overlappingPath = snapshot.getAbsolutePath();
-                return SnapshotVisitResult.TERMINATE;
-            } else {
-                return SnapshotVisitResult.CONTINUE;
             }
+            return result;
         }
 
-        private boolean hasNewContent(FileSystemLocationSnapshot snapshot) {
-            FileSystemLocationSnapshot previousSnapshot = previousSnapshots.get(snapshot.getAbsolutePath());
+        private static boolean hasNewContent(FileSystemLocationSnapshot snapshot, @Nullable FileSystemLocationSnapshot previousSnapshot) {
             // Created since last execution, possibly by another task
             if (previousSnapshot == null) {
                 return true;
@@ -114,6 +145,18 @@ private boolean hasNewContent(FileSystemLocationSnapshot snapshot) {
             return !snapshot.isContentUpToDate(previousSnapshot);
         }
 
+        private static Map<String, FileSystemLocationSnapshot> indexChildren(DirectorySnapshot directorySnapshot) {
+            Map<String, FileSystemLocationSnapshot> children = new HashMap<>();
+            directorySnapshot.accept(entrySnapshot -> {
+                if (entrySnapshot == directorySnapshot) {
+                    return SnapshotVisitResult.CONTINUE;
+                }
+                children.put(entrySnapshot.getAbsolutePath(), entrySnapshot);
+                return SnapshotVisitResult.SKIP_SUBTREE;
+            });
+            return children;
+        }
+
         @Nullable
         public String getOverlappingPath() {
             return overlappingPath;
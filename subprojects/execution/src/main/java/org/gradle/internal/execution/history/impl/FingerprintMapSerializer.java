@@ -32,9 +32,16 @@
 import java.io.IOException;
 import java.util.Map;
 
+/**
+ * Serializes file fingerprints keyed by absolute path.
+ *
+ * <p>Each absolute path is written as the length of the prefix it shares with the previous path, followed by the rest of the path.
+ * A normalized path that is a suffix of the absolute path is written as its length only.</p>
+ */
 public class FingerprintMapSerializer extends AbstractSerializer<Map<String, FileSystemLocationFingerprint>> {
     private static final byte DEFAULT_NORMALIZATION = 1;
     private static final byte IGNORED_PATH_NORMALIZATION = 2;
+    private static final byte ABSOLUTE_PATH_SUFFIX_NORMALIZATION = 3;
 
     private static final byte DIR_FINGERPRINT = 1;
     private static final byte MISSING_FILE_FINGERPRINT = 2;
@@ -51,15 +58,18 @@ public FingerprintMapSerializer(Interner<String> stringInterner) {
     public Map<String, FileSystemLocationFingerprint> read(Decoder decoder) throws IOException {
         int fingerprintCount = decoder.readSmallInt();
         ImmutableMap.Builder<String, FileSystemLocationFingerprint> fingerprints = ImmutableMap.builderWithExpectedSize(fingerprintCount);
+        String previousAbsolutePath = "";
         for (int i = 0; i < fingerprintCount; i++) {
-            String absolutePath = stringInterner.intern(decoder.readString());
-            FileSystemLocationFingerprint fingerprint = readFingerprint(decoder);
+            int commonPrefixLength = decoder.readSmallInt();
+            String absolutePath = stringInterner.intern(previousAbsolutePath.substring(0, commonPrefixLength) + decoder.readString());
+            FileSystemLocationFingerprint fingerprint = readFingerprint(decoder, absolutePath);
             fingerprints.put(absolutePath, fingerprint);
+            previousAbsolutePath = absolutePath;
         }
         return fingerprints.build();
     }
 
-    private FileSystemLocationFingerprint readFingerprint(Decoder decoder) throws IOException {
+    private FileSystemLocationFingerprint readFingerprint(Decoder decoder, String absolutePath) throws IOException {
         FileType fileType = readFileType(decoder);
         HashCode contentHash = readContentHash(fileType, decoder);
 
@@ -68,6 +78,9 @@ private FileSystemLocationFingerprint readFingerprint(Decoder decoder) throws IO
             case DEFAULT_NORMALIZATION:
                 String normalizedPath = decoder.readString();
                 return new DefaultFileSystemLocationFingerprint(stringInterner.intern(normalizedPath), fileType, contentHash);
+            case ABSOLUTE_PATH_SUFFIX_NORMALIZATION:
+                int normalizedPathLength = decoder.readSmallInt();
+                return new DefaultFileSystemLocationFingerprint(stringInterner.intern(absolutePath.substring(absolutePath.length() - normalizedPathLength)), fileType, contentHash);
             case IGNORED_PATH_NORMALIZATION:
                 return IgnoredPathFileSystemLocationFingerprint.create(fileType, contentHash);
             default:
@@ -105,11 +118,28 @@ private FileType readFileType(Decoder decoder) throws IOException {
     @Override
     public void write(Encoder encoder, Map<String, FileSystemLocationFingerprint> value) throws Exception {
         encoder.writeSmallInt(value.size());
-        for (String key : value.keySet()) {
-            encoder.writeString(key);
-            FileSystemLocationFingerprint fingerprint = value.get(key);
-            writeFingerprint(encoder, fingerprint);
+        String previousAbsolutePath = "";
+        for (Map.Entry<String, FileSystemLocationFingerprint> entry : value.entrySet()) {
+            String absolutePath = entry.getKey();
+            int commonPrefixLength = commonPrefixLength(previousAbsolutePath, absolutePath);
+            encoder.writeSmallInt(commonPrefixLength);
+            encoder.writeString(absolutePath.substring(commonPrefixLength));
+            writeFingerprint(encoder, absolutePath, entry.getValue());
+            previousAbsolutePath = absolutePath;
+        }
+    }
+
+    private static int commonPrefixLength(String previous, String current) {
+        int maxLength = Math.min(previous.length(), current.length());
+        int length = 0;
+        while (length < maxLength && previous.charAt(length) == current.charAt(length)) {
+            length++;
+        }
+        // Do not split a surrogate pair
+        if (length > 0 && Character.isHighSurrogate(current.charAt(length - 1))) {
+            length--;
         }
+        return length;
     }
 
     @Override
@@ -127,7 +157,7 @@ public int hashCode() {
         return Objects.hashCode(super.hashCode(), hashCodeSerializer);
     }
 
-    private void writeFingerprint(Encoder encoder, FileSystemLocationFingerprint value) throws IOException {
+    private void writeFingerprint(Encoder encoder, String absolutePath, FileSystemLocationFingerprint value) throws IOException {
         switch (value.getType()) {
             case Directory:
                 encoder.writeByte(DIR_FINGERPRINT);
@@ -144,8 +174,14 @@ private void writeFingerprint(Encoder encoder, FileSystemLocationFingerprint val
         }
 
         if (value instanceof DefaultFileSystemLocationFingerprint) {
-            encoder.writeByte(DEFAULT_NORMALIZATION);
-            encoder.writeString(value.getNormalizedPath());
+            String normalizedPath = value.getNormalizedPath();
+            if (absolutePath.endsWith(normalizedPath)) {
+                encoder.writeByte(ABSOLUTE_PATH_SUFFIX_NORMALIZATION);
+                encoder.writeSmallInt(normalizedPath.length());
+            } else {
+                encoder.writeByte(DEFAULT_NORMALIZATION);
+                encoder.writeString(normalizedPath);
+            }
         } else if (value instanceof IgnoredPathFileSystemLocationFingerprint) {
             encoder.writeByte(IGNORED_PATH_NORMALIZATION);
         } else {
@@ -18,36 +18,71 @@
 
 import com.google.common.collect.ImmutableSortedMap;
 import org.gradle.api.file.FileCollection;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.execution.OutputSnapshotter;
 import org.gradle.internal.execution.UnitOfWork;
 import org.gradle.internal.execution.fingerprint.FileCollectionSnapshotter;
 import org.gradle.internal.file.TreeType;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 public class DefaultOutputSnapshotter implements OutputSnapshotter {
+    public static final String PARALLEL_SNAPSHOTTING_PROPERTY = "org.gradle.internal.execution.parallel-output-snapshotting";
+
     private final FileCollectionSnapshotter fileCollectionSnapshotter;
+    @Nullable
+    private final Executor snapshottingExecutor;
 
-    public DefaultOutputSnapshotter(FileCollectionSnapshotter fileCollectionSnapshotter) {
+    public DefaultOutputSnapshotter(FileCollectionSnapshotter fileCollectionSnapshotter, Executor snapshottingExecutor) {
         this.fileCollectionSnapshotter = fileCollectionSnapshotter;
+        this.snapshottingExecutor = Boolean.parseBoolean(System.getProperty(PARALLEL_SNAPSHOTTING_PROPERTY, "true"))
+            ? snapshottingExecutor
+            : null;
     }
 
     @Override
     public ImmutableSortedMap<String, FileSystemSnapshot> snapshotOutputs(UnitOfWork work, File workspace) {
-        ImmutableSortedMap.Builder<String, FileSystemSnapshot> builder = ImmutableSortedMap.naturalOrder();
+        Map<String, FutureTask<FileSystemSnapshot>> pendingSnapshots = new LinkedHashMap<>();
         work.visitOutputs(workspace, new UnitOfWork.OutputVisitor() {
             @Override
             public void visitOutputProperty(String propertyName, TreeType type, File root, FileCollection contents) {
-                FileSystemSnapshot snapshot;
-                try {
-                    snapshot = fileCollectionSnapshotter.snapshot(contents).getSnapshot();
-                } catch (Exception ex) {
-                    throw new OutputFileSnapshottingException(propertyName, ex);
-                }
-                builder.put(propertyName, snapshot);
+                // The output locations are already resolved, so snapshotting them can happen on another thread
+                pendingSnapshots.put(propertyName, new FutureTask<>(() -> fileCollectionSnapshotter.snapshot(contents).getSnapshot()));
             }
         });
+        if (snapshottingExecutor != null && pendingSnapshots.size() > 1) {
+            try {
+                pendingSnapshots.values().forEach(snapshottingExecutor::execute);
+            } catch (RejectedExecutionException e) {
+                // Snapshot the remaining properties on the current thread
+            }
+        }
+        ImmutableSortedMap.Builder<String, FileSystemSnapshot> builder = ImmutableSortedMap.naturalOrder();
+        for (Map.Entry<String, FutureTask<FileSystemSnapshot>> entry : pendingSnapshots.entrySet()) {
+            String propertyName = entry.getKey();
+            FutureTask<FileSystemSnapshot> snapshot = entry.getValue();
+            // Does nothing when the executor has already started this snapshot
+            snapshot.run();
+            try {
+                builder.put(propertyName, snapshot.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw new OutputFileSnapshottingException(propertyName, cause);
+                }
+                throw UncheckedException.throwAsUncheckedException(cause);
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
         return builder.build();
     }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.impl;
+
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+
+import java.io.Closeable;
+import java.util.concurrent.Executor;
+
+/**
+ * The bounded pool of threads shared by all units of work to fingerprint their inputs, and to clean up and snapshot their outputs in parallel.
+ */
+public class FileSystemWorkExecutor implements Executor, Closeable {
+    private static final int MAX_THREADS = 4;
+
+    private final ManagedExecutor executor;
+
+    public FileSystemWorkExecutor(ExecutorFactory executorFactory) {
+        this.executor = executorFactory.create("File system work", Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    @Override
+    public void close() {
+        executor.stop();
+    }
+}
@@ -16,38 +16,72 @@
 
 package org.gradle.internal.execution.steps;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import org.gradle.api.file.FileCollection;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.execution.OutputChangeListener;
 import org.gradle.internal.execution.UnitOfWork;
 import org.gradle.internal.execution.history.BeforeExecutionState;
 import org.gradle.internal.execution.history.OutputsCleaner;
 import org.gradle.internal.file.Deleter;
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.FileType;
 import org.gradle.internal.file.TreeType;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.gradle.internal.snapshot.SnapshotUtil;
+import org.gradle.internal.snapshot.SnapshotVisitResult;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * When executed non-incrementally remove previous outputs owned by the work unit.
  */
 public class RemovePreviousOutputsStep<C extends ChangingOutputsContext, R extends Result> implements Step<C, R> {
+    public static final String PARALLEL_CLEANUP_PROPERTY = "org.gradle.internal.execution.parallel-output-cleanup";
+    private static final int DEFAULT_FILES_PER_BATCH = 1000;
 
     private final Deleter deleter;
     private final OutputChangeListener outputChangeListener;
+    @Nullable
+    private final Executor cleanupExecutor;
+    private final int filesPerBatch;
     private final Step<? super C, ? extends R> delegate;
 
     public RemovePreviousOutputsStep(
         Deleter deleter,
         OutputChangeListener outputChangeListener,
+        Executor cleanupExecutor,
+        Step<? super C, ? extends R> delegate
+    ) {
+        this(deleter, outputChangeListener, cleanupExecutor, DEFAULT_FILES_PER_BATCH, delegate);
+    }
+
+    @VisibleForTesting
+    RemovePreviousOutputsStep(
+        Deleter deleter,
+        OutputChangeListener outputChangeListener,
+        Executor cleanupExecutor,
+        int filesPerBatch,
         Step<? super C, ? extends R> delegate
     ) {
         this.deleter = deleter;
         this.outputChangeListener = outputChangeListener;
+        this.cleanupExecutor = Boolean.parseBoolean(System.getProperty(PARALLEL_CLEANUP_PROPERTY, "true"))
+            ? cleanupExecutor
+            : null;
+        this.filesPerBatch = filesPerBatch;
         this.delegate = delegate;
     }
 
@@ -117,6 +151,7 @@ public void visitOutputProperty(String propertyName, TreeType type, File root, F
                                 deleter.delete(root);
                                 break;
                             case DIRECTORY:
+                                deleteFilesInParallel(context, propertyName);
                                 deleter.ensureEmptyDirectory(root);
                                 break;
                             default:
@@ -129,4 +164,66 @@ public void visitOutputProperty(String propertyName, TreeType type, File root, F
             }
         });
     }
+
+    /**
+     * Deletes the files of a large output directory in batches on multiple threads, before the directory is emptied.
+     *
+     * The files to delete are taken from the snapshot of the output directory captured before execution, so the directory is not walked again.
+     * Anything missing from the snapshot is removed when the directory is emptied afterwards.
+     */
+    private void deleteFilesInParallel(BeforeExecutionContext context, String propertyName) {
+        if (cleanupExecutor == null) {
+            return;
+        }
+        FileSystemSnapshot snapshot = context.getBeforeExecutionState()
+            .map(beforeExecutionState -> beforeExecutionState.getOutputFileLocationSnapshots().get(propertyName))
+            .orElse(null);
+        if (snapshot == null) {
+            return;
+        }
+        List<File> files = new ArrayList<>();
+        snapshot.accept(location -> {
+            // Emptying the directory does not follow symlinks, so neither do we
+            if (location.getAccessType() == FileMetadata.AccessType.VIA_SYMLINK) {
+                return SnapshotVisitResult.SKIP_SUBTREE;
+            }
+            if (location.getType() == FileType.RegularFile) {
+                files.add(new File(location.getAbsolutePath()));
+            }
+            return SnapshotVisitResult.CONTINUE;
+        });
+        if (files.size() <= filesPerBatch) {
+            return;
+        }
+
+        List<FutureTask<Void>> batches = new ArrayList<>();
+        for (List<File> batch : Lists.partition(files, filesPerBatch)) {
+            batches.add(new FutureTask<>(() -> {
+                for (File file : batch) {
+                    deleter.delete(file);
+                }
+                return null;
+            }));
+        }
+        try {
+            batches.forEach(cleanupExecutor::execute);
+        } catch (RejectedExecutionException e) {
+            // Delete the remaining batches on the current thread
+        }
+        for (FutureTask<Void> batch : batches) {
+            // Does nothing when the executor has already started this batch
+            batch.run();
+            try {
+                batch.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw new UncheckedIOException((IOException) cause);
+                }
+                throw UncheckedException.throwAsUncheckedException(cause);
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
 }
@@ -19,6 +19,7 @@ package org.gradle.internal.execution.fingerprint.impl
 import com.google.common.collect.ImmutableSortedMap
 import org.gradle.api.file.FileCollection
 import org.gradle.api.tasks.FileNormalizer
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.execution.fingerprint.FileCollectionFingerprinter
 import org.gradle.internal.execution.fingerprint.FileCollectionFingerprinterRegistry
 import org.gradle.internal.execution.fingerprint.FileCollectionSnapshotter
@@ -27,6 +28,7 @@ import org.gradle.internal.execution.fingerprint.InputFingerprinter
 import org.gradle.internal.execution.fingerprint.InputFingerprinter.FileValueSupplier
 import org.gradle.internal.execution.fingerprint.InputFingerprinter.InputVisitor
 import org.gradle.internal.execution.fingerprint.InputFingerprinter.Result
+import org.gradle.internal.execution.impl.FileSystemWorkExecutor
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint
 import org.gradle.internal.fingerprint.DirectorySensitivity
 import org.gradle.internal.fingerprint.FileCollectionFingerprint
@@ -47,7 +49,8 @@ class DefaultInputFingerprinterTest extends Specification {
         getFingerprinter(_ as FileNormalizationSpec) >> fingerprinter
     }
     def valueSnapshotter = Mock(ValueSnapshotter)
-    def inputFingerprinter = new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter)
+    def fileSystemWorkExecutor = new FileSystemWorkExecutor(new DefaultExecutorFactory())
+    def inputFingerprinter = new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter, fileSystemWorkExecutor)
 
     def input = Mock(Object)
     def inputSnapshot = Mock(ValueSnapshot)
@@ -56,6 +59,10 @@ class DefaultInputFingerprinterTest extends Specification {
     def fileInputSnapshotResult = Mock(FileCollectionSnapshotter.Result)
     def fileInputFingerprint = Mock(CurrentFileCollectionFingerprint)
 
+    def cleanup() {
+        fileSystemWorkExecutor.close()
+    }
+
     def "visits properties"() {
         when:
         def result = fingerprintInputProperties { visitor ->
@@ -103,15 +110,16 @@ class DefaultInputFingerprinterTest extends Specification {
         _ * fileInputSnapshotResult.fileTreeOnly >> false
         _ * fileInputSnapshotResult.containsArchiveTrees() >> false
         1 * fileInputSnapshotResult.snapshot >> fileInputSnapshot
-        1 * fingerprinter.fingerprint(fileInputSnapshot, null) >> fileInputFingerprint
 
         then:
         1 * snapshotter.snapshot(archiveTreeInput) >> archiveTreeInputSnapshotResult
         _ * archiveTreeInputSnapshotResult.fileTreeOnly >> false
         _ * archiveTreeInputSnapshotResult.containsArchiveTrees() >> true
         1 * archiveTreeInputSnapshotResult.snapshot >> archiveTreeInputSnapshot
-        1 * fingerprinter.fingerprint(archiveTreeInputSnapshot, null) >> archiveTreeInputFingerprint
 
+        then:
+        1 * fingerprinter.fingerprint(fileInputSnapshot, null) >> fileInputFingerprint
+        1 * fingerprinter.fingerprint(archiveTreeInputSnapshot, null) >> archiveTreeInputFingerprint
         0 * _
 
         then:
@@ -203,6 +211,80 @@ class DefaultInputFingerprinterTest extends Specification {
         ex.cause == failure
     }
 
+    def "fingerprints input file properties after snapshotting all of them"() {
+        def otherFileInput = Mock(FileCollection)
+        def otherFileInputSnapshotResult = Mock(FileCollectionSnapshotter.Result)
+        def otherFileInputSnapshot = Mock(FileSystemSnapshot)
+        def otherFileInputFingerprint = Mock(CurrentFileCollectionFingerprint)
+
+        when:
+        def result = fingerprintInputProperties { visitor ->
+            visitor.visitInputFileProperty(
+                "z-file",
+                NON_INCREMENTAL,
+                new FileValueSupplier(fileInput, FileNormalizer, DirectorySensitivity.DEFAULT, LineEndingSensitivity.DEFAULT, { fileInput }))
+            visitor.visitInputFileProperty(
+                "a-file",
+                NON_INCREMENTAL,
+                new FileValueSupplier(otherFileInput, FileNormalizer, DirectorySensitivity.DEFAULT, LineEndingSensitivity.DEFAULT, { otherFileInput }))
+        }
+
+        then:
+        1 * snapshotter.snapshot(fileInput) >> fileInputSnapshotResult
+        _ * fileInputSnapshotResult.fileTreeOnly >> false
+        _ * fileInputSnapshotResult.containsArchiveTrees() >> false
+        1 * fileInputSnapshotResult.snapshot >> fileInputSnapshot
+        1 * snapshotter.snapshot(otherFileInput) >> otherFileInputSnapshotResult
+        _ * otherFileInputSnapshotResult.fileTreeOnly >> false
+        _ * otherFileInputSnapshotResult.containsArchiveTrees() >> false
+        1 * otherFileInputSnapshotResult.snapshot >> otherFileInputSnapshot
+
+        then:
+        1 * fingerprinter.fingerprint(fileInputSnapshot, null) >> fileInputFingerprint
+        1 * fingerprinter.fingerprint(otherFileInputSnapshot, null) >> otherFileInputFingerprint
+        0 * _
+
+        then:
+        result.fileFingerprints.keySet() as List == ["a-file", "z-file"]
+        result.fileFingerprints as Map == [
+            "a-file": otherFileInputFingerprint,
+            "z-file": fileInputFingerprint
+        ]
+    }
+
+    def "reports file fingerprinting problem"() {
+        def failure = new UncheckedIOException(new IOException("Error"))
+        def otherFileInput = Mock(FileCollection)
+        def otherFileInputSnapshotResult = Mock(FileCollectionSnapshotter.Result)
+        def otherFileInputSnapshot = Mock(FileSystemSnapshot)
+
+        when:
+        fingerprintInputProperties { visitor ->
+            visitor.visitInputFileProperty(
+                "file",
+                NON_INCREMENTAL,
+                new FileValueSupplier(fileInput, FileNormalizer, DirectorySensitivity.DEFAULT, LineEndingSensitivity.DEFAULT, { fileInput }))
+            visitor.visitInputFileProperty(
+                "otherFile",
+                NON_INCREMENTAL,
+                new FileValueSupplier(otherFileInput, FileNormalizer, DirectorySensitivity.DEFAULT, LineEndingSensitivity.DEFAULT, { otherFileInput }))
+        }
+
+        then:
+        1 * snapshotter.snapshot(fileInput) >> fileInputSnapshotResult
+        _ * fileInputSnapshotResult.snapshot >> fileInputSnapshot
+        1 * snapshotter.snapshot(otherFileInput) >> otherFileInputSnapshotResult
+        _ * otherFileInputSnapshotResult.snapshot >> otherFileInputSnapshot
+        1 * fingerprinter.fingerprint(fileInputSnapshot, null) >> { throw failure }
+        _ * fingerprinter.fingerprint(otherFileInputSnapshot, null) >> Mock(CurrentFileCollectionFingerprint)
+
+        then:
+        def ex = thrown InputFingerprinter.InputFileFingerprintingException
+        ex.message == "Cannot fingerprint input file property 'file': java.io.IOException: Error"
+        ex.propertyName == "file"
+        ex.cause == failure
+    }
+
     private Result fingerprintInputProperties(
         ImmutableSortedMap<String, ValueSnapshot> previousValueSnapshots = ImmutableSortedMap.of(),
         ImmutableSortedMap<String, FileCollectionFingerprint> previousFingerprints = ImmutableSortedMap.of(),
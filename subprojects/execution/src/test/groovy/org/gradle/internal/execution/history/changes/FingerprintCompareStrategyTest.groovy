@@ -296,6 +296,19 @@ class FingerprintCompareStrategyTest extends Specification {
         strategy << ALL_STRATEGIES
     }
 
+    def "does not compare files when root hashes are unchanged (strategy: #strategy)"() {
+        def rootHashes = ImmutableMultimap.of("/dir", TestHashCodes.hashCodeFrom(456))
+        def strategyConfigurationHash = TestHashCodes.hashCodeFrom(5432)
+        def previous = new SerializableFileCollectionFingerprint(["/dir/one": fingerprint("one", 1)], rootHashes, strategyConfigurationHash)
+        def current = new SerializableFileCollectionFingerprint(["/dir/one": fingerprint("one", 2)], rootHashes, strategyConfigurationHash)
+
+        expect:
+        changes(strategy, current, previous).empty
+
+        where:
+        strategy << ALL_STRATEGIES
+    }
+
     def changes(FingerprintCompareStrategy strategy, Map<String, FileSystemLocationFingerprint> current, Map<String, FileSystemLocationFingerprint> previous) {
         def strategyConfigurationHash = TestHashCodes.hashCodeFrom(5432)
         def currentFingerprint = new SerializableFileCollectionFingerprint(current, ImmutableMultimap.of("some", TestHashCodes.hashCodeFrom(1234)), strategyConfigurationHash)
@@ -82,4 +82,56 @@ class DefaultOverlappingOutputDetectorTest extends Specification {
         "directory"      | new DirectorySnapshot("/absolute/path", "path", AccessType.DIRECT, TestHashCodes.hashCodeFrom(123), [])
         "broken symlink" | new MissingFileSnapshot("/absolute/path", "path", AccessType.VIA_SYMLINK)
     }
+
+    def "detects overlap when there is a stale entry in a nested output directory"() {
+        def unchangedFile = new RegularFileSnapshot("/absolute/unchanged/file", "file", TestHashCodes.hashCodeFrom(1), DefaultFileMetadata.file(0L, 0L, AccessType.DIRECT))
+        def unchangedDirectory = new DirectorySnapshot("/absolute/unchanged", "unchanged", AccessType.DIRECT, TestHashCodes.hashCodeFrom(0x11), [unchangedFile])
+        def producedFile = new RegularFileSnapshot("/absolute/nested/produced", "produced", TestHashCodes.hashCodeFrom(2), DefaultFileMetadata.file(0L, 0L, AccessType.DIRECT))
+        def staleFile = new RegularFileSnapshot("/absolute/nested/stale", "stale", TestHashCodes.hashCodeFrom(3), DefaultFileMetadata.file(0L, 0L, AccessType.DIRECT))
+        def previousOutputFiles = ImmutableSortedMap.<String, FileSystemSnapshot> of(
+            "output", new DirectorySnapshot("/absolute", "absolute", AccessType.DIRECT, TestHashCodes.hashCodeFrom(0x1234), [
+                unchangedDirectory,
+                new DirectorySnapshot("/absolute/nested", "nested", AccessType.DIRECT, TestHashCodes.hashCodeFrom(0x22), [producedFile])
+            ])
+        )
+        def outputFilesBeforeExecution = ImmutableSortedMap.<String, FileSystemSnapshot> of(
+            "output", new DirectorySnapshot("/absolute", "absolute", AccessType.DIRECT, TestHashCodes.hashCodeFrom(0x5678), [
+                unchangedDirectory,
+                new DirectorySnapshot("/absolute/nested", "nested", AccessType.DIRECT, TestHashCodes.hashCodeFrom(0x33), [producedFile, staleFile])
+            ])
+        )
+
+        when:
+        def overlaps = detector.detect(previousOutputFiles, outputFilesBeforeExecution)
+
+        then:
+        overlaps.propertyName == "output"
+        overlaps.overlappedFilePath == "/absolute/nested/stale"
+    }
+
+    def "does not look into output directories whose hash did not change"() {
+        // The contents do not match the hash, which can only happen in this test
+        def staleFile = new RegularFileSnapshot("/absolute/cached/stale", "stale", TestHashCodes.hashCodeFrom(1), DefaultFileMetadata.file(0L, 0L, AccessType.DIRECT))
+        def producedFile = new RegularFileSnapshot("/absolute/produced", "produced", TestHashCodes.hashCodeFrom(2), DefaultFileMetadata.file(0L, 0L, AccessType.DIRECT))
+        def changedProducedFile = new RegularFileSnapshot("/absolute/produced", "produced", TestHashCodes.hashCodeFrom(3), DefaultFileMetadata.file(0L, 0L, AccessType.DIRECT))
+        def previousOutputFiles = ImmutableSortedMap.<String, FileSystemSnapshot> of(
+            "output", new DirectorySnapshot("/absolute", "absolute", AccessType.DIRECT, TestHashCodes.hashCodeFrom(0x1234), [
+                new DirectorySnapshot("/absolute/cached", "cached", AccessType.DIRECT, TestHashCodes.hashCodeFrom(0x11), []),
+                producedFile
+            ])
+        )
+        def outputFilesBeforeExecution = ImmutableSortedMap.<String, FileSystemSnapshot> of(
+            "output", new DirectorySnapshot("/absolute", "absolute", AccessType.DIRECT, TestHashCodes.hashCodeFrom(0x5678), [
+                new DirectorySnapshot("/absolute/cached", "cached", AccessType.DIRECT, TestHashCodes.hashCodeFrom(0x11), [staleFile]),
+                changedProducedFile
+            ])
+        )
+
+        when:
+        def overlaps = detector.detect(previousOutputFiles, outputFilesBeforeExecution)
+
+        then:
+        overlaps.propertyName == "output"
+        overlaps.overlappedFilePath == "/absolute/produced"
+    }
 }
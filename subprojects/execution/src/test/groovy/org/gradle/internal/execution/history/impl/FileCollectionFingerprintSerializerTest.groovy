@@ -93,4 +93,33 @@ class FileCollectionFingerprintSerializerTest extends SerializerSpec {
         out.fingerprints.keySet() as List == ["/3", "/2", "/1"]
         out.rootHashes.keySet() as List == ["/3", "/2", "/1"]
     }
+
+    def "reads and writes fingerprints with shared path prefixes"() {
+        def hash = TestHashCodes.hashCodeFrom(1234)
+        def fingerprints = [
+            "/root/lib/a.jar": new DefaultFileSystemLocationFingerprint("a.jar", FileType.RegularFile, hash),
+            "/root/lib/ab.jar": new DefaultFileSystemLocationFingerprint("lib/ab.jar", FileType.RegularFile, hash),
+            "/root/classes": new DefaultFileSystemLocationFingerprint("", FileType.Directory, FileSystemLocationFingerprint.DIR_SIGNATURE),
+            "/root/classes/Foo.class": new DefaultFileSystemLocationFingerprint("org/Foo.class", FileType.RegularFile, hash),
+            "/root/\uD83D\uDE00/x": new DefaultFileSystemLocationFingerprint("x", FileType.RegularFile, hash),
+            "/root/\uD83D\uDE01/y": new DefaultFileSystemLocationFingerprint("\uD83D\uDE01/y", FileType.RegularFile, hash),
+            "/other": new DefaultFileSystemLocationFingerprint("/other", FileType.Missing, FileSystemLocationFingerprint.MISSING_FILE_SIGNATURE),
+        ]
+
+        when:
+        def out = serialize(new SerializableFileCollectionFingerprint(
+            fingerprints,
+            ImmutableMultimap.of("/root", hash),
+            TestHashCodes.hashCodeFrom(5432)
+        ), serializer)
+
+        then:
+        out.fingerprints.keySet() as List == fingerprints.keySet() as List
+        fingerprints.each { absolutePath, fingerprint ->
+            def read = out.fingerprints[absolutePath]
+            assert read.type == fingerprint.type
+            assert read.normalizedPath == fingerprint.normalizedPath
+            assert read.normalizedContentHash == fingerprint.normalizedContentHash
+        }
+    }
 }
@@ -16,7 +16,9 @@
 
 package org.gradle.internal.execution.impl
 
+import com.google.common.util.concurrent.MoreExecutors
 import org.gradle.api.file.FileCollection
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.execution.OutputSnapshotter
 import org.gradle.internal.execution.UnitOfWork
 import org.gradle.internal.execution.fingerprint.FileCollectionSnapshotter
@@ -29,7 +31,7 @@ import spock.lang.Specification
 class DefaultOutputSnapshotterTest extends Specification {
     def work = Mock(UnitOfWork)
     def fileCollectionSnapshotter = Mock(FileCollectionSnapshotter)
-    def outputSnapshotter = new DefaultOutputSnapshotter(fileCollectionSnapshotter)
+    def outputSnapshotter = new DefaultOutputSnapshotter(fileCollectionSnapshotter, MoreExecutors.directExecutor())
 
     @Rule
     TestNameTestDirectoryProvider tempDir = new TestNameTestDirectoryProvider(getClass())
@@ -57,6 +59,37 @@ class DefaultOutputSnapshotterTest extends Specification {
         result as Map == ["output": outputSnapshot]
     }
 
+    def "snapshots multiple outputs in parallel"() {
+        def executor = new DefaultExecutorFactory().create("test", 2)
+        def outputSnapshotter = new DefaultOutputSnapshotter(fileCollectionSnapshotter, executor)
+        def otherContents = Mock(FileCollection)
+        def outputSnapshot = Mock(FileSystemSnapshot)
+        def otherOutputSnapshot = Mock(FileSystemSnapshot)
+
+        when:
+        def result = outputSnapshotter.snapshotOutputs(work, workspace)
+
+        then:
+        1 * work.visitOutputs(workspace, _ as UnitOfWork.OutputVisitor) >> { File workspace, UnitOfWork.OutputVisitor outputVisitor ->
+            outputVisitor.visitOutputProperty("z-output", TreeType.FILE, root, contents)
+            outputVisitor.visitOutputProperty("a-output", TreeType.DIRECTORY, workspace.file("other"), otherContents)
+        }
+        1 * fileCollectionSnapshotter.snapshot(contents) >> Stub(FileCollectionSnapshotter.Result) {
+            snapshot >> outputSnapshot
+        }
+        1 * fileCollectionSnapshotter.snapshot(otherContents) >> Stub(FileCollectionSnapshotter.Result) {
+            snapshot >> otherOutputSnapshot
+        }
+        0 * _
+
+        then:
+        result.keySet() as List == ["a-output", "z-output"]
+        result as Map == ["a-output": otherOutputSnapshot, "z-output": outputSnapshot]
+
+        cleanup:
+        executor.stop()
+    }
+
     def "reports snapshotting problem"() {
         def failure = new UncheckedIOException(new IOException("Error"))
 
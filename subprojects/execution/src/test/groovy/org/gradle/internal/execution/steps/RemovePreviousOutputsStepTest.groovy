@@ -17,7 +17,9 @@
 package org.gradle.internal.execution.steps
 
 import com.google.common.collect.ImmutableSortedMap
+import com.google.common.util.concurrent.MoreExecutors
 import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.execution.OutputChangeListener
 import org.gradle.internal.execution.UnitOfWork.OutputVisitor
 import org.gradle.internal.execution.history.BeforeExecutionState
@@ -37,7 +39,7 @@ class RemovePreviousOutputsStepTest extends StepSpec<ChangingOutputsContext> imp
     def outputChangeListener = Mock(OutputChangeListener)
     def deleter = TestFiles.deleter()
 
-    def step = new RemovePreviousOutputsStep<>(deleter, outputChangeListener, delegate)
+    def step = new RemovePreviousOutputsStep<>(deleter, outputChangeListener, MoreExecutors.directExecutor(), delegate)
 
     @Override
     protected ChangingOutputsContext createContext() {
@@ -126,6 +128,32 @@ class RemovePreviousOutputsStepTest extends StepSpec<ChangingOutputsContext> imp
         outputs.dir.list() as List == []
     }
 
+    def "deletes large exclusive outputs in batches in parallel"() {
+        def executor = new DefaultExecutorFactory().create("test", 2)
+        def step = new RemovePreviousOutputsStep<>(deleter, outputChangeListener, executor, 2, delegate)
+        def outputs = new WorkOutputs()
+        outputs.createContents()
+        outputs.snapshot()
+        outputs.beforeExecutionSnapshots = ImmutableSortedMap.of("dir", outputs.dirSnapshot, "file", outputs.fileSnapshot)
+        outputs.dir.file("some/notInSnapshot.txt") << "notInSnapshot"
+
+        when:
+        step.execute(work, context)
+        then:
+        interaction {
+            cleanupExclusiveOutputs(outputs)
+        }
+        1 * delegate.execute(work, context) >> delegateResult
+        0 * _
+
+        !outputs.file.exists()
+        outputs.dir.isDirectory()
+        outputs.dir.list() as List == []
+
+        cleanup:
+        executor.stop()
+    }
+
     def "cleanup for exclusive output works with missing files"() {
         def outputs = new WorkOutputs()
         outputs.dir.parentFile.mkdirs()
@@ -197,6 +225,7 @@ class RemovePreviousOutputsStepTest extends StepSpec<ChangingOutputsContext> imp
         _ * work.shouldCleanupOutputsOnNonIncrementalExecution() >> true
         _ * context.beforeExecutionState >> Optional.of(beforeExecutionState)
         1 * beforeExecutionState.detectedOverlappingOutputs >> Optional.empty()
+        _ * beforeExecutionState.outputFileLocationSnapshots >> outputs.beforeExecutionSnapshots
         _ * work.visitOutputs(_, _) >> { File workspace, OutputVisitor visitor ->
             visitor.visitOutputProperty("dir", TreeType.DIRECTORY, outputs.dir, TestFiles.fixed(outputs.dir))
             visitor.visitOutputProperty("file", TreeType.FILE, outputs.file, TestFiles.fixed(outputs.file))
@@ -208,6 +237,7 @@ class RemovePreviousOutputsStepTest extends StepSpec<ChangingOutputsContext> imp
         def file = temporaryFolder.file("build/output-files/file.txt")
         FileSystemSnapshot dirSnapshot
         FileSystemSnapshot fileSnapshot
+        ImmutableSortedMap<String, FileSystemSnapshot> beforeExecutionSnapshots = ImmutableSortedMap.of()
 
         void snapshot() {
             dirSnapshot = snapshot(dir)
@@ -49,6 +49,11 @@ public int size() {
         return (int) entry.getSize();
     }
 
+    @Override
+    public long getCrc() {
+        return entry.getCrc();
+    }
+
     @Override
     public byte[] getContent() throws IOException {
         return withInputStream(new IoFunction<InputStream, byte[]>() {
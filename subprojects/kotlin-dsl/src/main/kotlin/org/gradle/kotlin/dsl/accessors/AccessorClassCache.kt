@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.kotlin.dsl.accessors
+
+import org.gradle.cache.internal.CrossBuildInMemoryCache
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.Hasher
+import org.gradle.internal.hash.Hashing
+
+
+/**
+ * Keeps the class emitted for each accessor in memory across builds.
+ *
+ * When the schema of a project changes, only the accessors that were added or changed are emitted again,
+ * and the accessors shared by the schemas of many projects are emitted once.
+ *
+ * Accessors are looked up by a hash of their kind, names and the names of their types rather than by the accessor itself,
+ * whose schema types would otherwise keep the class loaders of plugins alive for as long as the daemon.
+ * These names determine the emitted class, so the key is computed without rendering the accessor.
+ */
+internal
+class AccessorClassCache(
+    cacheFactory: CrossBuildInMemoryCacheFactory
+) {
+
+    private
+    val cache: CrossBuildInMemoryCache<Key, EmittedAccessor> = cacheFactory.newCache()
+
+    fun getOrEmit(
+        accessor: Accessor,
+        outputPackage: OutputPackage,
+        format: AccessorFormat,
+        moduleName: String,
+        emitBytecode: Boolean
+    ): EmittedAccessor =
+        cache.get(Key(hashOf(accessor), outputPackage.name, format, moduleName, emitBytecode)) {
+            emittedAccessorFor(accessor, outputPackage, format, moduleName, emitBytecode)
+        }
+
+    private
+    fun hashOf(accessor: Accessor): HashCode {
+        val hasher = Hashing.newHasher()
+        hasher.putString(accessor.javaClass.name)
+        when (accessor) {
+            is Accessor.ForConfiguration -> {
+                hasher.putString(accessor.config.target.original)
+                hasher.putInt(accessor.config.dependencyDeclarationAlternatives.size)
+                accessor.config.dependencyDeclarationAlternatives.forEach(hasher::putString)
+            }
+            is Accessor.ForExtension -> hasher.putSpec(accessor.spec)
+            is Accessor.ForConvention -> hasher.putSpec(accessor.spec)
+            is Accessor.ForContainerElement -> hasher.putSpec(accessor.spec)
+            is Accessor.ForTask -> hasher.putSpec(accessor.spec)
+        }
+        return hasher.hash()
+    }
+
+    private
+    fun Hasher.putSpec(spec: TypedAccessorSpec) {
+        putType(spec.receiver)
+        putString(spec.name.original)
+        putType(spec.type)
+    }
+
+    private
+    fun Hasher.putType(typeAccessibility: TypeAccessibility) {
+        when (typeAccessibility) {
+            is TypeAccessibility.Accessible -> {
+                putBoolean(true)
+                putString(typeAccessibility.type.kotlinString)
+                // The emitted bytecode refers to the binary name of the class, which the Kotlin name does not always determine
+                putString(typeAccessibility.type.value.concreteClass.name)
+            }
+            is TypeAccessibility.Inaccessible -> {
+                putBoolean(false)
+                putString(typeAccessibility.type.kotlinString)
+                putInt(typeAccessibility.reasons.size)
+                typeAccessibility.reasons.forEach { putString(it.explanation) }
+            }
+        }
+    }
+
+    private
+    data class Key(
+        val accessorHash: HashCode,
+        val outputPackage: String,
+        val format: AccessorFormat,
+        val moduleName: String,
+        val emitBytecode: Boolean
+    )
+}
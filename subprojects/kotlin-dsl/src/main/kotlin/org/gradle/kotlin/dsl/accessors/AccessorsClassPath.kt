@@ -66,7 +66,8 @@ class ProjectAccessorsClassPathGenerator @Inject constructor(
     private val projectSchemaProvider: ProjectSchemaProvider,
     private val executionEngine: ExecutionEngine,
     private val inputFingerprinter: InputFingerprinter,
-    private val workspaceProvider: KotlinDslWorkspaceProvider
+    private val workspaceProvider: KotlinDslWorkspaceProvider,
+    private val accessorClassCache: AccessorClassCache
 ) {
 
     fun projectAccessorsClassPath(project: Project, classPath: ClassPath): AccessorsClassPath =
@@ -85,7 +86,8 @@ class ProjectAccessorsClassPathGenerator @Inject constructor(
                 classPath,
                 fileCollectionFactory,
                 inputFingerprinter,
-                workspaceProvider
+                workspaceProvider,
+                accessorClassCache
             )
             val result = executionEngine.createRequest(work).execute()
             result.executionResult.get().output as AccessorsClassPath
@@ -109,7 +111,8 @@ class GenerateProjectAccessors(
     private val classPath: ClassPath,
     private val fileCollectionFactory: FileCollectionFactory,
     private val inputFingerprinter: InputFingerprinter,
-    private val workspaceProvider: KotlinDslWorkspaceProvider
+    private val workspaceProvider: KotlinDslWorkspaceProvider,
+    private val accessorClassCache: AccessorClassCache? = null
 ) : UnitOfWork {
 
     companion object {
@@ -126,7 +129,8 @@ class GenerateProjectAccessors(
                 projectSchema,
                 classPath,
                 srcDir = getSourcesOutputDir(workspace),
-                binDir = getClassesOutputDir(workspace)
+                binDir = getClassesOutputDir(workspace),
+                accessorClassCache = accessorClassCache
             )
         }
         return object : UnitOfWork.WorkOutput {
@@ -203,7 +207,8 @@ fun IO.buildAccessorsFor(
     srcDir: File,
     binDir: File?,
     packageName: String = kotlinDslPackageName,
-    format: AccessorFormat = AccessorFormats.default
+    format: AccessorFormat = AccessorFormats.default,
+    accessorClassCache: AccessorClassCache? = null
 ) {
     val availableSchema = availableProjectSchemaFor(projectSchema, classPath)
     emitAccessorsFor(
@@ -211,7 +216,8 @@ fun IO.buildAccessorsFor(
         srcDir,
         binDir,
         OutputPackage(packageName),
-        format
+        format,
+        accessorClassCache
     )
 }
 
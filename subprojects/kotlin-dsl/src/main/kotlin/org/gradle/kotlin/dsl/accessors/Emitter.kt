@@ -39,22 +39,21 @@ fun IO.emitAccessorsFor(
     srcDir: File,
     binDir: File?,
     outputPackage: OutputPackage,
-    format: AccessorFormat
+    format: AccessorFormat,
+    accessorClassCache: AccessorClassCache? = null
 ): List<InternalName> {
 
     makeAccessorOutputDirs(srcDir, binDir, outputPackage.path)
 
     val moduleName = binDir?.name ?: "kotlin-dsl-accessors"
+    val emitBytecode = binDir != null
     val emittedClassNames =
         accessorsFor(projectSchema).map { accessor ->
-            emitClassFor(
-                accessor,
-                srcDir,
-                binDir,
-                outputPackage,
-                format,
-                moduleName
-            )
+            val emittedAccessor =
+                accessorClassCache?.getOrEmit(accessor, outputPackage, format, moduleName, emitBytecode)
+                    ?: emittedAccessorFor(accessor, outputPackage, format, moduleName, emitBytecode)
+            writeEmittedAccessor(emittedAccessor, srcDir, binDir, outputPackage)
+            emittedAccessor.className
         }.toList()
 
     if (binDir != null) {
@@ -87,15 +86,23 @@ data class OutputPackage(val name: String) {
 }
 
 
-private
-fun IO.emitClassFor(
+internal
+class EmittedAccessor(
+    val className: InternalName,
+    val sourceCode: List<String>,
+    val imports: List<String>,
+    val classBytes: ByteArray?
+)
+
+
+internal
+fun emittedAccessorFor(
     accessor: Accessor,
-    srcDir: File,
-    binDir: File?,
     outputPackage: OutputPackage,
     format: AccessorFormat,
-    moduleName: String
-): InternalName {
+    moduleName: String,
+    emitBytecode: Boolean
+): EmittedAccessor {
 
     val (simpleClassName, fragments) = fragmentsFor(accessor)
     val className = InternalName("${outputPackage.path}/$simpleClassName")
@@ -105,28 +112,43 @@ fun IO.emitClassFor(
         sourceCode.add(format(source))
     }
 
-    if (binDir != null) {
-        writeAccessorsBytecodeTo(
-            binDir,
-            className,
-            fragments,
-            ::collectSourceFragment,
-            moduleName
-        )
-    } else {
-        for ((source, _, _, _) in fragments) {
-            collectSourceFragment(source)
+    val classBytes =
+        if (emitBytecode) {
+            accessorsBytecodeFor(
+                className,
+                fragments,
+                ::collectSourceFragment,
+                moduleName
+            )
+        } else {
+            for ((source, _, _, _) in fragments) {
+                collectSourceFragment(source)
+            }
+            null
         }
+
+    return EmittedAccessor(className, sourceCode, importsRequiredBy(accessor), classBytes)
+}
+
+
+private
+fun IO.writeEmittedAccessor(
+    emittedAccessor: EmittedAccessor,
+    srcDir: File,
+    binDir: File?,
+    outputPackage: OutputPackage
+) = emittedAccessor.run {
+
+    if (binDir != null) {
+        writeFile(binDir.resolve("$className.class"), requireNotNull(classBytes))
     }
 
     writeAccessorsTo(
         sourceFileFor(className, srcDir),
         sourceCode,
-        importsRequiredBy(accessor),
+        imports,
         outputPackage.name
     )
-
-    return className
 }
 
 
@@ -136,13 +158,12 @@ fun sourceFileFor(className: InternalName, srcDir: File) =
 
 
 private
-fun IO.writeAccessorsBytecodeTo(
-    binDir: File,
+fun accessorsBytecodeFor(
     className: InternalName,
     fragments: Sequence<AccessorFragment>,
     collectSourceFragment: (String) -> Unit,
     moduleName: String
-) {
+): ByteArray {
 
     val metadataWriter = beginFileFacadeClassHeader()
     val classWriter = beginPublicClass(className)
@@ -154,9 +175,7 @@ fun IO.writeAccessorsBytecodeTo(
     }
 
     val classHeader = metadataWriter.closeHeader(moduleName)
-    val classBytes = classWriter.endKotlinClass(classHeader)
-    val classFile = binDir.resolve("$className.class")
-    writeFile(classFile, classBytes)
+    return classWriter.endKotlinClass(classHeader)
 }
 
 
@@ -20,11 +20,16 @@ import org.gradle.api.invocation.Gradle
 import org.gradle.internal.InternalBuildAdapter
 import org.gradle.internal.concurrent.Stoppable
 import org.gradle.internal.event.ListenerManager
-import org.gradle.kotlin.dsl.support.disposeKotlinCompilerContext
+import org.gradle.kotlin.dsl.support.KotlinCompilerContext
+import org.gradle.kotlin.dsl.support.kotlinCompilerContext
 
 
 /**
- * Disposes Kotlin compiler environment once all scripts are compiled.
+ * Disposes Kotlin compiler environment once all scripts are compiled, unless it is kept warm for the next builds
+ * and the heap has room for it.
+ *
+ * @see KotlinCompilerContext.keepWarm
+ * @see KotlinCompilerContext.disposeIfHeapIsShort
  */
 class KotlinCompilerContextDisposer(
     private val listenerManager: ListenerManager
@@ -39,6 +44,10 @@ class KotlinCompilerContextDisposer(
     }
 
     override fun projectsEvaluated(gradle: Gradle) {
-        disposeKotlinCompilerContext()
+        if (KotlinCompilerContext.keepWarm) {
+            kotlinCompilerContext.disposeIfHeapIsShort()
+        } else {
+            kotlinCompilerContext.disposeNow()
+        }
     }
 }
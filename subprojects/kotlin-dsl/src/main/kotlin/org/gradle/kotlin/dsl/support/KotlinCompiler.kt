@@ -169,24 +169,26 @@ fun compileKotlinScriptModuleTo(
     classPath: Iterable<File>,
     messageCollector: LoggingMessageCollector
 ) {
-    withRootDisposable {
-        withCompilationExceptionHandler(messageCollector) {
-            val configuration = compilerConfigurationFor(messageCollector).apply {
-                put(RETAIN_OUTPUT_IN_MEMORY, false)
-                put(OUTPUT_DIRECTORY, outputDirectory)
-                setModuleName(moduleName)
-                addScriptingCompilerComponents()
-                addScriptDefinition(scriptDef)
-                scriptFiles.forEach { addKotlinSourceRoot(it) }
-                classPath.forEach { addJvmClasspathRoot(it) }
-            }
+    kotlinCompilerContext.compiling(classPath) {
+        withRootDisposable {
+            withCompilationExceptionHandler(messageCollector) {
+                val configuration = compilerConfigurationFor(messageCollector).apply {
+                    put(RETAIN_OUTPUT_IN_MEMORY, false)
+                    put(OUTPUT_DIRECTORY, outputDirectory)
+                    setModuleName(moduleName)
+                    addScriptingCompilerComponents()
+                    addScriptDefinition(scriptDef)
+                    scriptFiles.forEach { addKotlinSourceRoot(it) }
+                    classPath.forEach { addJvmClasspathRoot(it) }
+                }
 
-            val environment = kotlinCoreEnvironmentFor(configuration).apply {
-                HasImplicitReceiverCompilerPlugin.apply(project)
-            }
+                val environment = kotlinCoreEnvironmentFor(configuration).apply {
+                    HasImplicitReceiverCompilerPlugin.apply(project)
+                }
 
-            compileBunchOfSources(environment)
-                || throw ScriptCompilationException(messageCollector.errors)
+                compileBunchOfSources(environment)
+                    || throw ScriptCompilationException(messageCollector.errors)
+            }
         }
     }
 }
@@ -212,22 +214,23 @@ fun compileToDirectory(
     sourceFiles: Iterable<File>,
     logger: Logger,
     classPath: Iterable<File>
-): Boolean {
-
-    withRootDisposable {
-        withMessageCollectorFor(logger) { messageCollector ->
-            val configuration = compilerConfigurationFor(messageCollector).apply {
-                addKotlinSourceRoots(sourceFiles.map { it.canonicalPath })
-                put(OUTPUT_DIRECTORY, outputDirectory)
-                setModuleName(moduleName)
-                classPath.forEach { addJvmClasspathRoot(it) }
-                addJvmClasspathRoot(kotlinStdlibJar)
+): Boolean =
+
+    kotlinCompilerContext.compiling(classPath + kotlinStdlibJar) {
+        withRootDisposable {
+            withMessageCollectorFor(logger) { messageCollector ->
+                val configuration = compilerConfigurationFor(messageCollector).apply {
+                    addKotlinSourceRoots(sourceFiles.map { it.canonicalPath })
+                    put(OUTPUT_DIRECTORY, outputDirectory)
+                    setModuleName(moduleName)
+                    classPath.forEach { addJvmClasspathRoot(it) }
+                    addJvmClasspathRoot(kotlinStdlibJar)
+                }
+                val environment = kotlinCoreEnvironmentFor(configuration)
+                compileBunchOfSources(environment)
             }
-            val environment = kotlinCoreEnvironmentFor(configuration)
-            return compileBunchOfSources(environment)
         }
     }
-}
 
 
 private
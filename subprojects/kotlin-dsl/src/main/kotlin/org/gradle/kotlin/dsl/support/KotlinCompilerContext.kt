@@ -0,0 +1,143 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.kotlin.dsl.support
+
+import org.gradle.internal.os.OperatingSystem
+
+import java.io.File
+import java.lang.management.ManagementFactory
+import java.lang.management.MemoryType
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.locks.ReentrantReadWriteLock
+
+import kotlin.concurrent.read
+import kotlin.concurrent.write
+
+
+/**
+ * The Kotlin compiler context shared by all script compilations of this process.
+ */
+internal
+val kotlinCompilerContext = KotlinCompilerContext(::tenuredHeapUsagePercent, ::disposeKotlinCompilerContext)
+
+
+/**
+ * Keeps the Kotlin compiler application environment alive across script compilations and builds,
+ * so that its components and the indexes of the classpath jars it has already read are reused.
+ *
+ * The environment is disposed before a compilation when a jar it has read has changed since,
+ * and, from [disposeIfHeapIsShort], once the projects of a build are evaluated if it holds on to heap the daemon needs.
+ */
+internal
+class KotlinCompilerContext(
+    private val heapUsagePercent: () -> Int,
+    private val disposeEnvironment: () -> Unit
+) {
+
+    companion object {
+
+        const val KEEP_WARM_PROPERTY = "org.gradle.kotlin.dsl.internal.keep-compiler-warm"
+
+        /**
+         * Whether the environment should be kept after the projects of a build are evaluated.
+         *
+         * Disabled by default on Windows, where the jars read by the environment stay locked while it is alive.
+         */
+        val keepWarm: Boolean
+            get() = System.getProperty(KEEP_WARM_PROPERTY)?.toBoolean() ?: !OperatingSystem.current().isWindows
+
+        /**
+         * The share of the tenured heap still in use after garbage collection above which the environment is not kept warm.
+         *
+         * Kept below the heap usage at which the daemon expires itself, so that the environment is released first.
+         */
+        const val MAX_HEAP_USAGE_PERCENT = 60
+    }
+
+    private
+    val lock = ReentrantReadWriteLock()
+
+    private
+    val readJars = ConcurrentHashMap<File, JarSnapshot>()
+
+    fun <T> compiling(classPath: Iterable<File>, action: () -> T): T {
+        val jars = classPath.filter { it.isFile }
+        if (jars.any(::hasChanged)) {
+            lock.write {
+                if (jars.any(::hasChanged)) {
+                    dispose()
+                }
+            }
+        }
+        return lock.read {
+            jars.forEach { readJars.putIfAbsent(it, JarSnapshot.of(it)) }
+            action()
+        }
+    }
+
+    fun disposeNow() {
+        lock.write {
+            dispose()
+        }
+    }
+
+    /**
+     * Disposes the environment when more than [MAX_HEAP_USAGE_PERCENT] of the tenured heap was still in use after the last garbage collection.
+     */
+    fun disposeIfHeapIsShort() {
+        if (heapUsagePercent() > MAX_HEAP_USAGE_PERCENT) {
+            disposeNow()
+        }
+    }
+
+    private
+    fun hasChanged(jar: File) =
+        readJars[jar]?.let { it != JarSnapshot.of(jar) } ?: false
+
+    private
+    fun dispose() {
+        disposeEnvironment()
+        readJars.clear()
+    }
+
+    private
+    data class JarSnapshot(val length: Long, val lastModified: Long) {
+        companion object {
+            fun of(jar: File) = JarSnapshot(jar.length(), jar.lastModified())
+        }
+    }
+}
+
+
+/**
+ * The names of the tenured heap pools of the garbage collectors the daemon knows how to monitor.
+ */
+private
+val tenuredHeapPoolNames = setOf("PS Old Gen", "CMS Old Gen", "Tenured Gen", "G1 Old Gen", "Java heap")
+
+
+/**
+ * The percentage of the tenured heap still in use after the last garbage collection, or `0` when it is unknown.
+ */
+internal
+fun tenuredHeapUsagePercent(): Int =
+    ManagementFactory.getMemoryPoolMXBeans()
+        .filter { it.type == MemoryType.HEAP && it.name in tenuredHeapPoolNames }
+        .mapNotNull { it.collectionUsage }
+        .filter { it.max > 0 }
+        .map { (it.used * 100 / it.max).toInt() }
+        .maxOrNull() ?: 0
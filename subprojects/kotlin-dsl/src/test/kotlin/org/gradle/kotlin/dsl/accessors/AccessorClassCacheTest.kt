@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.kotlin.dsl.accessors
+
+import org.gradle.api.Project
+import org.gradle.api.plugins.JavaPluginExtension
+import org.gradle.api.tasks.SourceSetContainer
+import org.gradle.cache.internal.TestCrossBuildInMemoryCacheFactory
+
+import org.hamcrest.CoreMatchers.not
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+
+class AccessorClassCacheTest {
+
+    private
+    val cache = AccessorClassCache(TestCrossBuildInMemoryCacheFactory())
+
+    private
+    val outputPackage = OutputPackage("org.gradle.kotlin.dsl")
+
+    @Test
+    fun `reuses emitted class of unchanged accessor`() {
+
+        val first = emit(configurationAccessor("api"))
+        val second = emit(configurationAccessor("api"))
+
+        assertThat(second, sameInstance(first))
+    }
+
+    @Test
+    fun `emits class of changed accessor`() {
+
+        val first = emit(configurationAccessor("api"))
+        val second = emit(configurationAccessor("api", "implementation"))
+        val third = emit(configurationAccessor("implementation"))
+
+        assertThat(second, not(sameInstance(first)))
+        assertThat(third, not(sameInstance(first)))
+    }
+
+    @Test
+    fun `emits class of accessor whose type changed`() {
+
+        val first = emit(extensionAccessor("java", SchemaType.of<JavaPluginExtension>()))
+        val second = emit(extensionAccessor("java", SchemaType.of<JavaPluginExtension>()))
+        val third = emit(extensionAccessor("java", SchemaType.of<SourceSetContainer>()))
+
+        assertThat(second, sameInstance(first))
+        assertThat(third, not(sameInstance(first)))
+    }
+
+    private
+    fun emit(accessor: Accessor) =
+        cache.getOrEmit(accessor, outputPackage, AccessorFormats.default, "test", true)
+
+    private
+    fun configurationAccessor(name: String, vararg alternatives: String) =
+        Accessor.ForConfiguration(ConfigurationEntry(AccessorNameSpec(name), alternatives.toList()))
+
+    private
+    fun extensionAccessor(name: String, type: SchemaType) =
+        Accessor.ForExtension(TypedAccessorSpec(TypeAccessibility.Accessible(SchemaType.of<Project>()), AccessorNameSpec(name), accessible(type)))
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.kotlin.dsl.support
+
+import org.gradle.kotlin.dsl.fixtures.TestWithTempFiles
+
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+
+class KotlinCompilerContextTest : TestWithTempFiles() {
+
+    private
+    var disposals = 0
+
+    private
+    var heapUsagePercent = 0
+
+    private
+    val context = KotlinCompilerContext({ heapUsagePercent }) { disposals++ }
+
+    @Test
+    fun `keeps environment across compilations with unchanged classpath`() {
+
+        val jar = newFile("lib.jar", "content")
+        val classesDir = newFolder("classes")
+
+        repeat(3) {
+            assertThat(
+                context.compiling(listOf(jar, classesDir)) { "compiled" },
+                equalTo("compiled")
+            )
+        }
+
+        assertThat(disposals, equalTo(0))
+    }
+
+    @Test
+    fun `disposes environment before compiling against a changed jar`() {
+
+        val jar = newFile("lib.jar", "content")
+        val otherJar = newFile("other.jar", "content")
+
+        context.compiling(listOf(jar)) {}
+        context.compiling(listOf(otherJar)) {}
+        assertThat(disposals, equalTo(0))
+
+        jar.writeText("changed content")
+        context.compiling(listOf(otherJar)) {}
+        assertThat(disposals, equalTo(0))
+
+        context.compiling(listOf(jar)) {}
+        assertThat(disposals, equalTo(1))
+
+        context.compiling(listOf(jar)) {}
+        assertThat(disposals, equalTo(1))
+    }
+
+    @Test
+    fun `disposes environment on request`() {
+
+        context.compiling(listOf(newFile("lib.jar", "content"))) {}
+        context.disposeNow()
+
+        assertThat(disposals, equalTo(1))
+    }
+
+    @Test
+    fun `does not dispose environment while heap is available`() {
+
+        heapUsagePercent = KotlinCompilerContext.MAX_HEAP_USAGE_PERCENT
+        context.compiling(listOf(newFile("lib.jar", "content"))) {}
+        context.disposeIfHeapIsShort()
+
+        assertThat(disposals, equalTo(0))
+    }
+
+    @Test
+    fun `disposes environment when heap is short`() {
+
+        heapUsagePercent = KotlinCompilerContext.MAX_HEAP_USAGE_PERCENT + 1
+        context.compiling(listOf(newFile("lib.jar", "content"))) {}
+        context.disposeIfHeapIsShort()
+
+        assertThat(disposals, equalTo(1))
+    }
+}
@@ -16,12 +16,12 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps;
 
-import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.ints.IntSets;
 import org.apache.commons.lang.StringUtils;
@@ -36,7 +36,10 @@
 import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.serialize.IntSetSerializer;
 
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
@@ -45,6 +48,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
@@ -63,41 +67,34 @@ public class ClassSetAnalysisData {
 
     /**
      * Merges the given class sets, applying classpath shadowing semantics. I.e. only the first occurrency of each class will be kept.
+     *
+     * The result is a view of the given class sets, which only merges the information about a class when that class is looked up.
+     * The class sets of classpath entries are shared by all compilations which use them, so the lookup indexes they build are reused as well.
      */
     public static ClassSetAnalysisData merge(List<ClassSetAnalysisData> datas) {
-        int classCount = 0;
-        int constantsCount = 0;
-        int dependentsCount = 0;
+        if (datas.size() == 1) {
+            return datas.get(0);
+        }
+        Map<String, List<ClassSetAnalysisData>> datasByPackage = new HashMap<>();
         for (ClassSetAnalysisData data : datas) {
-            classCount += data.classHashes.size();
-            constantsCount += data.classesToConstants.size();
-            dependentsCount += data.dependents.size();
+            for (String packageName : data.getIndex().packages) {
+                datasByPackage.computeIfAbsent(packageName, key -> new ArrayList<>(1)).add(data);
+            }
         }
-
-        Map<String, HashCode> classHashes = new HashMap<>(classCount);
-        Map<String, IntSet> classesToConstants = new HashMap<>(constantsCount);
-        Multimap<String, DependentsSet> dependents = ArrayListMultimap.create(dependentsCount, 10);
         String fullRebuildCause = null;
-
         for (ClassSetAnalysisData data : Lists.reverse(datas)) {
-            classHashes.putAll(data.classHashes);
-            classesToConstants.putAll(data.classesToConstants);
-            data.dependents.forEach(dependents::put);
             if (fullRebuildCause == null) {
                 fullRebuildCause = data.fullRebuildCause;
             }
         }
-        ImmutableMap.Builder<String, DependentsSet> mergedDependents = ImmutableMap.builderWithExpectedSize(dependents.size());
-        for (Map.Entry<String, Collection<DependentsSet>> entry : dependents.asMap().entrySet()) {
-            mergedDependents.put(entry.getKey(), DependentsSet.merge(entry.getValue()));
-        }
-        return new ClassSetAnalysisData(classHashes, mergedDependents.build(), classesToConstants, fullRebuildCause);
+        return new MergedClassSetAnalysisData(datas, datasByPackage, fullRebuildCause);
     }
 
     private final Map<String, HashCode> classHashes;
     private final Map<String, DependentsSet> dependents;
     private final Map<String, IntSet> classesToConstants;
     private final String fullRebuildCause;
+    private volatile ClassIndex index;
 
     public ClassSetAnalysisData() {
         this(Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), null);
@@ -122,34 +119,27 @@ public ClassSetAnalysisData reduceToTypesAffecting(ClassSetAnalysisData other, C
         if (fullRebuildCause != null) {
             return this;
         }
-        Set<String> usedClasses = new HashSet<>(classHashes.size());
-        for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
-            if (entry.getValue().isDependencyToAll()) {
-                usedClasses.add(entry.getKey());
-            }
-        }
-        for (String cls : classHashes.keySet()) {
+        Set<String> usedClasses = new HashSet<>(getDependencyToAllClasses());
+        for (String cls : getPackageAndModuleInfos()) {
             if (cls.endsWith(PACKAGE_INFO)) {
                 usedClasses.add(cls);
             }
         }
         usedClasses.addAll(other.dependents.keySet());
 
-        Multimap<String, String> dependencies = getForwardDependencyView();
-
         Set<String> visited = new HashSet<>(usedClasses.size());
         Deque<String> pending = new ArrayDeque<>(usedClasses);
         while (!pending.isEmpty()) {
             String cls = pending.poll();
             if (visited.add(cls)) {
                 usedClasses.add(cls);
-                pending.addAll(dependencies.get(cls));
+                pending.addAll(getDependencies(cls));
             }
         }
 
         Set<String> usedConstantSources = compilerApiData.isSupportsConstantsMapping()
             ? compilerApiData.getConstantToClassMapping().getConstantDependents().keySet()
-            : classesToConstants.keySet();
+            : getClassesWithConstants();
 
         usedClasses.addAll(usedConstantSources);
 
@@ -183,20 +173,37 @@ public ClassSetAnalysisData reduceToTypesAffecting(ClassSetAnalysisData other, C
     }
 
     /**
-     * Takes the reverse dependency view of this set and reverses it, so it turns into a forward dependency view.
-     * Excludes types that are dependencies to all others, these need to be handled separately by the caller.
+     * Returns the classes in this set which all other classes depend on.
      */
-    private Multimap<String, String> getForwardDependencyView() {
-        Multimap<String, String> dependencies = ArrayListMultimap.create(dependents.size(), 10);
-        for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
-            if (entry.getValue().isDependencyToAll()) {
-                continue;
-            }
-            for (String dependent : entry.getValue().getAccessibleDependentClasses()) {
-                dependencies.put(dependent, entry.getKey());
-            }
+    Set<String> getDependencyToAllClasses() {
+        return getIndex().dependencyToAllClasses;
+    }
+
+    /**
+     * Returns the package-info and module-info classes in this set.
+     */
+    Set<String> getPackageAndModuleInfos() {
+        return getIndex().packageAndModuleInfos;
+    }
+
+    /**
+     * Returns the classes the given class depends on, excluding the classes that all other classes depend on.
+     */
+    Collection<String> getDependencies(String className) {
+        return getIndex().dependencies.get(className);
+    }
+
+    Set<String> getClassesWithConstants() {
+        return classesToConstants.keySet();
+    }
+
+    private ClassIndex getIndex() {
+        ClassIndex index = this.index;
+        if (index == null) {
+            index = new ClassIndex(classHashes, dependents, classesToConstants);
+            this.index = index;
         }
-        return dependencies;
+        return index;
     }
 
     /**
@@ -215,16 +222,24 @@ public DependentsSet getChangedClassesSince(ClassSetAnalysisData other) {
         }
 
         ImmutableSet.Builder<String> changed = ImmutableSet.builder();
-        for (String added : Sets.difference(classHashes.keySet(), other.classHashes.keySet())) {
-            DependentsSet dependents = getDependents(added);
-            if (dependents.isDependencyToAll()) {
-                return dependents;
+        // Adding a class can only have an effect if all other classes depend on it, or if it is a package-info
+        for (String added : Iterables.concat(getDependencyToAllClasses(), getPackageAndModuleInfos())) {
+            if (!classHashes.containsKey(added) || other.classHashes.containsKey(added)) {
+                continue;
             }
             if (added.endsWith(PACKAGE_INFO)) {
                 changed.add(added);
+            } else {
+                DependentsSet dependents = getDependents(added);
+                if (dependents.isDependencyToAll()) {
+                    return dependents;
+                }
             }
         }
-        for (Map.Entry<String, HashCode> removedOrChanged : Sets.difference(other.classHashes.entrySet(), classHashes.entrySet())) {
+        for (Map.Entry<String, HashCode> removedOrChanged : other.classHashes.entrySet()) {
+            if (removedOrChanged.getValue().equals(classHashes.get(removedOrChanged.getKey()))) {
+                continue;
+            }
             DependentsSet dependents = getDependents(removedOrChanged.getKey());
             if (dependents.isDependencyToAll()) {
                 return dependents;
@@ -252,7 +267,7 @@ public DependentsSet getDependents(String className) {
         return dependentsSet == null ? DependentsSet.empty() : dependentsSet;
     }
 
-    private DependentsSet getDependentsOfPackage(String packageName) {
+    DependentsSet getDependentsOfPackage(@Nullable String packageName) {
         Set<String> typesInPackage = new HashSet<>();
         for (String type : classHashes.keySet()) {
             int i = type.lastIndexOf(".");
@@ -274,6 +289,192 @@ public IntSet getConstants(String className) {
         return integers;
     }
 
+    private static String packageOf(String className) {
+        int i = className.lastIndexOf(".");
+        return i < 0 ? "" : className.substring(0, i);
+    }
+
+    /**
+     * Lookup structures for a class set, which are built the first time they are needed.
+     */
+    private static final class ClassIndex {
+        private final Set<String> packages;
+        private final Set<String> dependencyToAllClasses;
+        private final Set<String> packageAndModuleInfos;
+        private final Multimap<String, String> dependencies;
+
+        ClassIndex(Map<String, HashCode> classHashes, Map<String, DependentsSet> dependents, Map<String, IntSet> classesToConstants) {
+            Set<String> packages = new HashSet<>();
+            ImmutableSet.Builder<String> packageAndModuleInfos = ImmutableSet.builder();
+            for (String cls : classHashes.keySet()) {
+                packages.add(packageOf(cls));
+                if (cls.equals(MODULE_INFO) || cls.endsWith(PACKAGE_INFO)) {
+                    packageAndModuleInfos.add(cls);
+                }
+            }
+            ImmutableSet.Builder<String> dependencyToAllClasses = ImmutableSet.builder();
+            // The reverse dependency view turned into a forward dependency view
+            ImmutableListMultimap.Builder<String, String> dependencies = ImmutableListMultimap.builder();
+            for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
+                packages.add(packageOf(entry.getKey()));
+                if (entry.getValue().isDependencyToAll()) {
+                    dependencyToAllClasses.add(entry.getKey());
+                    continue;
+                }
+                for (String dependent : entry.getValue().getAccessibleDependentClasses()) {
+                    packages.add(packageOf(dependent));
+                    dependencies.put(dependent, entry.getKey());
+                }
+            }
+            for (String cls : classesToConstants.keySet()) {
+                packages.add(packageOf(cls));
+            }
+            this.packages = ImmutableSet.copyOf(packages);
+            this.dependencyToAllClasses = dependencyToAllClasses.build();
+            this.packageAndModuleInfos = packageAndModuleInfos.build();
+            this.dependencies = dependencies.build();
+        }
+    }
+
+    /**
+     * A view of several class sets, which merges the information about a class when it is looked up.
+     * Only the class sets that contain the package of a class are consulted.
+     */
+    private static final class MergedClassSetAnalysisData extends ClassSetAnalysisData {
+        private final List<ClassSetAnalysisData> datas;
+        private final Map<String, List<ClassSetAnalysisData>> datasByPackage;
+        private Set<String> dependencyToAllClasses;
+        private Set<String> packageAndModuleInfos;
+        private Set<String> classesWithConstants;
+
+        MergedClassSetAnalysisData(List<ClassSetAnalysisData> datas, Map<String, List<ClassSetAnalysisData>> datasByPackage, @Nullable String fullRebuildCause) {
+            super(
+                new MergedMap<>(datasByPackage, data -> data.classHashes, values -> values.get(0)),
+                // Reverse the order to report the same dependency to all as an eager merge
+                new MergedMap<>(datasByPackage, data -> data.dependents, values -> DependentsSet.merge(Lists.reverse(values))),
+                new MergedMap<>(datasByPackage, data -> data.classesToConstants, values -> values.get(0)),
+                fullRebuildCause
+            );
+            this.datas = datas;
+            this.datasByPackage = datasByPackage;
+        }
+
+        @Override
+        Set<String> getDependencyToAllClasses() {
+            if (dependencyToAllClasses == null) {
+                dependencyToAllClasses = union(ClassSetAnalysisData::getDependencyToAllClasses);
+            }
+            return dependencyToAllClasses;
+        }
+
+        @Override
+        Set<String> getPackageAndModuleInfos() {
+            if (packageAndModuleInfos == null) {
+                packageAndModuleInfos = union(ClassSetAnalysisData::getPackageAndModuleInfos);
+            }
+            return packageAndModuleInfos;
+        }
+
+        @Override
+        Set<String> getClassesWithConstants() {
+            if (classesWithConstants == null) {
+                classesWithConstants = union(ClassSetAnalysisData::getClassesWithConstants);
+            }
+            return classesWithConstants;
+        }
+
+        @Override
+        Collection<String> getDependencies(String className) {
+            List<ClassSetAnalysisData> candidates = datasByPackage.getOrDefault(packageOf(className), Collections.emptyList());
+            if (candidates.size() == 1) {
+                return candidates.get(0).getDependencies(className);
+            }
+            Set<String> dependencies = new HashSet<>();
+            for (ClassSetAnalysisData data : candidates) {
+                dependencies.addAll(data.getDependencies(className));
+            }
+            return dependencies;
+        }
+
+        @Override
+        DependentsSet getDependentsOfPackage(@Nullable String packageName) {
+            Set<String> typesInPackage = new HashSet<>();
+            for (ClassSetAnalysisData data : datasByPackage.getOrDefault(packageName == null ? "" : packageName, Collections.emptyList())) {
+                typesInPackage.addAll(data.getDependentsOfPackage(packageName).getAccessibleDependentClasses());
+            }
+            return DependentsSet.dependentClasses(Collections.emptySet(), typesInPackage);
+        }
+
+        private Set<String> union(Function<ClassSetAnalysisData, Set<String>> setOf) {
+            Set<String> result = new HashSet<>();
+            for (ClassSetAnalysisData data : datas) {
+                result.addAll(setOf.apply(data));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A map that looks up keys in the maps of several class sets, combining the values found in classpath order.
+     * Iterating the map merges all keys, which is only expected to happen when the merged class set is written.
+     */
+    private static final class MergedMap<V> extends AbstractMap<String, V> {
+        private final Map<String, List<ClassSetAnalysisData>> datasByPackage;
+        private final Function<ClassSetAnalysisData, Map<String, V>> mapOf;
+        private final Function<List<V>, V> combiner;
+        private Map<String, V> merged;
+
+        MergedMap(Map<String, List<ClassSetAnalysisData>> datasByPackage, Function<ClassSetAnalysisData, Map<String, V>> mapOf, Function<List<V>, V> combiner) {
+            this.datasByPackage = datasByPackage;
+            this.mapOf = mapOf;
+            this.combiner = combiner;
+        }
+
+        @Override
+        public V get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            List<V> values = null;
+            for (ClassSetAnalysisData data : datasByPackage.getOrDefault(packageOf((String) key), Collections.emptyList())) {
+                V value = mapOf.apply(data).get(key);
+                if (value != null) {
+                    if (values == null) {
+                        values = new ArrayList<>(1);
+                    }
+                    values.add(value);
+                }
+            }
+            if (values == null) {
+                return null;
+            }
+            return values.size() == 1 ? values.get(0) : combiner.apply(values);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            if (merged == null) {
+                Map<String, V> merged = new HashMap<>();
+                for (List<ClassSetAnalysisData> datas : datasByPackage.values()) {
+                    for (ClassSetAnalysisData data : datas) {
+                        for (String key : mapOf.apply(data).keySet()) {
+                            if (!merged.containsKey(key)) {
+                                merged.put(key, get(key));
+                            }
+                        }
+                    }
+                }
+                this.merged = merged;
+            }
+            return merged.entrySet();
+        }
+    }
+
     public static class Serializer extends AbstractSerializer<ClassSetAnalysisData> {
 
         private final Supplier<HierarchicalNameSerializer> classNameSerializerSupplier;
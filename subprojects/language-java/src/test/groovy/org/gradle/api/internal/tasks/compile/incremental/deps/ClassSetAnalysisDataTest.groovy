@@ -0,0 +1,105 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.deps
+
+import it.unimi.dsi.fastutil.ints.IntSets
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.tasks.compile.incremental.compilerapi.CompilerApiData
+import org.gradle.api.internal.tasks.compile.incremental.serialization.HierarchicalNameSerializer
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.serialize.InputStreamBackedDecoder
+import org.gradle.internal.serialize.OutputStreamBackedEncoder
+import spock.lang.Specification
+
+import static org.gradle.api.internal.tasks.compile.incremental.compilerapi.deps.DependentsSet.dependentClasses
+import static org.gradle.api.internal.tasks.compile.incremental.compilerapi.deps.DependentsSet.dependencyToAll
+
+class ClassSetAnalysisDataTest extends Specification {
+
+    def first = new ClassSetAnalysisData(
+        ["a.A": TestHashCodes.hashCodeFrom(1), "a.B": TestHashCodes.hashCodeFrom(2)],
+        ["a.A": dependentClasses([] as Set, ["a.B"] as Set), "b.C": dependentClasses([] as Set, ["a.A"] as Set)],
+        ["a.A": IntSets.singleton(1)],
+        null
+    )
+    def second = new ClassSetAnalysisData(
+        ["a.A": TestHashCodes.hashCodeFrom(3), "b.C": TestHashCodes.hashCodeFrom(4), "b.D": TestHashCodes.hashCodeFrom(5)],
+        ["a.A": dependentClasses(["b.D"] as Set, [] as Set), "b.C": dependentClasses([] as Set, ["b.D"] as Set)],
+        ["a.A": IntSets.singleton(2)],
+        null
+    )
+
+    def "merged class sets keep the first occurrence of each class"() {
+        def merged = ClassSetAnalysisData.merge([first, second])
+        def previous = new ClassSetAnalysisData(["a.A": TestHashCodes.hashCodeFrom(1), "b.D": TestHashCodes.hashCodeFrom(6)], [:], [:], null)
+
+        expect:
+        merged.getConstants("a.A") == IntSets.singleton(1)
+        merged.getChangedClassesSince(previous).allDependentClasses == ["b.D"] as Set
+    }
+
+    def "merged class sets combine the dependents of each class"() {
+        def merged = ClassSetAnalysisData.merge([first, second])
+
+        expect:
+        merged.getDependents("a.A").privateDependentClasses == ["b.D"] as Set
+        merged.getDependents("a.A").accessibleDependentClasses == ["a.B"] as Set
+        merged.getDependents("b.C").accessibleDependentClasses == ["a.A", "b.D"] as Set
+        merged.getDependents("c.Unknown").isEmpty()
+    }
+
+    def "merged class sets know when an added class is a dependency to all"() {
+        def third = new ClassSetAnalysisData(["c.E": TestHashCodes.hashCodeFrom(7)], ["c.E": dependencyToAll("c.E is special")], [:], null)
+        def merged = ClassSetAnalysisData.merge([first, second, third])
+        def previous = new ClassSetAnalysisData(["a.A": TestHashCodes.hashCodeFrom(1)], [:], [:], null)
+
+        expect:
+        merged.getChangedClassesSince(previous).description == "c.E is special"
+    }
+
+    def "reduces merged class sets to the types affecting another set"() {
+        def merged = ClassSetAnalysisData.merge([first, second])
+        def output = new ClassSetAnalysisData([:], ["b.C": dependentClasses([] as Set, ["Main"] as Set)], [:], null)
+
+        when:
+        def reduced = merged.reduceToTypesAffecting(output, CompilerApiData.unavailable())
+
+        then:
+        reduced.getChangedClassesSince(new ClassSetAnalysisData()).allDependentClasses.isEmpty()
+        reduced.getDependents("b.C").accessibleDependentClasses == ["a.A"] as Set
+        reduced.getDependents("a.A").accessibleDependentClasses.isEmpty()
+        reduced.getConstants("a.A") == IntSets.singleton(1)
+        new ClassSetAnalysisData().getChangedClassesSince(reduced).allDependentClasses == ["a.A", "b.C"] as Set
+    }
+
+    def "merged class sets can be serialized"() {
+        def merged = ClassSetAnalysisData.merge([first, second])
+        def serializer = new ClassSetAnalysisData.Serializer({ new HierarchicalNameSerializer(new StringInterner()) })
+        def bytes = new ByteArrayOutputStream()
+        def encoder = new OutputStreamBackedEncoder(bytes)
+
+        when:
+        serializer.write(encoder, merged)
+        def read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(bytes.toByteArray())))
+
+        then:
+        read.getChangedClassesSince(merged).allDependentClasses.isEmpty()
+        merged.getChangedClassesSince(read).allDependentClasses.isEmpty()
+        read.getDependents("b.C").accessibleDependentClasses == ["a.A", "b.D"] as Set
+        read.getConstants("a.A") == IntSets.singleton(1)
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.hub;
+
+import org.gradle.api.Action;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.id.UUIDGenerator;
+import org.gradle.internal.remote.ConnectionAcceptor;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.internal.remote.internal.inet.InetAddressFactory;
+import org.gradle.internal.remote.internal.inet.TcpIncomingConnector;
+import org.gradle.internal.remote.internal.inet.TcpOutgoingConnector;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.DefaultSerializerRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures round trips of payloads of various sizes through a pair of {@link MessageHubBackedObjectConnection} instances connected over TCP.
+ */
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class MessageHubBenchmark {
+    @Param({"64", "4096", "65536", "1048576"})
+    int payloadSize;
+
+    private DefaultExecutorFactory executorFactory;
+    private ConnectionAcceptor acceptor;
+    private ObjectConnection serverConnection;
+    private ObjectConnection clientConnection;
+    private Payloads sender;
+    private byte[] payload;
+    private final SynchronousQueue<byte[]> replies = new SynchronousQueue<byte[]>();
+
+    @Setup
+    public void setup() throws InterruptedException {
+        payload = new byte[payloadSize];
+        new Random(42).nextBytes(payload);
+        executorFactory = new DefaultExecutorFactory();
+
+        final SynchronousQueue<ObjectConnection> accepted = new SynchronousQueue<ObjectConnection>();
+        MessageHubBackedServer server = new MessageHubBackedServer(new TcpIncomingConnector(executorFactory, new InetAddressFactory(), new UUIDGenerator()), executorFactory);
+        acceptor = server.accept(new Action<ObjectConnection>() {
+            @Override
+            public void execute(ObjectConnection connection) {
+                connection.useParameterSerializers(payloadSerializers());
+                final Payloads echo = connection.addOutgoing(Payloads.class);
+                connection.addIncoming(Payloads.class, new Payloads() {
+                    @Override
+                    public void payload(byte[] bytes) {
+                        echo.payload(bytes);
+                    }
+                });
+                connection.connect();
+                try {
+                    accepted.put(connection);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+
+        MessageHubBackedClient client = new MessageHubBackedClient(new TcpOutgoingConnector(), executorFactory);
+        clientConnection = client.getConnection(acceptor.getAddress());
+        clientConnection.useParameterSerializers(payloadSerializers());
+        sender = clientConnection.addOutgoing(Payloads.class);
+        clientConnection.addIncoming(Payloads.class, new Payloads() {
+            @Override
+            public void payload(byte[] bytes) {
+                try {
+                    replies.put(bytes);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        clientConnection.connect();
+        serverConnection = accepted.take();
+    }
+
+    @TearDown
+    public void tearDown() {
+        CompositeStoppable.stoppable(clientConnection, serverConnection, acceptor, executorFactory).stop();
+    }
+
+    @Benchmark
+    public byte[] roundTrip() throws InterruptedException {
+        sender.payload(payload);
+        return replies.take();
+    }
+
+    private static DefaultSerializerRegistry payloadSerializers() {
+        DefaultSerializerRegistry registry = new DefaultSerializerRegistry();
+        registry.register(byte[].class, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER);
+        return registry;
+    }
+
+    public interface Payloads {
+        void payload(byte[] bytes);
+    }
+}
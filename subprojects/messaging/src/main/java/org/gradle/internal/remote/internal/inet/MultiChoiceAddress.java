@@ -18,6 +18,8 @@
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.List;
@@ -27,15 +29,25 @@ public class MultiChoiceAddress implements InetEndpoint {
     private final UUID canonicalAddress;
     private final int port;
     private final List<InetAddress> candidates;
+    @Nullable
+    private final File socketFile;
 
     public MultiChoiceAddress(UUID canonicalAddress, int port, List<InetAddress> candidates) {
+        this(canonicalAddress, port, candidates, null);
+    }
+
+    public MultiChoiceAddress(UUID canonicalAddress, int port, List<InetAddress> candidates, @Nullable File socketFile) {
         this.canonicalAddress = canonicalAddress;
         this.port = port;
         this.candidates = new ArrayList<InetAddress>(candidates);
+        this.socketFile = socketFile;
     }
 
     @Override
     public String getDisplayName() {
+        if (socketFile != null) {
+            return "[" + canonicalAddress + " port:" + port + ", addresses:" + candidates + ", socket file:" + socketFile + "]";
+        }
         return "[" + canonicalAddress + " port:" + port + ", addresses:" + candidates + "]";
     }
 
@@ -53,6 +65,14 @@ public int getPort() {
         return port;
     }
 
+    /**
+     * Returns the Unix domain socket file that the endpoint also listens on, if any. Peers should use TCP when they cannot connect to this file.
+     */
+    @Nullable
+    public File getSocketFile() {
+        return socketFile;
+    }
+
     @Override
     public String toString() {
         return getDisplayName();
@@ -67,7 +87,8 @@ public boolean equals(Object o) {
             return false;
         }
         MultiChoiceAddress other = (MultiChoiceAddress) o;
-        return other.canonicalAddress.equals(canonicalAddress) && port == other.port && candidates.equals(other.candidates);
+        return other.canonicalAddress.equals(canonicalAddress) && port == other.port && candidates.equals(other.candidates)
+            && (socketFile == null ? other.socketFile == null : socketFile.equals(other.socketFile));
     }
 
     @Override
@@ -76,6 +97,6 @@ public int hashCode() {
     }
 
     public MultiChoiceAddress addAddresses(Iterable<InetAddress> candidates) {
-        return new MultiChoiceAddress(canonicalAddress, port, Lists.newArrayList(Iterables.concat(candidates, this.candidates)));
+        return new MultiChoiceAddress(canonicalAddress, port, Lists.newArrayList(Iterables.concat(candidates, this.candidates)), socketFile);
     }
 }
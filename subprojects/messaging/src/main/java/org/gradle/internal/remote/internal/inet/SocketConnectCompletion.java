@@ -21,22 +21,33 @@
 import org.gradle.internal.serialize.StatefulSerializer;
 import org.gradle.internal.remote.internal.ConnectCompletion;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.nio.channels.SocketChannel;
 
 class SocketConnectCompletion implements ConnectCompletion {
     private final SocketChannel socket;
+    private final File socketFile;
 
     public SocketConnectCompletion(SocketChannel socket) {
+        this(socket, null);
+    }
+
+    public SocketConnectCompletion(SocketChannel socket, @Nullable File socketFile) {
         this.socket = socket;
+        this.socketFile = socketFile;
     }
 
     @Override
     public String toString() {
+        if (socketFile != null) {
+            return "socket file " + socketFile;
+        }
         return socket.socket().getLocalSocketAddress() + " to " + socket.socket().getRemoteSocketAddress();
     }
 
     @Override
     public <T> RemoteConnection<T> create(StatefulSerializer<T> serializer) {
-        return new SocketConnection<T>(socket, new KryoBackedMessageSerializer(), serializer);
+        return new SocketConnection<T>(socket, socketFile, new KryoBackedMessageSerializer(), serializer);
     }
 }
@@ -20,6 +20,7 @@
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.io.BufferCaster;
+import org.gradle.internal.remote.Address;
 import org.gradle.internal.remote.internal.RecoverableMessageIOException;
 import org.gradle.internal.serialize.FlushableEncoder;
 import org.gradle.internal.serialize.ObjectReader;
@@ -31,6 +32,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.*;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
@@ -42,8 +44,8 @@
 public class SocketConnection<T> implements RemoteConnection<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(SocketConnection.class);
     private final SocketChannel socket;
-    private final SocketInetAddress localAddress;
-    private final SocketInetAddress remoteAddress;
+    private final Address localAddress;
+    private final Address remoteAddress;
     private final ObjectWriter<T> objectWriter;
     private final ObjectReader<T> objectReader;
     private final InputStream instr;
@@ -51,6 +53,13 @@
     private final FlushableEncoder encoder;
 
     public SocketConnection(SocketChannel socket, MessageSerializer streamSerializer, StatefulSerializer<T> messageSerializer) {
+        this(socket, null, streamSerializer, messageSerializer);
+    }
+
+    /**
+     * @param socketFile The Unix domain socket file the channel is connected through, or null for a TCP channel.
+     */
+    public SocketConnection(SocketChannel socket, @Nullable File socketFile, MessageSerializer streamSerializer, StatefulSerializer<T> messageSerializer) {
         this.socket = socket;
         try {
             // NOTE: we use non-blocking IO as there is no reliable way when using blocking IO to shutdown reads while
@@ -61,10 +70,15 @@ public SocketConnection(SocketChannel socket, MessageSerializer streamSerializer
         } catch (IOException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
-        InetSocketAddress localSocketAddress = (InetSocketAddress) socket.socket().getLocalSocketAddress();
-        localAddress = new SocketInetAddress(localSocketAddress.getAddress(), localSocketAddress.getPort());
-        InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
-        remoteAddress = new SocketInetAddress(remoteSocketAddress.getAddress(), remoteSocketAddress.getPort());
+        if (socketFile != null) {
+            localAddress = new SocketFileAddress(socketFile);
+            remoteAddress = localAddress;
+        } else {
+            InetSocketAddress localSocketAddress = (InetSocketAddress) socket.socket().getLocalSocketAddress();
+            localAddress = new SocketInetAddress(localSocketAddress.getAddress(), localSocketAddress.getPort());
+            InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
+            remoteAddress = new SocketInetAddress(remoteSocketAddress.getAddress(), remoteSocketAddress.getPort());
+        }
         objectReader = messageSerializer.newReader(streamSerializer.newDecoder(instr));
         encoder = streamSerializer.newEncoder(outstr);
         objectWriter = messageSerializer.newWriter(encoder);
@@ -151,6 +165,24 @@ public void close() throws IOException {
         }, instr, outstr, socket).stop();
     }
 
+    private static class SocketFileAddress implements Address {
+        private final File socketFile;
+
+        SocketFileAddress(File socketFile) {
+            this.socketFile = socketFile;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return socketFile.getPath();
+        }
+
+        @Override
+        public String toString() {
+            return getDisplayName();
+        }
+    }
+
     private static class SocketInputStream extends InputStream {
         private final Selector selector;
         private final ByteBuffer buffer;
@@ -171,7 +203,7 @@ public int read() throws IOException {
             if (nread <= 0) {
                 return nread;
             }
-            return readBuffer[0];
+            return readBuffer[0] & 0xff;
         }
 
         @Override
@@ -181,27 +213,13 @@ public int read(byte[] dest, int offset, int max) throws IOException {
             }
 
             if (buffer.remaining() == 0) {
-                try {
-                    selector.select();
-                } catch (ClosedSelectorException e) {
-                    return -1;
-                }
-                if (!selector.isOpen()) {
-                    return -1;
+                if (max >= buffer.capacity()) {
+                    // Large read, read straight into the destination rather than copying through the buffer
+                    return readFromChannel(ByteBuffer.wrap(dest, offset, max));
                 }
 
                 BufferCaster.cast(buffer).clear();
-                int nread;
-                try {
-                    nread = socket.read(buffer);
-                } catch (IOException e) {
-                    if (isEndOfStream(e)) {
-                        BufferCaster.cast(buffer).position(0);
-                        BufferCaster.cast(buffer).limit(0);
-                        return -1;
-                    }
-                    throw e;
-                }
+                int nread = readFromChannel(buffer);
                 BufferCaster.cast(buffer).flip();
 
                 if (nread < 0) {
@@ -214,6 +232,28 @@ public int read(byte[] dest, int offset, int max) throws IOException {
             return count;
         }
 
+        private int readFromChannel(ByteBuffer dest) throws IOException {
+            try {
+                selector.select();
+            } catch (ClosedSelectorException e) {
+                return -1;
+            }
+            if (!selector.isOpen()) {
+                return -1;
+            }
+
+            try {
+                return socket.read(dest);
+            } catch (IOException e) {
+                if (isEndOfStream(e)) {
+                    BufferCaster.cast(dest).position(0);
+                    BufferCaster.cast(dest).limit(0);
+                    return -1;
+                }
+                throw e;
+            }
+        }
+
         @Override
         public void close() throws IOException {
             selector.close();
@@ -225,11 +265,13 @@ private static class SocketOutputStream extends OutputStream {
         private Selector selector;
         private final SocketChannel socket;
         private final ByteBuffer buffer;
+        private final ByteBuffer[] singleBuffer;
         private final byte[] writeBuffer = new byte[1];
 
         public SocketOutputStream(SocketChannel socket) throws IOException {
             this.socket = socket;
             buffer = ByteBuffer.allocateDirect(32 * 1024);
+            singleBuffer = new ByteBuffer[]{buffer};
         }
 
         @Override
@@ -240,6 +282,10 @@ public void write(int b) throws IOException {
 
         @Override
         public void write(byte[] src, int offset, int max) throws IOException {
+            if (max >= buffer.capacity()) {
+                writeDirect(src, offset, max);
+                return;
+            }
             int remaining = max;
             int currentPos = offset;
             while (remaining > 0) {
@@ -262,21 +308,38 @@ public void flush() throws IOException {
             }
         }
 
+        /**
+         * Writes any buffered bytes followed by the given bytes using a gathering write, so that large payloads are not copied into the buffer first.
+         */
+        private void writeDirect(byte[] src, int offset, int max) throws IOException {
+            BufferCaster.cast(buffer).flip();
+            ByteBuffer payload = ByteBuffer.wrap(src, offset, max);
+            ByteBuffer[] buffers = new ByteBuffer[]{buffer, payload};
+            while (payload.hasRemaining()) {
+                writeToChannel(buffers);
+            }
+            buffer.compact();
+        }
+
         private void writeBufferToChannel() throws IOException {
             BufferCaster.cast(buffer).flip();
-            int count = writeWithNonBlockingRetry();
+            writeToChannel(singleBuffer);
+            buffer.compact();
+        }
+
+        private void writeToChannel(ByteBuffer[] buffers) throws IOException {
+            long count = writeWithNonBlockingRetry(buffers);
             if (count == 0) {
                 // buffer was still full after non-blocking retries, now block
                 waitForWriteBufferToDrain();
             }
-            buffer.compact();
         }
 
-        private int writeWithNonBlockingRetry() throws IOException {
-            int count = 0;
+        private long writeWithNonBlockingRetry(ByteBuffer[] buffers) throws IOException {
+            long count = 0;
             int retryCount = 0;
             while (count == 0 && retryCount++ < RETRIES_WHEN_BUFFER_FULL) {
-                count = socket.write(buffer);
+                count = socket.write(buffers);
                 if (count < 0) {
                     throw new EOFException();
                 } else if (count == 0) {
@@ -29,6 +29,10 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.channels.ClosedChannelException;
@@ -63,12 +67,17 @@ public ConnectionAcceptor accept(Action<ConnectCompletion> action, boolean allow
         }
 
         UUID id = idGenerator.generateId();
+        final File socketFile = allowRemote || !UnixDomainSockets.isEnabled() ? null : UnixDomainSockets.socketFileFor(id.toString());
+        final ServerSocketChannel socketFileServer = socketFile == null ? null : bindSocketFile(socketFile);
         List<InetAddress> addresses = Collections.singletonList(addressFactory.getLocalBindingAddress());
-        final Address address = new MultiChoiceAddress(id, localPort, addresses);
+        final Address address = new MultiChoiceAddress(id, localPort, addresses, socketFileServer == null ? null : socketFile);
         LOGGER.debug("Listening on {}.", address);
 
         final ManagedExecutor executor = executorFactory.create("Incoming " + (allowRemote ? "remote" : "local")+ " TCP Connector on port " + localPort);
-        executor.execute(new Receiver(serverSocket, action, allowRemote));
+        executor.execute(new Receiver(serverSocket, null, action, allowRemote));
+        if (socketFileServer != null) {
+            executor.execute(new Receiver(socketFileServer, socketFile, action, allowRemote));
+        }
 
         return new ConnectionAcceptor() {
             @Override
@@ -78,7 +87,7 @@ public Address getAddress() {
 
             @Override
             public void requestStop() {
-                CompositeStoppable.stoppable(serverSocket).stop();
+                CompositeStoppable.stoppable(serverSocket, socketFileServer, deleteOnClose(socketFile)).stop();
             }
 
             @Override
@@ -89,13 +98,38 @@ public void stop() {
         };
     }
 
+    @Nullable
+    private static ServerSocketChannel bindSocketFile(File socketFile) {
+        try {
+            return UnixDomainSockets.bind(socketFile);
+        } catch (IOException e) {
+            LOGGER.debug("Cannot listen on socket file {}, using TCP only.", socketFile, e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Closeable deleteOnClose(@Nullable final File socketFile) {
+        if (socketFile == null) {
+            return null;
+        }
+        return new Closeable() {
+            @Override
+            public void close() {
+                socketFile.delete();
+            }
+        };
+    }
+
     private class Receiver implements Runnable {
         private final ServerSocketChannel serverSocket;
+        private final File socketFile;
         private final Action<ConnectCompletion> action;
         private final boolean allowRemote;
 
-        public Receiver(ServerSocketChannel serverSocket, Action<ConnectCompletion> action, boolean allowRemote) {
+        public Receiver(ServerSocketChannel serverSocket, @Nullable File socketFile, Action<ConnectCompletion> action, boolean allowRemote) {
             this.serverSocket = serverSocket;
+            this.socketFile = socketFile;
             this.action = action;
             this.allowRemote = allowRemote;
         }
@@ -106,16 +140,21 @@ public void run() {
                 try {
                     while (true) {
                         final SocketChannel socket = serverSocket.accept();
-                        InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
-                        InetAddress remoteInetAddress = remoteSocketAddress.getAddress();
-                        if (!allowRemote && !addressFactory.isCommunicationAddress(remoteInetAddress)) {
-                            LOGGER.error("Cannot accept connection from remote address {}.", remoteInetAddress);
-                            socket.close();
-                            continue;
+                        if (socketFile != null) {
+                            // Only processes on this machine can connect to a socket file
+                            LOGGER.debug("Accepted connection on socket file {}.", socketFile);
+                        } else {
+                            InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
+                            InetAddress remoteInetAddress = remoteSocketAddress.getAddress();
+                            if (!allowRemote && !addressFactory.isCommunicationAddress(remoteInetAddress)) {
+                                LOGGER.error("Cannot accept connection from remote address {}.", remoteInetAddress);
+                                socket.close();
+                                continue;
+                            }
+                            LOGGER.debug("Accepted connection from {} to {}.", socket.socket().getRemoteSocketAddress(), socket.socket().getLocalSocketAddress());
                         }
-                        LOGGER.debug("Accepted connection from {} to {}.", socket.socket().getRemoteSocketAddress(), socket.socket().getLocalSocketAddress());
                         try {
-                            action.execute(new SocketConnectCompletion(socket));
+                            action.execute(new SocketConnectCompletion(socket, socketFile));
                         } catch (Throwable t) {
                             socket.close();
                             throw t;
@@ -127,7 +166,7 @@ public void run() {
                     LOGGER.error("Could not accept remote connection.", e);
                 }
             } finally {
-                CompositeStoppable.stoppable(serverSocket).stop();
+                CompositeStoppable.stoppable(serverSocket, deleteOnClose(socketFile)).stop();
             }
         }
 
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.internal.UncheckedException;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Access to Unix domain socket channels, which are available from Java 16. The JDK types are accessed reflectively so that this class can be loaded on any Java version.
+ */
+class UnixDomainSockets {
+    /**
+     * When set to true, local connectors also listen on a socket file and advertise it in their address. Peers connect using the socket file when their JVM supports it, and use TCP otherwise.
+     */
+    static final String ENABLED_PROPERTY = "org.gradle.internal.remote.unix-domain-sockets";
+
+    @Nullable
+    private static final ProtocolFamily UNIX = unixProtocolFamily();
+    @Nullable
+    private static final Method ADDRESS_OF = UNIX == null ? null : method("java.net.UnixDomainSocketAddress", "of", String.class);
+    @Nullable
+    private static final Method OPEN_SERVER_CHANNEL = UNIX == null ? null : method(ServerSocketChannel.class.getName(), "open", ProtocolFamily.class);
+    @Nullable
+    private static final Method OPEN_CHANNEL = UNIX == null ? null : method(SocketChannel.class.getName(), "open", ProtocolFamily.class);
+
+    private UnixDomainSockets() {
+    }
+
+    static boolean isSupported() {
+        return ADDRESS_OF != null && OPEN_SERVER_CHANNEL != null && OPEN_CHANNEL != null;
+    }
+
+    static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY) && isSupported();
+    }
+
+    static File socketFileFor(String id) {
+        return new File(System.getProperty("java.io.tmpdir"), "gradle-" + id + ".sock");
+    }
+
+    static ServerSocketChannel bind(File socketFile) throws IOException {
+        ServerSocketChannel serverSocket = (ServerSocketChannel) invoke(OPEN_SERVER_CHANNEL, UNIX);
+        try {
+            serverSocket.bind(addressOf(socketFile));
+        } catch (IOException e) {
+            serverSocket.close();
+            throw e;
+        }
+        return serverSocket;
+    }
+
+    static SocketChannel connect(File socketFile) throws IOException {
+        SocketChannel socketChannel = (SocketChannel) invoke(OPEN_CHANNEL, UNIX);
+        try {
+            socketChannel.connect(addressOf(socketFile));
+        } catch (IOException e) {
+            socketChannel.close();
+            throw e;
+        }
+        return socketChannel;
+    }
+
+    private static SocketAddress addressOf(File socketFile) throws IOException {
+        return (SocketAddress) invoke(ADDRESS_OF, socketFile.getPath());
+    }
+
+    private static Object invoke(Method method, Object arg) throws IOException {
+        try {
+            return method.invoke(null, arg);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Nullable
+    private static ProtocolFamily unixProtocolFamily() {
+        try {
+            return StandardProtocolFamily.valueOf("UNIX");
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Method method(String className, String name, Class<?> parameterType) {
+        try {
+            return Class.forName(className).getMethod(name, parameterType);
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
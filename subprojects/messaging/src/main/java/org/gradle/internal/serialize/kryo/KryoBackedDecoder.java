@@ -34,6 +34,7 @@ public class KryoBackedDecoder extends AbstractDecoder implements Decoder, Close
     private final Input input;
     private InputStream inputStream;
     private long extraSkipped;
+    private long extraRead;
     private KryoBackedDecoder nested;
 
     public KryoBackedDecoder(InputStream inputStream) {
@@ -49,6 +50,7 @@ public void restart(InputStream inputStream) {
         this.inputStream = inputStream;
         input.setInputStream(inputStream);
         extraSkipped = 0;
+        extraRead = 0;
     }
 
     @Override
@@ -94,12 +96,36 @@ public byte readByte() throws EOFException {
     @Override
     public void readBytes(byte[] buffer, int offset, int count) throws EOFException {
         try {
-            input.readBytes(buffer, offset, count);
+            if (count < input.getBuffer().length) {
+                input.readBytes(buffer, offset, count);
+                return;
+            }
+            // Large read, take what is already buffered and then read the rest straight from the stream rather than copying it through the buffer
+            int buffered = input.limit() - input.position();
+            input.readBytes(buffer, offset, buffered);
+            readFromStream(buffer, offset + buffered, count - buffered);
         } catch (KryoException e) {
             throw maybeEndOfStream(e);
         }
     }
 
+    private void readFromStream(byte[] buffer, int offset, int count) throws EOFException {
+        int remaining = count;
+        while (remaining > 0) {
+            int nread;
+            try {
+                nread = inputStream.read(buffer, offset + count - remaining, remaining);
+            } catch (IOException e) {
+                throw new KryoException(e);
+            }
+            if (nread < 0) {
+                throw new EOFException();
+            }
+            remaining -= nread;
+        }
+        extraRead += count;
+    }
+
     @Override
     public long readLong() throws EOFException {
         try {
@@ -215,7 +241,7 @@ public int read(byte[] buffer, int offset, int length) throws IOException {
      * Returns the total number of bytes consumed by this decoder. Some additional bytes may also be buffered by this decoder but have not been consumed.
      */
     public long getReadPosition() {
-        return input.total() + extraSkipped;
+        return input.total() + extraSkipped + extraRead;
     }
 
     @Override
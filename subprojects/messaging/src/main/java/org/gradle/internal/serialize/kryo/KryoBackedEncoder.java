@@ -16,6 +16,7 @@
 
 package org.gradle.internal.serialize.kryo;
 
+import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.io.Output;
 import org.gradle.internal.serialize.AbstractEncoder;
 import org.gradle.internal.serialize.Encoder;
@@ -28,6 +29,7 @@
 
 public class KryoBackedEncoder extends AbstractEncoder implements FlushableEncoder, Closeable {
     private final Output output;
+    private long extraWritten;
     private KryoBackedEncoder nested;
 
     public KryoBackedEncoder(OutputStream outputStream) {
@@ -45,7 +47,22 @@ public void writeByte(byte value) {
 
     @Override
     public void writeBytes(byte[] bytes, int offset, int count) {
-        output.writeBytes(bytes, offset, count);
+        byte[] buffer = output.getBuffer();
+        if (count < buffer.length) {
+            output.writeBytes(bytes, offset, count);
+            return;
+        }
+        // Large write, hand the bytes straight to the stream rather than copying them through the buffer
+        int buffered = output.position();
+        try {
+            OutputStream outputStream = output.getOutputStream();
+            outputStream.write(buffer, 0, buffered);
+            outputStream.write(bytes, offset, count);
+        } catch (IOException e) {
+            throw new KryoException(e);
+        }
+        output.setPosition(0);
+        extraWritten += buffered + count;
     }
 
     @Override
@@ -119,7 +136,7 @@ public void write(int b) {
      * Returns the total number of bytes written by this encoder, some of which may still be buffered.
      */
     public long getWritePosition() {
-        return output.total();
+        return output.total() + extraWritten;
     }
 
     @Override
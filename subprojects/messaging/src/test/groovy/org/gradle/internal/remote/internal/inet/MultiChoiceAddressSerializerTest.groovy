@@ -24,4 +24,11 @@ class MultiChoiceAddressSerializerTest extends SerializerSpec {
         expect:
         serialize(address, new MultiChoiceAddressSerializer()) == address
     }
+
+    def "serializes an address with a socket file"() {
+        def address = new MultiChoiceAddress(UUID.randomUUID(), 1234, [InetAddress.getByName(null)], new File("gradle.sock"))
+
+        expect:
+        serialize(address, new MultiChoiceAddressSerializer()) == address
+    }
 }
@@ -27,6 +27,7 @@ import org.gradle.internal.serialize.Serializer
 import org.gradle.internal.serialize.Serializers
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import org.gradle.util.Requires
+import org.gradle.util.SetSystemProperties
 import org.gradle.util.TestPrecondition
 import org.gradle.util.ports.ReleasingPortAllocator
 import org.junit.Rule
@@ -45,6 +46,8 @@ class TcpConnectorTest extends ConcurrentSpec {
     final def incomingConnector = new TcpIncomingConnector(executorFactory, addressFactory, idGenerator)
     @Rule
     public ReleasingPortAllocator portAllocator = new ReleasingPortAllocator()
+    @Rule
+    public SetSystemProperties systemProperties = new SetSystemProperties()
 
     def "client can connect to server"() {
         Action action = Mock()
@@ -76,6 +79,44 @@ class TcpConnectorTest extends ConcurrentSpec {
         connection?.stop()
     }
 
+    @Requires(TestPrecondition.JDK16_OR_LATER)
+    def "client connects to server using socket file when enabled"() {
+        Action action = Mock()
+        System.setProperty(UnixDomainSockets.ENABLED_PROPERTY, "true")
+
+        when:
+        def acceptor = incomingConnector.accept(action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+
+        then:
+        acceptor.address.socketFile.exists()
+        connection.toString().contains(acceptor.address.socketFile.path)
+
+        when:
+        acceptor.stop()
+
+        then:
+        !acceptor.address.socketFile.exists()
+
+        cleanup:
+        acceptor?.stop()
+        connection?.stop()
+    }
+
+    def "does not listen on socket file for remote connections"() {
+        Action action = Mock()
+        System.setProperty(UnixDomainSockets.ENABLED_PROPERTY, "true")
+
+        when:
+        def acceptor = incomingConnector.accept(action, true)
+
+        then:
+        acceptor.address.socketFile == null
+
+        cleanup:
+        acceptor?.stop()
+    }
+
     def "server executes action when incoming connection received"() {
         Action action = Mock()
 
@@ -156,7 +156,7 @@ class KryoBackedCodecTest extends AbstractCodecTest {
 
         then:
         encoder.writePosition == 4108
-        outstr.size() == 4106
+        outstr.size() == 4108
 
         when:
         encoder.close()
@@ -189,4 +189,39 @@ class KryoBackedCodecTest extends AbstractCodecTest {
         instr.available() == 0
         decoder.readPosition == 4108
     }
+
+    def "writes and reads large byte arrays directly to and from the stream"() {
+        def outstr = new ByteArrayOutputStream()
+        def encoder = new KryoBackedEncoder(outstr, 16)
+        def large = (0..<100).collect { it as byte } as byte[]
+
+        when:
+        encoder.writeInt(12)
+        encoder.writeBytes(large)
+        encoder.writeInt(13)
+
+        then:
+        encoder.writePosition == 108
+        outstr.size() == 104
+
+        when:
+        encoder.flush()
+        def instr = new ByteArrayInputStream(outstr.toByteArray())
+        def decoder = new KryoBackedDecoder(instr, 16)
+        def result = new byte[100]
+
+        then:
+        decoder.readInt() == 12
+        decoder.readPosition == 4
+
+        when:
+        decoder.readBytes(result)
+
+        then:
+        result == large
+        decoder.readPosition == 104
+        instr.available() == 4
+        decoder.readInt() == 13
+        decoder.readPosition == 108
+    }
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.fingerprint.hashing.FileSystemLocationSnapshotHasher;
+import org.gradle.internal.fingerprint.hashing.RegularFileSnapshotContext;
+import org.gradle.internal.fingerprint.hashing.RegularFileSnapshotContextHasher;
+import org.gradle.internal.fingerprint.hashing.ZipEntryContext;
+import org.gradle.internal.fingerprint.hashing.ZipEntryContextHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Measures computing the ABI hash of a jar in which a single class changed, with and without caching the ABI hashes of its class entries.
+ */
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class AbiHashingBenchmark {
+    @Param({"100", "1000", "5000"})
+    int classCount;
+
+    private File tempDir;
+    private RegularFileSnapshotContext changedJar;
+    private Map<HashCode, HashCode> warmCache;
+    private InMemoryResourceSnapshotterCacheService cacheService;
+    private ZipHasher uncachedHasher;
+    private ZipHasher cachingHasher;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        tempDir = Files.createTempDirectory("abi-hashing").toFile();
+        File originalJar = writeJar(new File(tempDir, "original.jar"), -1);
+        File changedJarFile = writeJar(new File(tempDir, "changed.jar"), classCount / 2);
+
+        uncachedHasher = new ZipHasher(AbiExtractingClasspathResourceHasher.DEFAULT);
+        cacheService = new InMemoryResourceSnapshotterCacheService();
+        cachingHasher = new ZipHasher(new CachingResourceHasher(AbiExtractingClasspathResourceHasher.DEFAULT, cacheService));
+
+        cachingHasher.hash(snapshotContext(originalJar));
+        warmCache = new HashMap<>(cacheService.entries);
+        changedJar = snapshotContext(changedJarFile);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetCache() {
+        cacheService.entries.clear();
+        cacheService.entries.putAll(warmCache);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = tempDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tempDir.delete();
+    }
+
+    @Benchmark
+    public HashCode hashWithoutEntryCache() {
+        return uncachedHasher.hash(changedJar);
+    }
+
+    @Benchmark
+    public HashCode hashWithEntryCache() {
+        return cachingHasher.hash(changedJar);
+    }
+
+    private File writeJar(File jarFile, int changedClass) throws IOException {
+        try (ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(jarFile))) {
+            for (int i = 0; i < classCount; i++) {
+                String className = "org/gradle/generated/Class" + i;
+                outputStream.putNextEntry(new ZipEntry(className + ".class"));
+                outputStream.write(generateClass(className, i == changedClass ? 2 : 1));
+                outputStream.closeEntry();
+            }
+        }
+        return jarFile;
+    }
+
+    private static byte[] generateClass(String className, int version) {
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null);
+        classWriter.visitField(Opcodes.ACC_PRIVATE, "state", "I", null, null).visitEnd();
+        // Enough methods for the class to be larger than the entries which are not worth caching
+        for (int method = 0; method < 50; method++) {
+            generateMethod(classWriter, Opcodes.ACC_PUBLIC, "publicMethod" + method + "_" + version);
+            generateMethod(classWriter, Opcodes.ACC_PRIVATE, "privateMethod" + method);
+        }
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    private static void generateMethod(ClassWriter classWriter, int access, String name) {
+        MethodVisitor methodVisitor = classWriter.visitMethod(access, name, "(I)I", null, null);
+        methodVisitor.visitCode();
+        methodVisitor.visitVarInsn(Opcodes.ILOAD, 1);
+        methodVisitor.visitInsn(Opcodes.ICONST_1);
+        methodVisitor.visitInsn(Opcodes.IADD);
+        methodVisitor.visitInsn(Opcodes.IRETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+    }
+
+    private static RegularFileSnapshotContext snapshotContext(File file) throws IOException {
+        HashCode contentHash = Hashing.hashBytes(Files.readAllBytes(file.toPath()));
+        RegularFileSnapshot snapshot = new RegularFileSnapshot(file.getAbsolutePath(), file.getName(), contentHash, DefaultFileMetadata.file(file.lastModified(), file.length(), FileMetadata.AccessType.DIRECT));
+        return new DefaultRegularFileSnapshotContext(() -> new String[]{file.getName()}, snapshot);
+    }
+
+    private static class InMemoryResourceSnapshotterCacheService implements ResourceSnapshotterCacheService {
+        private final Map<HashCode, HashCode> entries = new HashMap<>();
+
+        @Nullable
+        @Override
+        public HashCode hashFile(FileSystemLocationSnapshot snapshot, FileSystemLocationSnapshotHasher hasher, HashCode configurationHash) throws IOException {
+            return hasher.hash(snapshot);
+        }
+
+        @Nullable
+        @Override
+        public HashCode hashFile(RegularFileSnapshotContext fileSnapshotContext, RegularFileSnapshotContextHasher hasher, HashCode configurationHash) throws IOException {
+            return hasher.hash(fileSnapshotContext);
+        }
+
+        @Nullable
+        @Override
+        public HashCode hashZipEntry(ZipEntryContext zipEntryContext, ZipEntryContextHasher hasher, HashCode configurationHash) throws IOException {
+            Hasher keyHasher = Hashing.newHasher();
+            keyHasher.putHash(Hashing.hashBytes(zipEntryContext.getEntry().getContent()));
+            keyHasher.putHash(configurationHash);
+            HashCode key = keyHasher.hash();
+            if (entries.containsKey(key)) {
+                return entries.get(key);
+            }
+            HashCode hash = hasher.hash(zipEntryContext);
+            entries.put(key, hash);
+            return hash;
+        }
+    }
+}
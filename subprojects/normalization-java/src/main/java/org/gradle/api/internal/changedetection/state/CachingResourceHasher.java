@@ -29,10 +29,13 @@
 
 /**
  * Caches the result of hashing regular files with a {@link ResourceHasher}.
- * It does not cache the result of hashing {@link ZipEntry}s.
+ * It caches the result of hashing class file {@link ZipEntry}s by their content hash, so only the entries that changed in a jar are hashed again.
+ * Small class files are cheaper to hash again than to look up, so they are not cached.
  * It also caches the absence of a hash.
  */
 public class CachingResourceHasher implements ResourceHasher {
+    private static final int MIN_CACHED_ENTRY_SIZE = 4 * 1024;
+
     private final ResourceHasher delegate;
     private final ResourceSnapshotterCacheService resourceSnapshotterCacheService;
     private final HashCode delegateConfigurationHash;
@@ -51,9 +54,15 @@ public HashCode hash(RegularFileSnapshotContext fileSnapshotContext) throws IOEx
         return resourceSnapshotterCacheService.hashFile(fileSnapshotContext, delegate, delegateConfigurationHash);
     }
 
+    @Nullable
     @Override
     public HashCode hash(ZipEntryContext zipEntryContext) throws IOException {
-        return delegate.hash(zipEntryContext);
+        ZipEntry entry = zipEntryContext.getEntry();
+        if (!entry.getName().endsWith(".class") || (entry.size() >= 0 && entry.size() < MIN_CACHED_ENTRY_SIZE)) {
+            return delegate.hash(zipEntryContext);
+        }
+        ZipEntryContext contentCachingContext = new DefaultZipEntryContext(new CachingZipEntry(entry), zipEntryContext.getFullName(), zipEntryContext.getRootParentName());
+        return resourceSnapshotterCacheService.hashZipEntry(contentCachingContext, delegate, delegateConfigurationHash);
     }
 
     @Override
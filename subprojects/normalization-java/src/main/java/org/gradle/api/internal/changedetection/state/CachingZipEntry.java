@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.file.archive.ZipEntry;
+import org.gradle.internal.io.IoFunction;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link ZipEntry} that keeps its content in memory once read, so that it can be read more than once.
+ */
+class CachingZipEntry implements ZipEntry {
+    private final ZipEntry delegate;
+    private byte[] content;
+
+    public CachingZipEntry(ZipEntry delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return delegate.isDirectory();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public byte[] getContent() throws IOException {
+        if (content == null) {
+            content = delegate.getContent();
+        }
+        return content;
+    }
+
+    @Override
+    public <T> T withInputStream(IoFunction<InputStream, T> action) throws IOException {
+        return action.apply(new ByteArrayInputStream(getContent()));
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public long getCrc() {
+        return delegate.getCrc();
+    }
+
+    @Override
+    public boolean canReopen() {
+        return true;
+    }
+
+    @Override
+    public ZipCompressionMethod getCompressionMethod() {
+        return delegate.getCompressionMethod();
+    }
+}
@@ -22,15 +22,12 @@
 import org.gradle.internal.fingerprint.hashing.ZipEntryContext;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.Hasher;
-import org.gradle.internal.io.IoFunction;
 import org.gradle.internal.io.IoSupplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Optional;
 import java.util.function.Supplier;
 
@@ -118,51 +115,4 @@ private static Optional<ZipEntryContext> withFallbackSafety(ZipEntryContext zipE
      * @return An Optional containing the hash, or an empty Optional if fallback should be triggered
      */
     abstract Optional<HashCode> tryHash(ZipEntryContext zipEntryContext);
-
-    private static class CachingZipEntry implements ZipEntry {
-        private final ZipEntry delegate;
-        private byte[] content;
-
-        public CachingZipEntry(ZipEntry delegate) {
-            this.delegate = delegate;
-        }
-
-        @Override
-        public boolean isDirectory() {
-            return delegate.isDirectory();
-        }
-
-        @Override
-        public String getName() {
-            return delegate.getName();
-        }
-
-        @Override
-        public byte[] getContent() throws IOException {
-            if (content == null) {
-                content = delegate.getContent();
-            }
-            return content;
-        }
-
-        @Override
-        public <T> T withInputStream(IoFunction<InputStream, T> action) throws IOException {
-            return action.apply(new ByteArrayInputStream(getContent()));
-        }
-
-        @Override
-        public int size() {
-            return delegate.size();
-        }
-
-        @Override
-        public boolean canReopen() {
-            return true;
-        }
-
-        @Override
-        public ZipCompressionMethod getCompressionMethod() {
-            return delegate.getCompressionMethod();
-        }
-    }
 }
@@ -31,8 +31,22 @@
  * Hashes contents of resources files and {@link ZipEntry}s) in runtime classpath entries.
  *
  * Currently, we take the unmodified content into account but we could be smarter at some point.
+ *
+ * When using recorded checksums, {@link ZipEntry}s are hashed by the CRC-32 checksum and size recorded in the archive's directory instead of by reading and inflating their content.
+ * This is much faster for large archives, at the cost of detecting changes with a 32-bit checksum instead of a full content hash.
  */
 public class RuntimeClasspathResourceHasher implements ResourceHasher {
+    public static final String USE_RECORDED_CHECKSUMS_PROPERTY = "org.gradle.internal.classpath.use-recorded-checksums";
+
+    private final boolean useRecordedChecksums;
+
+    public RuntimeClasspathResourceHasher() {
+        this(false);
+    }
+
+    public RuntimeClasspathResourceHasher(boolean useRecordedChecksums) {
+        this.useRecordedChecksums = useRecordedChecksums;
+    }
 
     @Nullable
     @Override
@@ -42,11 +56,25 @@ public HashCode hash(RegularFileSnapshotContext fileSnapshotContext) {
 
     @Override
     public HashCode hash(ZipEntryContext zipEntryContext) throws IOException {
-        return zipEntryContext.getEntry().withInputStream(Hashing::hashStream);
+        ZipEntry entry = zipEntryContext.getEntry();
+        if (useRecordedChecksums) {
+            long crc = entry.getCrc();
+            int size = entry.size();
+            if (crc != -1 && size >= 0) {
+                Hasher hasher = Hashing.newHasher();
+                hasher.putLong(crc);
+                hasher.putInt(size);
+                return hasher.hash();
+            }
+        }
+        return entry.withInputStream(Hashing::hashStream);
     }
 
     @Override
     public void appendConfigurationToHasher(Hasher hasher) {
         hasher.putString(getClass().getName());
+        if (useRecordedChecksums) {
+            hasher.putString("recorded-checksums");
+        }
     }
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import org.apache.commons.io.FilenameUtils;
@@ -42,15 +43,25 @@
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 public class ZipHasher implements RegularFileSnapshotContextHasher, ConfigurableNormalizer {
 
     private static final Set<String> KNOWN_ZIP_EXTENSIONS = ImmutableSet.of("zip", "jar", "war", "rar", "ear", "apk", "aar");
     private static final Logger LOGGER = LoggerFactory.getLogger(ZipHasher.class);
     private static final HashCode EMPTY_HASH_MARKER = Hashing.signature(ZipHasher.class);
+    /**
+     * Archives at least this large are hashed in parallel across their entries when they can be read with random access.
+     */
+    private static final long DEFAULT_PARALLEL_HASHING_THRESHOLD = 16 * 1024 * 1024;
+    private static final int ENTRIES_PER_BATCH = 256;
 
     public static boolean isZipFile(final String name) {
         return KNOWN_ZIP_EXTENSIONS.contains(FilenameUtils.getExtension(name).toLowerCase(Locale.ROOT));
@@ -58,17 +69,39 @@ public static boolean isZipFile(final String name) {
 
     private final ResourceHasher resourceHasher;
     private final HashingExceptionReporter hashingExceptionReporter;
+    @Nullable
+    private final Executor executor;
+    private final long parallelHashingThreshold;
 
     public ZipHasher(ResourceHasher resourceHasher) {
+        this(resourceHasher, (Executor) null);
+    }
+
+    public ZipHasher(ResourceHasher resourceHasher, @Nullable Executor executor) {
         this(
             resourceHasher,
-            (s, e) -> LOGGER.debug("Malformed archive '{}'. Falling back to full content hash instead of entry hashing.", s.getName(), e)
+            (s, e) -> LOGGER.debug("Malformed archive '{}'. Falling back to full content hash instead of entry hashing.", s.getName(), e),
+            executor
         );
     }
 
     public ZipHasher(ResourceHasher resourceHasher, HashingExceptionReporter hashingExceptionReporter) {
+        this(resourceHasher, hashingExceptionReporter, null);
+    }
+
+    /**
+     * Creates a hasher which hashes the entries of large archives on the given executor, or sequentially when there is no executor.
+     */
+    public ZipHasher(ResourceHasher resourceHasher, HashingExceptionReporter hashingExceptionReporter, @Nullable Executor executor) {
+        this(resourceHasher, hashingExceptionReporter, executor, DEFAULT_PARALLEL_HASHING_THRESHOLD);
+    }
+
+    @VisibleForTesting
+    ZipHasher(ResourceHasher resourceHasher, HashingExceptionReporter hashingExceptionReporter, @Nullable Executor executor, long parallelHashingThreshold) {
         this.resourceHasher = resourceHasher;
         this.hashingExceptionReporter = hashingExceptionReporter;
+        this.executor = executor;
+        this.parallelHashingThreshold = parallelHashingThreshold;
     }
 
     @Nullable
@@ -100,9 +133,14 @@ private HashCode hashZipContents(RegularFileSnapshot zipFileSnapshot) {
     }
 
     private List<FileSystemLocationFingerprint> fingerprintZipEntries(String zipFile) throws IOException {
-        try (ZipInput input = FileZipInput.create(new File(zipFile))) {
+        File file = new File(zipFile);
+        try (ZipInput input = FileZipInput.create(file)) {
             List<FileSystemLocationFingerprint> fingerprints = Lists.newArrayList();
-            fingerprintZipEntries("", zipFile, fingerprints, input);
+            if (executor != null && input instanceof FileZipInput && file.length() >= parallelHashingThreshold) {
+                fingerprintZipEntriesInParallel(zipFile, fingerprints, input, executor);
+            } else {
+                fingerprintZipEntries("", zipFile, fingerprints, input);
+            }
             return fingerprints;
         }
     }
@@ -113,16 +151,82 @@ private void fingerprintZipEntries(String parentName, String rootParentName, Lis
             if (zipEntry.isDirectory()) {
                 continue;
             }
-            String fullName = parentName.isEmpty() ? zipEntry.getName() : parentName + "/" + zipEntry.getName();
-            ZipEntryContext zipEntryContext = new DefaultZipEntryContext(zipEntry, fullName, rootParentName);
-            if (isZipFile(zipEntry.getName())) {
-                zipEntryContext.getEntry().withInputStream(inputStream -> {
-                    fingerprintZipEntries(fullName, rootParentName, fingerprints, new StreamZipInput(inputStream));
-                    return null;
-                });
-            } else {
-                fingerprintZipEntry(zipEntryContext, fingerprints);
+            fingerprintZipEntry(parentName, rootParentName, zipEntry, fingerprints);
+        }
+    }
+
+    /**
+     * Hashes the entries of an archive read with random access in batches on the given executor.
+     * The calling thread hashes any batch which has not been picked up yet, so the work completes even when the executor is saturated.
+     * Nested archives are still hashed sequentially, each by the thread that reached it.
+     */
+    private void fingerprintZipEntriesInParallel(String rootParentName, List<FileSystemLocationFingerprint> fingerprints, ZipInput input, Executor executor) throws IOException {
+        fingerprints.add(newZipMarker(""));
+        List<ZipEntry> zipEntries = Lists.newArrayList();
+        for (ZipEntry zipEntry : input) {
+            if (!zipEntry.isDirectory()) {
+                zipEntries.add(zipEntry);
+            }
+        }
+        List<FutureTask<List<FileSystemLocationFingerprint>>> batches = Lists.newArrayList();
+        for (List<ZipEntry> batch : Lists.partition(zipEntries, ENTRIES_PER_BATCH)) {
+            batches.add(new FutureTask<>(() -> {
+                List<FileSystemLocationFingerprint> batchFingerprints = Lists.newArrayListWithCapacity(batch.size());
+                for (ZipEntry zipEntry : batch) {
+                    fingerprintZipEntry("", rootParentName, zipEntry, batchFingerprints);
+                }
+                return batchFingerprints;
+            }));
+        }
+        try {
+            if (batches.size() > 1) {
+                try {
+                    batches.forEach(executor::execute);
+                } catch (RejectedExecutionException e) {
+                    // The remaining batches are hashed by this thread below
+                }
+            }
+            for (FutureTask<List<FileSystemLocationFingerprint>> batch : batches) {
+                batch.run();
+                fingerprints.addAll(getBatchFingerprints(batch));
             }
+        } finally {
+            // The archive is closed once we return, so don't let the executor start any batch after a failure
+            batches.forEach(batch -> batch.cancel(false));
+        }
+    }
+
+    private static List<FileSystemLocationFingerprint> getBatchFingerprints(FutureTask<List<FileSystemLocationFingerprint>> batch) throws IOException {
+        try {
+            return batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while hashing archive entries");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private void fingerprintZipEntry(String parentName, String rootParentName, ZipEntry zipEntry, List<FileSystemLocationFingerprint> fingerprints) throws IOException {
+        String fullName = parentName.isEmpty() ? zipEntry.getName() : parentName + "/" + zipEntry.getName();
+        ZipEntryContext zipEntryContext = new DefaultZipEntryContext(zipEntry, fullName, rootParentName);
+        if (isZipFile(zipEntry.getName())) {
+            zipEntryContext.getEntry().withInputStream(inputStream -> {
+                fingerprintZipEntries(fullName, rootParentName, fingerprints, new StreamZipInput(inputStream));
+                return null;
+            });
+        } else {
+            fingerprintZipEntry(zipEntryContext, fingerprints);
         }
     }
 
@@ -20,6 +20,9 @@ import org.gradle.api.internal.file.archive.ZipEntry
 import org.gradle.internal.file.FileMetadata.AccessType
 import org.gradle.internal.file.impl.DefaultFileMetadata
 import org.gradle.internal.fingerprint.hashing.ResourceHasher
+import org.gradle.internal.fingerprint.hashing.ZipEntryContext
+import org.gradle.internal.fingerprint.hashing.ZipEntryContextHasher
+import org.gradle.internal.hash.HashCode
 import org.gradle.internal.hash.TestHashCodes
 import org.gradle.internal.snapshot.RegularFileSnapshot
 import spock.lang.Specification
@@ -42,15 +45,58 @@ class CachingResourceHasherTest extends Specification {
         0 * _
     }
 
-    def "does not cache zip entries"() {
+    def "uses cache service for class file zip entries"() {
         def expectedHash = TestHashCodes.hashCodeFrom(123)
+        def content = [1, 2, 3] as byte[]
         def zipEntry = Mock(ZipEntry)
-        def zipEntryContext = new DefaultZipEntryContext(zipEntry, "foo", "foo.zip")
+        def zipEntryContext = new DefaultZipEntryContext(zipEntry, "Foo.class", "foo.zip")
 
         when:
         def actualHash = cachingHasher.hash(zipEntryContext)
 
         then:
+        _ * zipEntry.name >> "Foo.class"
+        _ * zipEntry.size() >> 8 * 1024
+        1 * zipEntry.content >> content
+        1 * snapshotterCacheService.hashZipEntry(_, delegate, _) >> { ZipEntryContext context, ZipEntryContextHasher hasher, HashCode configurationHash ->
+            // The content is read from the archive once, and can be read again to hash the entry
+            assert context.entry.content == content
+            assert context.entry.content == content
+            assert context.fullName == "Foo.class"
+            expectedHash
+        }
+        0 * _
+
+        actualHash == expectedHash
+    }
+
+    def "does not cache small class file zip entries"() {
+        def expectedHash = TestHashCodes.hashCodeFrom(123)
+        def zipEntry = Mock(ZipEntry)
+        def zipEntryContext = new DefaultZipEntryContext(zipEntry, "Foo.class", "foo.zip")
+
+        when:
+        def actualHash = cachingHasher.hash(zipEntryContext)
+
+        then:
+        _ * zipEntry.name >> "Foo.class"
+        _ * zipEntry.size() >> 512
+        1 * delegate.hash(zipEntryContext) >> expectedHash
+        0 * _
+
+        actualHash == expectedHash
+    }
+
+    def "does not cache other zip entries"() {
+        def expectedHash = TestHashCodes.hashCodeFrom(123)
+        def zipEntry = Mock(ZipEntry)
+        def zipEntryContext = new DefaultZipEntryContext(zipEntry, "foo.txt", "foo.zip")
+
+        when:
+        def actualHash = cachingHasher.hash(zipEntryContext)
+
+        then:
+        _ * zipEntry.name >> "foo.txt"
         1 * delegate.hash(zipEntryContext) >> expectedHash
         0 * _
 
@@ -60,6 +106,7 @@ class CachingResourceHasherTest extends Specification {
         actualHash = cachingHasher.hash(zipEntryContext)
 
         then:
+        _ * zipEntry.name >> "foo.txt"
         1 * delegate.hash(zipEntryContext) >> expectedHash
         0 * _
 
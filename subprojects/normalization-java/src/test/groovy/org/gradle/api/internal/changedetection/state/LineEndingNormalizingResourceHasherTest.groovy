@@ -217,6 +217,11 @@ class LineEndingNormalizingResourceHasherTest extends Specification {
                 return file.bytes.length
             }
 
+            @Override
+            long getCrc() {
+                return -1
+            }
+
             @Override
             boolean canReopen() {
                 return !unsafe
@@ -17,11 +17,16 @@
 package org.gradle.api.internal.changedetection.state
 
 import com.google.common.collect.ImmutableSet
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
 import org.gradle.internal.file.FileMetadata.AccessType
 import org.gradle.internal.file.impl.DefaultFileMetadata
 import org.gradle.internal.fingerprint.hashing.RegularFileSnapshotContext
 import org.gradle.internal.fingerprint.hashing.ResourceHasher
+import org.gradle.internal.fingerprint.hashing.ZipEntryContext
 import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.Hasher
 import org.gradle.internal.snapshot.RegularFileSnapshot
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -32,6 +37,8 @@ import java.util.jar.Attributes
 import java.util.jar.JarEntry
 import java.util.jar.JarOutputStream
 import java.util.jar.Manifest
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
 
 class ZipHasherTest extends Specification {
 
@@ -42,6 +49,12 @@ class ZipHasherTest extends Specification {
     ResourceEntryFilter propertyResourceFilter = new IgnoringResourceEntryFilter(ImmutableSet.copyOf("created-by", "पशुपतिरपि"))
     ZipHasher zipHasher = new ZipHasher(resourceHasher(ResourceEntryFilter.FILTER_NOTHING, ResourceEntryFilter.FILTER_NOTHING))
     ZipHasher ignoringZipHasher = new ZipHasher(resourceHasher(manifestResourceFilter, propertyResourceFilter))
+    def executorFactory = new DefaultExecutorFactory()
+    ManagedExecutor executor = executorFactory.create("Zip hashing", 4)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
 
     static ResourceHasher resourceHasher(ResourceEntryFilter manifestResourceFilter, ResourceEntryFilter propertyResourceFilter) {
         ResourceHasher hasher = new RuntimeClasspathResourceHasher()
@@ -148,6 +161,80 @@ class ZipHasherTest extends Specification {
         hash1 == hash2
     }
 
+    def "hashes entries by recorded checksums when enabled"() {
+        given:
+        def recordedChecksumsZipHasher = new ZipHasher(new RuntimeClasspathResourceHasher(true))
+        def jarfile = tmpDir.file("test.jar")
+        createJarWithEntry(jarfile, "foo.txt", "foo", ZipEntry.DEFLATED)
+        def storedJarfile = tmpDir.file("stored.jar")
+        createJarWithEntry(storedJarfile, "foo.txt", "foo", ZipEntry.STORED)
+        def changedJarfile = tmpDir.file("changed.jar")
+        createJarWithEntry(changedJarfile, "foo.txt", "bar", ZipEntry.DEFLATED)
+
+        def hash = recordedChecksumsZipHasher.hash(snapshotContext(jarfile))
+
+        expect:
+        hash == recordedChecksumsZipHasher.hash(snapshotContext(storedJarfile))
+        hash != recordedChecksumsZipHasher.hash(snapshotContext(changedJarfile))
+        hash != new ZipHasher(new RuntimeClasspathResourceHasher()).hash(snapshotContext(jarfile))
+    }
+
+    def "hashing entries in parallel produces the same hash as hashing them sequentially"() {
+        given:
+        def content = tmpDir.createDir("content")
+        (1..1000).each { content.file("org/gradle/Class${it}.class") << "class ${it}" }
+        content.file("META-INF/build-info.properties") << "foo=bar"
+        def innerContent = tmpDir.createDir("inner")
+        innerContent.file("inner.txt") << "inner"
+        innerContent.zipTo(content.file("lib/inner.jar"))
+        def jarfile = tmpDir.file("test.jar")
+        content.zipTo(jarfile)
+        def hasher = resourceHasher(ResourceEntryFilter.FILTER_NOTHING, ResourceEntryFilter.FILTER_NOTHING)
+
+        def sequentialHash = new ZipHasher(hasher).hash(snapshotContext(jarfile))
+        def parallelHash = new ZipHasher(hasher, { s, e -> throw e }, executor, 0).hash(snapshotContext(jarfile))
+
+        expect:
+        sequentialHash != null
+        parallelHash == sequentialHash
+    }
+
+    def "failure to read an entry while hashing in parallel falls back to the file hash"() {
+        given:
+        def content = tmpDir.createDir("content")
+        (1..1000).each { content.file("org/gradle/Class${it}.class") << "class ${it}" }
+        def jarfile = tmpDir.file("test.jar")
+        content.zipTo(jarfile)
+        def failure = new IOException("Broken entry")
+        def reporter = Mock(ZipHasher.HashingExceptionReporter)
+        def failingHasher = new ResourceHasher() {
+            @Override
+            HashCode hash(RegularFileSnapshotContext snapshotContext) {
+                throw new UnsupportedOperationException()
+            }
+
+            @Override
+            HashCode hash(ZipEntryContext zipEntryContext) throws IOException {
+                if (zipEntryContext.entry.name == "org/gradle/Class500.class") {
+                    throw failure
+                }
+                return TestHashCodes.hashCodeFrom(1)
+            }
+
+            @Override
+            void appendConfigurationToHasher(Hasher hasher) {
+            }
+        }
+        def context = snapshotContext(jarfile)
+
+        when:
+        def hash = new ZipHasher(failingHasher, reporter, executor, 0).hash(context)
+
+        then:
+        hash == context.snapshot.hash
+        1 * reporter.report(context.snapshot, failure)
+    }
+
     def createJarWithAttributes(TestFile jarfile, Map<String, String> attributes) {
         def manifest = new Manifest()
         def mainAttributes = manifest.getMainAttributes()
@@ -175,6 +262,22 @@ class ZipHasherTest extends Specification {
         jarOutput.close()
     }
 
+    def createJarWithEntry(TestFile jarfile, String name, String content, int method) {
+        def bytes = content.bytes
+        def jarOutput = new JarOutputStream(jarfile.newOutputStream())
+        def jarEntry = new JarEntry(name)
+        jarEntry.method = method
+        if (method == ZipEntry.STORED) {
+            def crc = new CRC32()
+            crc.update(bytes)
+            jarEntry.crc = crc.value
+            jarEntry.size = bytes.length
+        }
+        jarOutput.putNextEntry(jarEntry)
+        jarOutput.write(bytes)
+        jarOutput.close()
+    }
+
     private static RegularFileSnapshotContext snapshotContext(TestFile file) {
         return new DefaultRegularFileSnapshotContext({ }, new RegularFileSnapshot(file.path, file.name, TestHashCodes.hashCodeFrom(0), DefaultFileMetadata.file(0, 0, AccessType.DIRECT)))
     }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance.experiment.java
+
+import org.gradle.performance.AbstractCrossBuildPerformanceTest
+import org.gradle.performance.annotations.RunFor
+import org.gradle.performance.annotations.Scenario
+import org.gradle.performance.fixture.GradleBuildExperimentSpec
+
+import static org.gradle.performance.annotations.ScenarioType.PER_WEEK
+import static org.gradle.performance.results.OperatingSystem.LINUX
+
+/**
+ * Measures the startup of compiler daemons with and without class data sharing archives. Builds run without a daemon, so that each build starts
+ * fresh compiler daemons. The Java versions covered are the ones the performance builds run with.
+ */
+@RunFor(
+    @Scenario(type = PER_WEEK, operatingSystems = [LINUX], testProjects = ["largeGroovyMultiProject"])
+)
+class WorkerClassDataSharingPerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    def "clean compileGroovy with class data sharing archives"() {
+        given:
+        runner.testGroup = "worker startup"
+        runner.buildSpec {
+            displayName("class data sharing")
+            invocation {
+                args("-Dorg.gradle.internal.worker.class-data-sharing=true")
+            }
+        }
+        runner.baseline {
+            displayName("no class data sharing")
+            invocation {
+                args("-Dorg.gradle.internal.worker.class-data-sharing=false")
+            }
+        }
+
+        when:
+        def results = runner.run()
+
+        then:
+        results
+    }
+
+    @Override
+    protected void defaultSpec(GradleBuildExperimentSpec.GradleBuilder builder) {
+        super.defaultSpec(builder)
+        builder.warmUpCount = 2
+        builder.invocationCount = 5
+        builder.invocation {
+            tasksToRun("clean", "compileGroovy")
+            useDaemon(false)
+        }
+    }
+}
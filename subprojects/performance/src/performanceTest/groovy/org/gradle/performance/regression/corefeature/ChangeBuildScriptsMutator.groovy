@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance.regression.corefeature
+
+import org.gradle.profiler.BuildContext
+import org.gradle.profiler.BuildMutator
+import org.gradle.profiler.InvocationSettings
+
+/**
+ * Changes every build script with the given name before each build, so that all of them are compiled again by the daemon.
+ */
+class ChangeBuildScriptsMutator implements BuildMutator {
+    private final List<File> buildScripts
+
+    ChangeBuildScriptsMutator(InvocationSettings settings, String buildScriptName) {
+        buildScripts = []
+        settings.projectDir.eachFileRecurse { file ->
+            if (file.name == buildScriptName) {
+                buildScripts << file
+            }
+        }
+    }
+
+    @Override
+    void beforeBuild(BuildContext context) {
+        buildScripts.each { buildScript ->
+            buildScript << "\n// ${context.uniqueBuildId}\n"
+        }
+    }
+}
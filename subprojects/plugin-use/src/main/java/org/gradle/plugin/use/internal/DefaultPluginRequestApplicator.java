@@ -184,7 +184,7 @@ private void defineScriptHandlerClassScope(ScriptHandlerInternal scriptHandler,
     }
 
     private void exportBuildLogicClassPathTo(ClassLoaderScope classLoaderScope, ClassPath classPath) {
-        ClassPath cachedClassPath = cachedClasspathTransformer.transform(classPath, BuildLogic);
+        ClassPath cachedClassPath = cachedClasspathTransformer.transformForClassLoader(classPath, BuildLogic);
         classLoaderScope.export(cachedClassPath);
     }
 
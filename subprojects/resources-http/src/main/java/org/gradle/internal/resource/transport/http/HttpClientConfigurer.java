@@ -47,6 +47,7 @@
 import org.apache.http.impl.auth.DigestSchemeFactory;
 import org.apache.http.impl.auth.KerberosSchemeFactory;
 import org.apache.http.impl.auth.SPNegoSchemeFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.SystemDefaultCredentialsProvider;
 import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
@@ -82,12 +83,12 @@
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.concurrent.TimeUnit;
 
 public class HttpClientConfigurer {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientConfigurer.class);
     private static final String HTTPS_PROTOCOLS = "https.protocols";
-    private static final int MAX_HTTP_CONNECTIONS = 20;
+    public static final String MAX_HTTP_CONNECTIONS_PROPERTY = "org.gradle.internal.http.maxConnections";
+    private static final int DEFAULT_MAX_HTTP_CONNECTIONS = 20;
 
     /**
      * Determines the HTTPS protocols to support for the client.
@@ -128,10 +129,12 @@ static Collection<String> supportedTlsVersions() {
     }
 
     private final String[] sslProtocols;
+    private final int maxHttpConnections;
     private final HttpSettings httpSettings;
 
     public HttpClientConfigurer(HttpSettings httpSettings) {
         this.sslProtocols = determineHttpsProtocols();
+        this.maxHttpConnections = Integer.getInteger(MAX_HTTP_CONNECTIONS_PROPERTY, DEFAULT_MAX_HTTP_CONNECTIONS);
         this.httpSettings = httpSettings;
     }
 
@@ -146,10 +149,10 @@ public void configure(HttpClientBuilder builder) {
         configureRequestConfig(builder);
         configureSocketConfig(builder);
         configureRedirectStrategy(builder);
+        configureKeepAliveStrategy(builder);
         builder.setDefaultCredentialsProvider(credentialsProvider);
-        builder.setMaxConnTotal(MAX_HTTP_CONNECTIONS);
-        builder.setMaxConnPerRoute(MAX_HTTP_CONNECTIONS);
-        builder.setConnectionTimeToLive(httpSettings.getTimeoutSettings().getIdleConnectionTimeoutMs(), TimeUnit.MILLISECONDS);
+        builder.setMaxConnTotal(maxHttpConnections);
+        builder.setMaxConnPerRoute(maxHttpConnections);
     }
 
     private void configureSslSocketConnectionFactory(HttpClientBuilder builder, SslContextFactory sslContextFactory, HostnameVerifier hostnameVerifier) {
@@ -299,6 +302,19 @@ private void configureSocketConfig(HttpClientBuilder builder) {
         builder.setDefaultSocketConfig(SocketConfig.custom().setSoTimeout(timeoutSettings.getSocketTimeoutMs()).setSoKeepAlive(true).build());
     }
 
+    /**
+     * Keeps a pooled connection for at most the idle connection timeout after its last use, or less when the server asks for it.
+     *
+     * Connections in use are not closed after a fixed time to live, so that a busy client does not have to set up new connections, and do new TLS handshakes, all the time.
+     */
+    private void configureKeepAliveStrategy(HttpClientBuilder builder) {
+        long idleConnectionTimeoutMs = httpSettings.getTimeoutSettings().getIdleConnectionTimeoutMs();
+        builder.setKeepAliveStrategy((response, context) -> {
+            long keepAliveMs = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAliveMs > 0 ? Math.min(keepAliveMs, idleConnectionTimeoutMs) : idleConnectionTimeoutMs;
+        });
+    }
+
     private void configureRedirectStrategy(HttpClientBuilder builder) {
         if (httpSettings.getMaxRedirects() > 0) {
             builder.setRedirectStrategy(new RedirectVerifyingStrategyDecorator(getBaseRedirectStrategy(), httpSettings.getRedirectVerifier()));
@@ -15,16 +15,26 @@
  */
 package org.gradle.internal.resource.transport.http
 
+import org.apache.http.HttpResponse
+import org.apache.http.HttpVersion
 import org.apache.http.auth.AuthScope
 import org.apache.http.impl.client.HttpClientBuilder
+import org.apache.http.message.BasicHttpResponse
+import org.apache.http.protocol.BasicHttpContext
+import org.apache.http.protocol.HTTP
 import org.apache.http.ssl.SSLContexts
 import org.gradle.api.credentials.PasswordCredentials
 import org.gradle.internal.authentication.AllSchemesAuthentication
 import org.gradle.internal.credentials.DefaultHttpHeaderCredentials
 import org.gradle.internal.resource.UriTextResource
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
 import spock.lang.Specification
 
 class HttpClientConfigurerTest extends Specification {
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+
     public static final String REMOTE_HOST = "host"
     public static final int SOME_PORT = 1234
     public static final String PROXY_HOST = "proxy"
@@ -157,4 +167,41 @@ class HttpClientConfigurerTest extends Specification {
         httpClientBuilder.defaultRequestConfig.socketTimeout == 30000
         httpClientBuilder.defaultSocketConfig.soKeepAlive
     }
+
+    def "keeps idle connections alive for at most the idle connection timeout"() {
+        httpSettings.authenticationSettings >> []
+        httpSettings.sslContextFactory >> sslContextFactory
+        timeoutSettings.idleConnectionTimeoutMs >> 60000
+
+        when:
+        configurer.configure(httpClientBuilder)
+
+        then:
+        def keepAliveStrategy = httpClientBuilder.keepAliveStrategy
+        keepAliveStrategy.getKeepAliveDuration(response(), new BasicHttpContext()) == 60000
+        keepAliveStrategy.getKeepAliveDuration(response("timeout=10"), new BasicHttpContext()) == 10000
+        keepAliveStrategy.getKeepAliveDuration(response("timeout=600"), new BasicHttpContext()) == 60000
+        httpClientBuilder.connTimeToLive == -1
+    }
+
+    def "configures maximum number of connections"() {
+        httpSettings.authenticationSettings >> []
+        httpSettings.sslContextFactory >> sslContextFactory
+        System.setProperty(HttpClientConfigurer.MAX_HTTP_CONNECTIONS_PROPERTY, "64")
+
+        when:
+        new HttpClientConfigurer(httpSettings).configure(httpClientBuilder)
+
+        then:
+        httpClientBuilder.maxConnTotal == 64
+        httpClientBuilder.maxConnPerRoute == 64
+    }
+
+    private static HttpResponse response(String keepAlive = null) {
+        def response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK")
+        if (keepAlive != null) {
+            response.addHeader(HTTP.CONN_KEEP_ALIVE, keepAlive)
+        }
+        return response
+    }
 }
@@ -33,6 +33,7 @@
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 import org.gradle.util.internal.CollectionUtils;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
@@ -51,8 +52,11 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final ModuleRegistry moduleRegistry;
     private final Lock lock = new ReentrantLock();
     private final WorkerThreadRegistry workerThreadRegistry;
+    private final TestWorkerClientsManager workerClientsManager;
+    private final TestWorkerKey workerKey;
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
+    private TestWorkerClient workerClient;
     private TestResultProcessor resultProcessor;
     private WorkerLeaseRegistry.WorkerLeaseCompletion completion;
     private final DocumentationRegistry documentationRegistry;
@@ -63,6 +67,20 @@ public ForkingTestClassProcessor(
         Iterable<File> classPath, Iterable<File> modulePath, List<String> testWorkerImplementationModules,
         Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry
     ) {
+        this(workerThreadRegistry, workerFactory, processorFactory, options, classPath, modulePath, testWorkerImplementationModules, buildConfigAction, moduleRegistry, documentationRegistry, null, null);
+    }
+
+    /**
+     * Creates a processor that runs its tests in a worker reserved from the given manager when a worker key is provided.
+     */
+    public ForkingTestClassProcessor(
+        WorkerThreadRegistry workerThreadRegistry, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options,
+        Iterable<File> classPath, Iterable<File> modulePath, List<String> testWorkerImplementationModules,
+        Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry,
+        @Nullable TestWorkerClientsManager workerClientsManager, @Nullable TestWorkerKey workerKey
+    ) {
+        this.workerClientsManager = workerClientsManager;
+        this.workerKey = workerKey;
         this.workerThreadRegistry = workerThreadRegistry;
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
@@ -91,7 +109,7 @@ public void processTestClass(TestClassRunInfo testClass) {
             if (remoteProcessor == null) {
                 completion = workerThreadRegistry.startWorker();
                 try {
-                    remoteProcessor = forkProcess();
+                    remoteProcessor = workerClientsManager != null && workerKey != null ? startSession(workerClientsManager, workerKey) : forkProcess();
                 } catch (RuntimeException e) {
                     completion.leaseFinish();
                     completion = null;
@@ -106,18 +124,7 @@ public void processTestClass(TestClassRunInfo testClass) {
     }
 
     RemoteTestClassProcessor forkProcess() {
-        @SuppressWarnings("deprecation") // WorkerProcessBuilder#useLegacyAddOpens
-        WorkerProcessBuilder builder =
-            workerFactory.create(new TestWorker(processorFactory))
-                         .setUseLegacyAddOpens(false);
-        builder.setBaseName("Gradle Test Executor");
-        builder.setImplementationClasspath(getTestWorkerImplementationClasspath());
-        builder.setImplementationModulePath(getTestWorkerImplementationModulePath());
-        builder.applicationClasspath(classPath);
-        builder.applicationModulePath(modulePath);
-        options.copyTo(builder.getJavaCommand());
-        builder.getJavaCommand().jvmArgs("-Dorg.gradle.native=false");
-        buildConfigAction.execute(builder);
+        WorkerProcessBuilder builder = createWorkerProcessBuilder(new TestWorker(processorFactory));
 
         workerProcess = builder.build();
         workerProcess.start();
@@ -131,6 +138,42 @@ RemoteTestClassProcessor forkProcess() {
         return remoteProcessor;
     }
 
+    RemoteTestClassProcessor startSession(TestWorkerClientsManager clientsManager, TestWorkerKey key) {
+        TestWorkerClient client = clientsManager.reserveIdleClient(key);
+        if (client == null) {
+            client = forkReusableProcess(key);
+            clientsManager.register(client);
+        }
+        workerClient = client;
+        workerProcess = client.getWorkerProcess();
+        return client.startSession(resultProcessor);
+    }
+
+    TestWorkerClient forkReusableProcess(TestWorkerKey key) {
+        WorkerProcessBuilder builder = createWorkerProcessBuilder(new TestWorker(processorFactory, true));
+        builder.enableJvmMemoryInfoPublishing(true);
+
+        WorkerProcess workerProcess = builder.build();
+        workerProcess.start();
+        return TestWorkerClient.connect(key, workerProcess, builder.getLogLevel(), options.getMaxHeapSize());
+    }
+
+    private WorkerProcessBuilder createWorkerProcessBuilder(TestWorker testWorker) {
+        @SuppressWarnings("deprecation") // WorkerProcessBuilder#useLegacyAddOpens
+        WorkerProcessBuilder builder =
+            workerFactory.create(testWorker)
+                         .setUseLegacyAddOpens(false);
+        builder.setBaseName("Gradle Test Executor");
+        builder.setImplementationClasspath(getTestWorkerImplementationClasspath());
+        builder.setImplementationModulePath(getTestWorkerImplementationModulePath());
+        builder.applicationClasspath(classPath);
+        builder.applicationModulePath(modulePath);
+        options.copyTo(builder.getJavaCommand());
+        builder.getJavaCommand().jvmArgs("-Dorg.gradle.native=false");
+        buildConfigAction.execute(builder);
+        return builder;
+    }
+
     List<URL> getTestWorkerImplementationClasspath() {
         return CollectionUtils.flattenCollections(URL.class,
             moduleRegistry.getModule("gradle-core-api").getImplementationClasspath().getAsURLs(),
@@ -182,7 +225,11 @@ public void stop() {
                 } finally {
                     lock.unlock();
                 }
-                workerProcess.waitForStop();
+                if (workerClient == null) {
+                    workerProcess.waitForStop();
+                } else {
+                    stopSession(workerClient);
+                }
             }
         } catch (ExecException e) {
             if (!stoppedNow) {
@@ -198,11 +245,26 @@ public void stop() {
         }
     }
 
+    private void stopSession(TestWorkerClient client) {
+        if (!stoppedNow && client.awaitSessionCompletion()) {
+            workerClientsManager.release(client);
+            return;
+        }
+        try {
+            workerProcess.waitForStop();
+        } finally {
+            workerClientsManager.discard(client);
+        }
+    }
+
     @Override
     public void stopNow() {
         lock.lock();
         try {
             stoppedNow = true;
+            if (workerClient != null) {
+                workerClient.setFailed(true);
+            }
             if (remoteProcessor != null) {
                 workerProcess.stopNow();
             }
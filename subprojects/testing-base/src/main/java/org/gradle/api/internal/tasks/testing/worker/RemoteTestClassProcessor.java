@@ -33,7 +33,12 @@ public interface RemoteTestClassProcessor {
     void processTestClass(TestClassRunInfo testClass);
 
     /**
-     * Does not block.
+     * Does not block. For a reusable worker, this completes the current session and leaves the worker waiting for the next one.
      */
     void stop();
+
+    /**
+     * Does not block. Stops a reusable worker once its current session, if any, has completed.
+     */
+    void stopWorker();
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+
+/**
+ * The results channel of a test worker that is kept alive to run several sessions. The end of a session is sent on the same
+ * channel as the results, so that it is received after all the results of that session.
+ */
+public interface ReusableWorkerTestResultProcessor extends TestResultProcessor {
+    /**
+     * Notifies this processor that the current session has completed and all its results have been sent.
+     *
+     * @param reusable whether the worker is in a state where it can run another session.
+     */
+    void sessionCompleted(boolean reusable);
+}
@@ -53,6 +53,10 @@
  * - 0 or more calls to {@link RemoteTestClassProcessor#processTestClass(TestClassRunInfo)}
  * - {@link RemoteTestClassProcessor#stop()}
  *
+ * A reusable worker goes back to waiting for {@link RemoteTestClassProcessor#startProcessing()} after each stop command, and only
+ * finishes when {@link RemoteTestClassProcessor#stopWorker()} is received or when a session leaves the process in a state that
+ * cannot be reused.
+ *
  * Commands are received on communication threads and then processed sequentially on the main thread.  Although concurrent calls to
  * any of the methods from {@link RemoteTestClassProcessor} are supported, the commands will still be executed sequentially in the
  * main thread in order of arrival.
@@ -66,9 +70,13 @@ private enum State { INITIALIZING, STARTED, STOPPED }
     private static final String WORK_THREAD_NAME = "Test worker";
 
     private final WorkerTestClassProcessorFactory factory;
+    private final boolean reusable;
     private final BlockingQueue<Runnable> runQueue = new ArrayBlockingQueue<Runnable>(1);
     private TestClassProcessor processor;
     private TestResultProcessor resultProcessor;
+    private WorkerProcessContext workerProcessContext;
+    private ServiceRegistry testServices;
+    private SecurityManager securityManager;
 
     /**
      * Note that the state object is not synchronized and not thread-safe.  Any modifications to the
@@ -78,7 +86,12 @@ private enum State { INITIALIZING, STARTED, STOPPED }
     private volatile State state = State.INITIALIZING;
 
     public TestWorker(WorkerTestClassProcessorFactory factory) {
+        this(factory, false);
+    }
+
+    public TestWorker(WorkerTestClassProcessorFactory factory, boolean reusable) {
         this.factory = factory;
+        this.reusable = reusable;
     }
 
     @Override
@@ -87,7 +100,7 @@ public void execute(final WorkerProcessContext workerProcessContext) {
 
         LOGGER.info("{} started executing tests.", workerProcessContext.getDisplayName());
 
-        SecurityManager securityManager = System.getSecurityManager();
+        securityManager = System.getSecurityManager();
 
         System.setProperty(WORKER_ID_SYS_PROPERTY, workerProcessContext.getWorkerId().toString());
 
@@ -134,6 +147,22 @@ private static void executeAndMaintainThreadName(Runnable action) {
     }
 
     private void startReceivingTests(WorkerProcessContext workerProcessContext, ServiceRegistry testServices) {
+        this.workerProcessContext = workerProcessContext;
+        this.testServices = testServices;
+        processor = createProcessor();
+
+        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
+        serverConnection.useParameterSerializers(TestEventSerializer.create());
+        if (reusable) {
+            this.resultProcessor = serverConnection.addOutgoing(ReusableWorkerTestResultProcessor.class);
+        } else {
+            this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        }
+        serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
+        serverConnection.connect();
+    }
+
+    private TestClassProcessor createProcessor() {
         TestClassProcessor targetProcessor = factory.create(testServices);
         IdGenerator<Object> idGenerator = Cast.uncheckedNonnullCast(testServices.get(IdGenerator.class));
 
@@ -141,13 +170,7 @@ private void startReceivingTests(WorkerProcessContext workerProcessContext, Serv
                 workerProcessContext.getDisplayName(), testServices.get(Clock.class));
         ContextClassLoaderProxy<TestClassProcessor> proxy = new ContextClassLoaderProxy<TestClassProcessor>(
                 TestClassProcessor.class, targetProcessor, workerProcessContext.getApplicationClassLoader());
-        processor = proxy.getSource();
-
-        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
-        serverConnection.useParameterSerializers(TestEventSerializer.create());
-        this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
-        serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
-        serverConnection.connect();
+        return proxy.getSource();
     }
 
     @Override
@@ -192,15 +215,44 @@ public void run() {
                 try {
                     processor.stop();
                 } finally {
-                    state = State.STOPPED;
                     // Clean the interrupted status
                     // because some test class processors do work here, e.g. JUnitPlatform
                     Thread.interrupted();
+                    if (reusable) {
+                        completeSession();
+                    } else {
+                        state = State.STOPPED;
+                    }
                 }
             }
         });
     }
 
+    @Override
+    public void stopWorker() {
+        submitToRun(new Runnable() {
+            @Override
+            public void run() {
+                state = State.STOPPED;
+            }
+        });
+    }
+
+    private void completeSession() {
+        // Tests that replace the security manager leave the process in a state that the next session cannot rely on
+        boolean canBeReused = System.getSecurityManager() == securityManager;
+        if (canBeReused) {
+            try {
+                processor = createProcessor();
+            } catch (RuntimeException e) {
+                LOGGER.debug("Could not prepare test worker for the next session.", e);
+                canBeReused = false;
+            }
+        }
+        state = canBeReused ? State.INITIALIZING : State.STOPPED;
+        ((ReusableWorkerTestResultProcessor) resultProcessor).sessionCompleted(canBeReused);
+    }
+
     private synchronized void submitToRun(Runnable command) {
         if (state != State.STOPPED) {
             try {
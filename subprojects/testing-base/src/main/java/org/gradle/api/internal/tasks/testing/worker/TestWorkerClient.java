@@ -0,0 +1,204 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.api.tasks.testing.TestFailure;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.dispatch.StreamCompletion;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.process.internal.health.memory.JvmMemoryStatus;
+import org.gradle.process.internal.worker.WorkerProcess;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A test worker process that runs several sessions, one for each test task execution that reserves it.
+ */
+public class TestWorkerClient implements Stoppable {
+    private final TestWorkerKey key;
+    private final WorkerProcess workerProcess;
+    private final RemoteTestClassProcessor remoteProcessor;
+    private final SessionResultProcessor sessionResultProcessor;
+    private final LogLevel logLevel;
+    private final String maxHeapSize;
+    private int uses;
+    private volatile boolean failed;
+
+    private TestWorkerClient(TestWorkerKey key, WorkerProcess workerProcess, RemoteTestClassProcessor remoteProcessor, SessionResultProcessor sessionResultProcessor, LogLevel logLevel, String maxHeapSize) {
+        this.key = key;
+        this.workerProcess = workerProcess;
+        this.remoteProcessor = remoteProcessor;
+        this.sessionResultProcessor = sessionResultProcessor;
+        this.logLevel = logLevel;
+        this.maxHeapSize = maxHeapSize;
+    }
+
+    /**
+     * Connects to a started worker process running a reusable {@link TestWorker}.
+     */
+    public static TestWorkerClient connect(TestWorkerKey key, WorkerProcess workerProcess, LogLevel logLevel, String maxHeapSize) {
+        SessionResultProcessor sessionResultProcessor = new SessionResultProcessor();
+        ObjectConnection connection = workerProcess.getConnection();
+        connection.useParameterSerializers(TestEventSerializer.create());
+        connection.addIncoming(ReusableWorkerTestResultProcessor.class, sessionResultProcessor);
+        RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
+        connection.connect();
+        return new TestWorkerClient(key, workerProcess, remoteProcessor, sessionResultProcessor, logLevel, maxHeapSize);
+    }
+
+    /**
+     * Starts a new session that reports its results to the given processor.
+     */
+    public RemoteTestClassProcessor startSession(TestResultProcessor resultProcessor) {
+        uses++;
+        sessionResultProcessor.start(resultProcessor);
+        remoteProcessor.startProcessing();
+        return remoteProcessor;
+    }
+
+    /**
+     * Waits for the current session to complete, after {@link RemoteTestClassProcessor#stop()} has been sent.
+     *
+     * @return true if the worker can run another session.
+     */
+    public boolean awaitSessionCompletion() {
+        boolean reusable = sessionResultProcessor.awaitCompletion();
+        if (!reusable) {
+            failed = true;
+        }
+        return reusable;
+    }
+
+    public TestWorkerKey getKey() {
+        return key;
+    }
+
+    public WorkerProcess getWorkerProcess() {
+        return workerProcess;
+    }
+
+    public LogLevel getLogLevel() {
+        return logLevel;
+    }
+
+    public String getMaxHeapSize() {
+        return maxHeapSize;
+    }
+
+    public JvmMemoryStatus getJvmMemoryStatus() {
+        return workerProcess.getJvmMemoryStatus();
+    }
+
+    public int getUses() {
+        return uses;
+    }
+
+    public boolean isFailed() {
+        return failed || sessionResultProcessor.isEnded();
+    }
+
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+
+    @Override
+    public void stop() {
+        remoteProcessor.stopWorker();
+        workerProcess.waitForStop();
+    }
+
+    @Override
+    public String toString() {
+        return "TestWorkerClient{"
+            + "key=" + key
+            + ", log level=" + logLevel
+            + ", use count=" + uses
+            + ", has failed=" + failed
+            + ", workerProcess=" + workerProcess
+            + '}';
+    }
+
+    /**
+     * Forwards the results of the current session, and tracks its completion.
+     */
+    private static class SessionResultProcessor implements ReusableWorkerTestResultProcessor, StreamCompletion {
+        private volatile TestResultProcessor delegate;
+        private volatile CountDownLatch completed = new CountDownLatch(1);
+        private volatile boolean reusable;
+        private volatile boolean ended;
+
+        void start(TestResultProcessor delegate) {
+            this.delegate = delegate;
+            reusable = false;
+            completed = new CountDownLatch(1);
+            if (ended) {
+                completed.countDown();
+            }
+        }
+
+        boolean awaitCompletion() {
+            try {
+                completed.await();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            return reusable && !ended;
+        }
+
+        boolean isEnded() {
+            return ended;
+        }
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            delegate.started(test, event);
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            delegate.completed(testId, event);
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            delegate.output(testId, event);
+        }
+
+        @Override
+        public void failure(Object testId, TestFailure result) {
+            delegate.failure(testId, result);
+        }
+
+        @Override
+        public void sessionCompleted(boolean reusable) {
+            this.reusable = reusable;
+            completed.countDown();
+        }
+
+        @Override
+        public void endStream() {
+            ended = true;
+            completed.countDown();
+        }
+    }
+}
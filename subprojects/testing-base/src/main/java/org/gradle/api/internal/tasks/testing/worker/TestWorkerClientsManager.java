@@ -0,0 +1,244 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.worker;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.logging.LoggingManagerInternal;
+import org.gradle.internal.logging.events.LogLevelChangeEvent;
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.process.internal.health.memory.MemoryAmount;
+import org.gradle.process.internal.health.memory.MemoryHolder;
+import org.gradle.process.internal.health.memory.MemoryManager;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps test worker processes alive across test task executions, so that a test task whose worker configuration has not changed
+ * can run its tests without starting new JVMs.
+ *
+ * Idle workers are stopped when the system runs low on memory, when the test task that started them moves on to a new
+ * {@link TestWorkerKey}, for example because its classpath changed, and when there are more idle workers than allowed.
+ *
+ * Reuse is opt-in, as tests that leave static state behind can affect the tests of the next session.
+ */
+public class TestWorkerClientsManager implements Stoppable {
+    public static final String REUSE_WORKERS_PROPERTY = "org.gradle.internal.testing.reuse-workers";
+    public static final String MAX_IDLE_WORKERS_PROPERTY = "org.gradle.internal.testing.max-idle-workers";
+    private static final int DEFAULT_MAX_IDLE_WORKERS = 4;
+
+    private static final Logger LOGGER = Logging.getLogger(TestWorkerClientsManager.class);
+
+    private final Object lock = new Object();
+    private final List<TestWorkerClient> allClients = new ArrayList<TestWorkerClient>();
+    private final ListMultimap<TestWorkerKey, TestWorkerClient> idleClients = LinkedListMultimap.create();
+    private final Map<String, TestWorkerKey> currentKeys = new HashMap<String, TestWorkerKey>();
+    private final LoggingManagerInternal loggingManager;
+    private final OutputEventListener logLevelChangeEventListener;
+    private final MemoryManager memoryManager;
+    private final MemoryHolder workerExpiration;
+    private final int maxIdleWorkers;
+    private volatile LogLevel currentLogLevel;
+
+    public TestWorkerClientsManager(LoggingManagerInternal loggingManager, MemoryManager memoryManager) {
+        this(loggingManager, memoryManager, Integer.getInteger(MAX_IDLE_WORKERS_PROPERTY, DEFAULT_MAX_IDLE_WORKERS));
+    }
+
+    @VisibleForTesting
+    TestWorkerClientsManager(LoggingManagerInternal loggingManager, MemoryManager memoryManager, int maxIdleWorkers) {
+        this.loggingManager = loggingManager;
+        this.logLevelChangeEventListener = new LogLevelChangeEventListener();
+        loggingManager.addOutputEventListener(logLevelChangeEventListener);
+        this.currentLogLevel = loggingManager.getLevel();
+        this.memoryManager = memoryManager;
+        this.workerExpiration = new TestWorkerExpiration();
+        memoryManager.addMemoryHolder(workerExpiration);
+        this.maxIdleWorkers = maxIdleWorkers;
+    }
+
+    public boolean isReuseEnabled() {
+        return Boolean.getBoolean(REUSE_WORKERS_PROPERTY);
+    }
+
+    @Nullable
+    public TestWorkerClient reserveIdleClient(TestWorkerKey key) {
+        List<TestWorkerClient> toStop = new ArrayList<TestWorkerClient>();
+        try {
+            synchronized (lock) {
+                TestWorkerKey previousKey = currentKeys.put(key.getOwner(), key);
+                if (previousKey != null && !previousKey.equals(key) && !currentKeys.containsValue(previousKey)) {
+                    List<TestWorkerClient> superseded = idleClients.removeAll(previousKey);
+                    if (!superseded.isEmpty()) {
+                        LOGGER.info("Worker configuration of {} has changed, stopping {} idle test worker(s) with out-of-date configuration.", key.getOwner(), superseded.size());
+                        allClients.removeAll(superseded);
+                        toStop.addAll(superseded);
+                    }
+                }
+                Iterator<TestWorkerClient> it = idleClients.get(key).iterator();
+                while (it.hasNext()) {
+                    TestWorkerClient candidate = it.next();
+                    it.remove();
+                    if (candidate.isFailed()) {
+                        allClients.remove(candidate);
+                    } else if (candidate.getLogLevel() != currentLogLevel) {
+                        LOGGER.info("Log level has changed, stopping idle test worker with out-of-date log level.");
+                        allClients.remove(candidate);
+                        toStop.add(candidate);
+                    } else {
+                        return candidate;
+                    }
+                }
+                return null;
+            }
+        } finally {
+            stopWorkers(toStop);
+        }
+    }
+
+    public void register(TestWorkerClient client) {
+        synchronized (lock) {
+            allClients.add(client);
+        }
+    }
+
+    public void release(TestWorkerClient client) {
+        List<TestWorkerClient> toStop = new ArrayList<TestWorkerClient>();
+        synchronized (lock) {
+            if (client.isFailed()) {
+                allClients.remove(client);
+            } else if (!currentKeys.containsValue(client.getKey())) {
+                // The owner of the worker has moved on to a new configuration while it was running
+                allClients.remove(client);
+                toStop.add(client);
+            } else {
+                idleClients.put(client.getKey(), client);
+                // Entries are kept in insertion order, so the workers which have been idle the longest go first
+                Iterator<Map.Entry<TestWorkerKey, TestWorkerClient>> it = idleClients.entries().iterator();
+                while (idleClients.size() > maxIdleWorkers) {
+                    TestWorkerClient oldest = it.next().getValue();
+                    it.remove();
+                    allClients.remove(oldest);
+                    toStop.add(oldest);
+                }
+            }
+        }
+        stopWorkers(toStop);
+    }
+
+    public void discard(TestWorkerClient client) {
+        synchronized (lock) {
+            allClients.remove(client);
+            idleClients.remove(client.getKey(), client);
+        }
+    }
+
+    @Override
+    public void stop() {
+        List<TestWorkerClient> toStop;
+        synchronized (lock) {
+            toStop = new ArrayList<TestWorkerClient>(allClients);
+            allClients.clear();
+            idleClients.clear();
+            currentKeys.clear();
+            memoryManager.removeMemoryHolder(workerExpiration);
+        }
+        try {
+            stopWorkers(toStop);
+        } finally {
+            loggingManager.removeOutputEventListener(logLevelChangeEventListener);
+        }
+    }
+
+    private static void stopWorkers(List<TestWorkerClient> clients) {
+        if (!clients.isEmpty()) {
+            LOGGER.debug("Stopping {} test worker(s).", clients.size());
+            try {
+                CompositeStoppable.stoppable(clients).stop();
+            } catch (RuntimeException e) {
+                LOGGER.info("Not all test worker(s) could be stopped.", e);
+            }
+        }
+    }
+
+    private static long getMemoryUsage(TestWorkerClient client) {
+        try {
+            return client.getJvmMemoryStatus().getCommittedMemory();
+        } catch (UnsupportedOperationException e) {
+            // The worker does not report its memory usage
+        } catch (IllegalStateException e) {
+            // The worker has not reported its memory usage yet
+        }
+        return Math.max(0, MemoryAmount.parseNotation(client.getMaxHeapSize()));
+    }
+
+    private class TestWorkerExpiration implements MemoryHolder {
+        @Override
+        public long attemptToRelease(long memoryAmountBytes) throws IllegalArgumentException {
+            if (memoryAmountBytes < 0) {
+                throw new IllegalArgumentException("Negative memory amount");
+            }
+            long releasedBytes = 0;
+            List<TestWorkerClient> toStop = new ArrayList<TestWorkerClient>();
+            synchronized (lock) {
+                List<TestWorkerClient> candidates = new ArrayList<TestWorkerClient>(idleClients.values());
+                Collections.sort(candidates, new Comparator<TestWorkerClient>() {
+                    @Override
+                    public int compare(TestWorkerClient o1, TestWorkerClient o2) {
+                        return o1.getUses() < o2.getUses() ? -1 : (o1.getUses() == o2.getUses() ? 0 : 1);
+                    }
+                });
+                for (TestWorkerClient candidate : candidates) {
+                    if (releasedBytes >= memoryAmountBytes) {
+                        break;
+                    }
+                    idleClients.remove(candidate.getKey(), candidate);
+                    allClients.remove(candidate);
+                    toStop.add(candidate);
+                    releasedBytes += getMemoryUsage(candidate);
+                }
+            }
+            if (!toStop.isEmpty()) {
+                LOGGER.debug("Test worker(s) expired to free some system memory {}", toStop.size());
+                stopWorkers(toStop);
+            }
+            return releasedBytes;
+        }
+    }
+
+    private class LogLevelChangeEventListener implements OutputEventListener {
+        @Override
+        public void onOutput(OutputEvent event) {
+            if (event instanceof LogLevelChangeEvent) {
+                LogLevelChangeEvent logLevelChangeEvent = (LogLevelChangeEvent) event;
+                currentLogLevel = logLevelChangeEvent.getNewLogLevel();
+            }
+        }
+    }
+}
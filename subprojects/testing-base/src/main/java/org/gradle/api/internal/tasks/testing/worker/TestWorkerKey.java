@@ -0,0 +1,153 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.worker;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.process.JavaForkOptions;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Identifies test worker processes that can be used interchangeably.
+ *
+ * Two workers are only considered interchangeable when they were started with the same JVM and command line, the same
+ * classpath with unchanged contents, and the same test framework configuration. Contents of classpath entries are identified
+ * by file length and modification time, which is enough to notice entries rewritten by a build.
+ *
+ * The key also records its owner, the test task that requested it. The owner is not part of the identity of the key,
+ * so tasks with the same configuration share their workers, but lets idle workers be stopped once their owner has moved on to a new key.
+ */
+public class TestWorkerKey {
+    private final String owner;
+    private final HashCode hash;
+
+    @VisibleForTesting
+    TestWorkerKey(String owner, HashCode hash) {
+        this.owner = owner;
+        this.hash = hash;
+    }
+
+    /**
+     * Returns the key for workers started with the given configuration, or null when such workers should not be reused.
+     */
+    @Nullable
+    public static TestWorkerKey of(String owner, JavaForkOptions options, Iterable<File> classPath, Iterable<File> modulePath, Iterable<String> testWorkerImplementationModules, WorkerTestClassProcessorFactory processorFactory, Object buildConfigAction) {
+        if (options.getDebug()) {
+            return null;
+        }
+        byte[] serializedProcessorFactory = serialize(processorFactory);
+        if (serializedProcessorFactory == null) {
+            return null;
+        }
+
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(String.valueOf(options.getExecutable()));
+        hasher.putString(options.getWorkingDir().getAbsolutePath());
+        for (String jvmArg : options.getAllJvmArgs()) {
+            hasher.putString(jvmArg);
+        }
+        for (Map.Entry<String, Object> entry : new TreeMap<String, Object>(options.getEnvironment()).entrySet()) {
+            hasher.putString(entry.getKey());
+            hasher.putString(String.valueOf(entry.getValue()));
+        }
+        hasher.putInt(0);
+        for (File file : classPath) {
+            putFileState(hasher, file);
+        }
+        hasher.putInt(0);
+        for (File file : modulePath) {
+            putFileState(hasher, file);
+        }
+        hasher.putInt(0);
+        for (String module : testWorkerImplementationModules) {
+            hasher.putString(module);
+        }
+        hasher.putString(buildConfigAction.getClass().getName());
+        hasher.putBytes(serializedProcessorFactory);
+        return new TestWorkerKey(owner, hasher.hash());
+    }
+
+    /**
+     * The test task that requested this key.
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    @Nullable
+    private static byte[] serialize(WorkerTestClassProcessorFactory processorFactory) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            ObjectOutputStream outputStream = new ObjectOutputStream(bytes);
+            outputStream.writeObject(processorFactory);
+            outputStream.close();
+        } catch (IOException e) {
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void putFileState(Hasher hasher, File file) {
+        hasher.putString(file.getAbsolutePath());
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    putFileState(hasher, child);
+                }
+            }
+            hasher.putInt(0);
+        } else if (file.isFile()) {
+            hasher.putLong(file.length());
+            hasher.putLong(file.lastModified());
+        } else {
+            hasher.putInt(-1);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return hash.equals(((TestWorkerKey) o).hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return hash.toString();
+    }
+}
@@ -145,6 +145,32 @@ class ForkingTestClassProcessorTest extends Specification {
         notThrown(ExecException)
     }
 
+    def "runs tests in an idle worker reserved from the clients manager"() {
+        def clientsManager = Mock(TestWorkerClientsManager)
+        def workerKey = Mock(TestWorkerKey)
+        def client = Mock(TestWorkerClient)
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+        def test = Mock(TestClassRunInfo)
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(workerLeaseRegistry, workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], [], [], Mock(Action), Stub(ModuleRegistry), documentationRegistry, clientsManager, workerKey)
+
+        when:
+        processor.processTestClass(test)
+        processor.stop()
+
+        then:
+        1 * workerLeaseRegistry.startWorker() >> workerLease
+        1 * clientsManager.reserveIdleClient(workerKey) >> client
+        1 * client.getWorkerProcess() >> workerProcess
+        1 * client.startSession(_) >> remoteProcessor
+        1 * remoteProcessor.processTestClass(test)
+        1 * remoteProcessor.stop()
+        1 * client.awaitSessionCompletion() >> true
+        1 * clientsManager.release(client)
+        1 * workerLease.leaseFinish()
+        0 * workerProcess.waitForStop()
+        0 * clientsManager.register(_)
+    }
+
     def module(String module) {
         return Stub(Module) {
             _ * getImplementationClasspath() >> {
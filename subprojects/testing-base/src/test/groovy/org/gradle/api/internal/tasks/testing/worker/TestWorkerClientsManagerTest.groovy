@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.internal.hash.Hashing
+import org.gradle.internal.logging.LoggingManagerInternal
+import org.gradle.process.internal.health.memory.MemoryManager
+import spock.lang.Specification
+
+class TestWorkerClientsManagerTest extends Specification {
+    def loggingManager = Mock(LoggingManagerInternal)
+    def memoryManager = Stub(MemoryManager)
+
+    def "reuses idle worker with the same configuration"() {
+        def manager = new TestWorkerClientsManager(loggingManager, memoryManager, 4)
+        def client = client(key(":test", "config"))
+        startAndRelease(manager, client)
+
+        when:
+        def reserved = manager.reserveIdleClient(key(":test", "config"))
+
+        then:
+        reserved == client
+        0 * client.stop()
+    }
+
+    def "stops idle workers when their owner moves on to a new key"() {
+        def manager = new TestWorkerClientsManager(loggingManager, memoryManager, 4)
+        def client = client(key(":test", "config"))
+        startAndRelease(manager, client)
+
+        when:
+        def reserved = manager.reserveIdleClient(key(":test", "changed config"))
+
+        then:
+        reserved == null
+        1 * client.stop()
+    }
+
+    def "keeps idle workers whose configuration is still used by another task"() {
+        def manager = new TestWorkerClientsManager(loggingManager, memoryManager, 4)
+        def client = client(key(":test", "config"))
+        startAndRelease(manager, client)
+        assert manager.reserveIdleClient(key(":other", "config")) == client
+        manager.release(client)
+
+        when:
+        def reserved = manager.reserveIdleClient(key(":test", "changed config"))
+
+        then:
+        reserved == null
+        0 * client.stop()
+
+        when:
+        reserved = manager.reserveIdleClient(key(":other", "config"))
+
+        then:
+        reserved == client
+    }
+
+    def "stops worker released after its owner moved on to a new key"() {
+        def manager = new TestWorkerClientsManager(loggingManager, memoryManager, 4)
+        def oldKey = key(":test", "config")
+        def client = client(oldKey)
+        manager.reserveIdleClient(oldKey)
+        manager.register(client)
+
+        when:
+        manager.reserveIdleClient(key(":test", "changed config"))
+        manager.release(client)
+
+        then:
+        1 * client.stop()
+    }
+
+    def "stops the workers which have been idle the longest when there are too many idle workers"() {
+        def manager = new TestWorkerClientsManager(loggingManager, memoryManager, 2)
+        def workerKey = key(":test", "config")
+        def clients = (1..3).collect { client(workerKey) }
+        manager.reserveIdleClient(workerKey)
+        clients.each { manager.register(it) }
+
+        when:
+        clients.each { manager.release(it) }
+
+        then:
+        1 * clients[0].stop()
+        0 * clients[1].stop()
+        0 * clients[2].stop()
+    }
+
+    private static void startAndRelease(TestWorkerClientsManager manager, TestWorkerClient client) {
+        assert manager.reserveIdleClient(client.key) == null
+        manager.register(client)
+        manager.release(client)
+    }
+
+    private static TestWorkerKey key(String owner, String configuration) {
+        return new TestWorkerKey(owner, Hashing.hashString(configuration))
+    }
+
+    private TestWorkerClient client(TestWorkerKey key) {
+        return Mock(TestWorkerClient) {
+            getKey() >> key
+            isFailed() >> false
+        }
+    }
+}
@@ -76,4 +76,38 @@ public class TestWorkerTest extends ConcurrentSpec {
         1 * processor.processTestClass(test)
         1 * processor.stop()
     }
+
+    def reusableWorkerRunsSessionsUntilWorkerStopReceived() {
+        def reusableWorker = new TestWorker(factory, true)
+        def sessionResultProcessor = Mock(ReusableWorkerTestResultProcessor)
+
+        when:
+        async {
+            reusableWorker.execute(workerContext)
+            instant.completed
+        }
+
+        then:
+        instant.completed > instant.stopped
+
+        and:
+        2 * factory.create(_) >> processor
+        1 * connection.addOutgoing(ReusableWorkerTestResultProcessor) >> sessionResultProcessor
+        1 * connection.addIncoming(RemoteTestClassProcessor, reusableWorker)
+        1 * connection.useParameterSerializers(_)
+        1 * connection.connect() >> {
+            start {
+                reusableWorker.startProcessing()
+                reusableWorker.processTestClass(test)
+                reusableWorker.stop()
+                thread.block()
+                instant.stopped
+                reusableWorker.stopWorker()
+            }
+        }
+        1 * processor.startProcessing(_)
+        1 * processor.processTestClass(test)
+        1 * processor.stop()
+        1 * sessionResultProcessor.sessionCompleted(true)
+    }
 }
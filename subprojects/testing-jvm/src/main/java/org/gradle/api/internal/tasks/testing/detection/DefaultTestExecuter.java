@@ -33,6 +33,8 @@
 import org.gradle.api.internal.tasks.testing.processors.RunPreviousFailedFirstTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerClientsManager;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerKey;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.Factory;
@@ -41,6 +43,7 @@
 import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.List;
 import java.util.Set;
@@ -60,6 +63,7 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
     private final Clock clock;
     private final DocumentationRegistry documentationRegistry;
     private final DefaultTestFilter testFilter;
+    private final TestWorkerClientsManager workerClientsManager;
     private TestClassProcessor processor;
 
     public DefaultTestExecuter(
@@ -67,6 +71,16 @@ public DefaultTestExecuter(
         WorkerLeaseService workerLeaseService, int maxWorkerCount,
         Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter
     ) {
+        this(workerFactory, actorFactory, moduleRegistry, workerLeaseService, maxWorkerCount, clock, documentationRegistry, testFilter, null);
+    }
+
+    public DefaultTestExecuter(
+        WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry,
+        WorkerLeaseService workerLeaseService, int maxWorkerCount,
+        Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter,
+        @Nullable TestWorkerClientsManager workerClientsManager
+    ) {
+        this.workerClientsManager = workerClientsManager;
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
         this.moduleRegistry = moduleRegistry;
@@ -84,11 +98,13 @@ public void execute(final JvmTestExecutionSpec testExecutionSpec, TestResultProc
         final Set<File> classpath = ImmutableSet.copyOf(testExecutionSpec.getClasspath());
         final Set<File> modulePath = ImmutableSet.copyOf(testExecutionSpec.getModulePath());
         final List<String> testWorkerImplementationModules = testFramework.getTestWorkerImplementationModules();
+        final TestWorkerKey workerKey = getReusableWorkerKey(testExecutionSpec, classpath, modulePath, testWorkerImplementationModules, testInstanceFactory, testFramework);
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             @Override
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(workerLeaseService, workerFactory, testInstanceFactory, testExecutionSpec.getJavaForkOptions(),
-                    classpath, modulePath, testWorkerImplementationModules, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry);
+                    classpath, modulePath, testWorkerImplementationModules, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry,
+                    workerClientsManager, workerKey);
             }
         };
         final Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -124,6 +140,20 @@ public void stopNow() {
         }
     }
 
+    @Nullable
+    private TestWorkerKey getReusableWorkerKey(
+        JvmTestExecutionSpec testExecutionSpec, Set<File> classpath, Set<File> modulePath, List<String> testWorkerImplementationModules,
+        WorkerTestClassProcessorFactory testInstanceFactory, TestFramework testFramework
+    ) {
+        // Workers that are restarted on purpose are never reused
+        if (workerClientsManager == null || !workerClientsManager.isReuseEnabled() || testExecutionSpec.getForkEvery() != 0) {
+            return null;
+        }
+        // The working directory tells apart tasks with the same path in different builds
+        String owner = testExecutionSpec.getJavaForkOptions().getWorkingDir().getAbsolutePath() + testExecutionSpec.getIdentityPath();
+        return TestWorkerKey.of(owner, testExecutionSpec.getJavaForkOptions(), classpath, modulePath, testWorkerImplementationModules, testInstanceFactory, testFramework.getWorkerConfigurationAction());
+    }
+
     private int getMaxParallelForks(JvmTestExecutionSpec testExecutionSpec) {
         int maxParallelForks = testExecutionSpec.getMaxParallelForks();
         if (maxParallelForks > maxWorkerCount) {
@@ -16,7 +16,11 @@
 
 package org.gradle.workers.internal;
 
+import com.google.common.base.Objects;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.ListMultimap;
 import org.gradle.api.Action;
 import org.gradle.api.Transformer;
 import org.gradle.api.logging.LogLevel;
@@ -24,6 +28,8 @@
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.session.BuildSessionLifecycleListener;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.exceptions.DefaultMultiCauseException;
@@ -37,19 +43,50 @@
 import org.gradle.util.internal.CollectionUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.gradle.process.internal.util.MergeOptionsUtil.normalized;
 
 import static java.util.Comparator.*;
 
+/**
+ * Keeps track of the worker daemons started by this process.
+ *
+ * Idle daemons are grouped by the parts of their fork options that must match exactly for a daemon to be compatible with a request,
+ * so that reserving an idle daemon only looks at daemons that could possibly be reused.
+ *
+ * The number of daemons that were busy at the same time is remembered per set of equivalent fork options, that is options which are
+ * compatible with each other, as daemons for compiler and worker API work with different heaps and class loader structures cannot
+ * stand in for each other. When a build needs to start a daemon for such options, the daemons that the previous build needed on
+ * top of that one are started in the background with the same options, ahead of the work that will use them.
+ */
 public class WorkerDaemonClientsManager implements Stoppable {
+    public static final String DISABLE_PRESPAWN_PROPERTY_KEY = "org.gradle.workers.internal.disable-daemons-prespawn";
+    /**
+     * Daemons are started ahead of time one at a time, so that a burst of demand does not fork many JVMs at once.
+     * Work that cannot wait for them still starts its own daemon.
+     */
+    private static final int MAX_PARALLEL_PRESPAWNS = 1;
 
     private static final Logger LOGGER = Logging.getLogger(WorkerDaemonClientsManager.class);
 
     private final Object lock = new Object();
     private final List<WorkerDaemonClient> allClients = new ArrayList<WorkerDaemonClient>();
-    private final List<WorkerDaemonClient> idleClients = new ArrayList<WorkerDaemonClient>();
+    private final ListMultimap<ClientGroup, WorkerDaemonClient> idleClients = LinkedListMultimap.create();
+    private final Map<WorkerDaemonClient, Demand> clientDemands = new HashMap<>();
+    private final ListMultimap<ClientGroup, Demand> demands = ArrayListMultimap.create();
     private final Action<WorkerProcess> workerProcessCleanupAction = new WorkerProcessCleanupAction();
+    private final ManagedExecutor prespawnExecutor;
+    private final boolean prespawnEnabled = !Boolean.getBoolean(DISABLE_PRESPAWN_PROPERTY_KEY);
+    private final AtomicInteger spawnCount = new AtomicInteger();
+    private final AtomicInteger prespawnCount = new AtomicInteger();
+    private final AtomicInteger reuseCount = new AtomicInteger();
+    private final AtomicInteger evictionCount = new AtomicInteger();
+    private boolean stopped;
 
     private final WorkerDaemonStarter workerDaemonStarter;
     private final ListenerManager listenerManager;
@@ -61,8 +98,9 @@ public class WorkerDaemonClientsManager implements Stoppable {
     private final MemoryManager memoryManager;
     private volatile LogLevel currentLogLevel;
 
-    public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo) {
+    public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo, ExecutorFactory executorFactory) {
         this.workerDaemonStarter = workerDaemonStarter;
+        this.prespawnExecutor = executorFactory.create("Worker daemon pre-spawner", MAX_PARALLEL_PRESPAWNS);
         this.listenerManager = listenerManager;
         this.loggingManager = loggingManager;
         this.memoryInfo = memoryInfo;
@@ -78,52 +116,191 @@ public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, Liste
 
     // TODO - should supply and check for the same parameters as passed to reserveNewClient()
     public WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions) {
-        return reserveIdleClient(forkOptions, idleClients);
+        ClientGroup group = ClientGroup.of(forkOptions);
+        synchronized (lock) {
+            WorkerDaemonClient client = reserveIdleClient(forkOptions, idleClients.get(group));
+            if (client != null) {
+                reuseCount.incrementAndGet();
+                markBusy(client, demandFor(group, forkOptions));
+            }
+            return client;
+        }
     }
 
     WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<WorkerDaemonClient> clients) {
         synchronized (lock) {
+            WorkerDaemonClient reserved = null;
+            List<WorkerDaemonClient> outOfDateClients = new ArrayList<>();
             Iterator<WorkerDaemonClient> it = clients.iterator();
             while (it.hasNext()) {
                 WorkerDaemonClient candidate = it.next();
                 if (candidate.isCompatibleWith(forkOptions)) {
                     it.remove();
                     if (candidate.getLogLevel() != currentLogLevel) {
-                        // TODO: Send a message to workers to change their log level rather than stopping
-                        LOGGER.info("Log level has changed, stopping idle worker daemon with out-of-date log level.");
-                        candidate.stop();
+                        outOfDateClients.add(candidate);
                     } else {
-                        return candidate;
+                        reserved = candidate;
+                        break;
                     }
                 }
             }
-            return null;
+            if (!outOfDateClients.isEmpty()) {
+                // TODO: Send a message to workers to change their log level rather than stopping
+                LOGGER.info("Log level has changed, stopping idle worker daemon with out-of-date log level.");
+                evictionCount.addAndGet(outOfDateClients.size());
+                stopWorkers(outOfDateClients);
+            }
+            return reserved;
         }
     }
 
     public WorkerDaemonClient reserveNewClient(DaemonForkOptions forkOptions) {
+        Demand demand;
+        synchronized (lock) {
+            demand = demandFor(ClientGroup.of(forkOptions), forkOptions);
+        }
+        prespawnClientsFor(demand);
         //allow the daemon to be started concurrently
         WorkerDaemonClient client = workerDaemonStarter.startDaemon(forkOptions, workerProcessCleanupAction);
+        spawnCount.incrementAndGet();
         synchronized (lock) {
             allClients.add(client);
+            markBusy(client, demand);
         }
         return client;
     }
 
     public void release(WorkerDaemonClient client) {
         synchronized (lock) {
+            Demand demand = clientDemands.get(client);
+            if (demand == null) {
+                // The client has been stopped or its process has gone away while it was busy
+                return;
+            }
+            demand.busy--;
             if (!client.isFailed()) {
-                idleClients.add(client);
+                idleClients.put(demand.group, client);
             }
         }
     }
 
+    /**
+     * Returns the demand for daemons with fork options equivalent to the given ones, creating it if this is the first request for them.
+     */
+    private Demand demandFor(ClientGroup group, DaemonForkOptions forkOptions) {
+        for (Demand demand : demands.get(group)) {
+            if (demand.forkOptions.isCompatibleWith(forkOptions) && forkOptions.isCompatibleWith(demand.forkOptions)) {
+                return demand;
+            }
+        }
+        Demand demand = new Demand(group, forkOptions);
+        demands.put(group, demand);
+        return demand;
+    }
+
+    private void markBusy(WorkerDaemonClient client, Demand demand) {
+        Demand previousDemand = clientDemands.put(client, demand);
+        if (previousDemand != null) {
+            previousDemand.existing--;
+        }
+        demand.existing++;
+        demand.busy++;
+        demand.peak = Math.max(demand.peak, demand.busy);
+    }
+
+    /**
+     * Starts in the background the daemons that the previous session needed for this demand, on top of the ones that already exist
+     * for it and the one that is about to be started by the caller. The daemons are started with the fork options of the demand,
+     * which are compatible with the requests that make up the demand.
+     */
+    private void prespawnClientsFor(Demand demand) {
+        if (!prespawnEnabled) {
+            return;
+        }
+        int toStart;
+        synchronized (lock) {
+            if (stopped) {
+                return;
+            }
+            toStart = demand.previousPeak - demand.existing - demand.pending - 1;
+            if (toStart <= 0) {
+                return;
+            }
+            demand.pending += toStart;
+        }
+        LOGGER.debug("Starting {} worker daemon(s) ahead of time with fork options {}.", toStart, demand.forkOptions);
+        for (int i = 0; i < toStart; i++) {
+            prespawnExecutor.execute(() -> prespawnClient(demand));
+        }
+    }
+
+    private void prespawnClient(Demand demand) {
+        WorkerDaemonClient client;
+        try {
+            client = workerDaemonStarter.startDaemon(demand.forkOptions, workerProcessCleanupAction);
+        } catch (Exception e) {
+            LOGGER.debug("Could not start worker daemon ahead of time.", e);
+            synchronized (lock) {
+                demand.pending--;
+            }
+            return;
+        }
+        prespawnCount.incrementAndGet();
+        synchronized (lock) {
+            demand.pending--;
+            if (!stopped) {
+                allClients.add(client);
+                clientDemands.put(client, demand);
+                demand.existing++;
+                idleClients.put(demand.group, client);
+                return;
+            }
+        }
+        client.stop();
+    }
+
+    private void forgetClient(WorkerDaemonClient client) {
+        Demand demand = clientDemands.remove(client);
+        if (demand != null) {
+            demand.existing--;
+        }
+    }
+
+    int getSpawnCount() {
+        return spawnCount.get();
+    }
+
+    int getPrespawnCount() {
+        return prespawnCount.get();
+    }
+
+    int getReuseCount() {
+        return reuseCount.get();
+    }
+
+    int getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    int getDemandCount() {
+        synchronized (lock) {
+            return demands.size();
+        }
+    }
+
     @Override
     public void stop() {
+        synchronized (lock) {
+            stopped = true;
+        }
+        // Do not hold lock while waiting for daemons that are being started ahead of time, as these need to acquire the lock
+        prespawnExecutor.stop();
         synchronized (lock) {
             stopWorkers(allClients);
             allClients.clear();
             idleClients.clear();
+            clientDemands.clear();
+            demands.clear();
             listenerManager.removeListener(stopSessionScopeWorkers);
             memoryManager.removeMemoryHolder(workerDaemonExpiration);
         }
@@ -146,9 +323,10 @@ private long getTotalPhysicalMemory() {
      */
     public void selectIdleClientsToStop(Transformer<List<WorkerDaemonClient>, List<WorkerDaemonClient>> selectionFunction) {
         synchronized (lock) {
-            List<WorkerDaemonClient> sortedClients = CollectionUtils.sort(idleClients, comparingInt(WorkerDaemonClient::getUses));
+            List<WorkerDaemonClient> sortedClients = CollectionUtils.sort(idleClients.values(), comparingInt(WorkerDaemonClient::getUses));
             List<WorkerDaemonClient> clientsToStop = selectionFunction.transform(new ArrayList<>(sortedClients));
             if (!clientsToStop.isEmpty()) {
+                evictionCount.addAndGet(clientsToStop.size());
                 stopWorkers(clientsToStop);
             }
         }
@@ -166,8 +344,11 @@ private void stopWorkers(List<WorkerDaemonClient> clientsToStop) {
                     failures.add(e);
                 }
             }
-            idleClients.removeAll(clientsToStop);
+            idleClients.values().removeAll(clientsToStop);
             allClients.removeAll(clientsToStop);
+            for (WorkerDaemonClient client : clientsToStop) {
+                forgetClient(client);
+            }
             if (!failures.isEmpty()) {
                 if (failures.size() == 1) {
                     throw UncheckedException.throwAsUncheckedException(failures.get(0));
@@ -184,8 +365,19 @@ private class StopSessionScopedWorkers implements BuildSessionLifecycleListener
         @Override
         public void beforeComplete() {
             synchronized (lock) {
+                for (Demand demand : demands.values()) {
+                    demand.previousPeak = demand.peak;
+                    demand.peak = 0;
+                }
+                LOGGER.info("Worker daemons in this session: {} started on demand, {} started ahead of time, {} reused, {} stopped to free resources.",
+                    spawnCount.getAndSet(0), prespawnCount.getAndSet(0), reuseCount.getAndSet(0), evictionCount.getAndSet(0));
                 List<WorkerDaemonClient> sessionScopedClients = CollectionUtils.filter(allClients, client -> client.getKeepAliveMode() == KeepAliveMode.SESSION);
-                stopWorkers(sessionScopedClients);
+                try {
+                    stopWorkers(sessionScopedClients);
+                } finally {
+                    // Forget the fork options that neither this session nor any remaining daemon needs
+                    demands.values().removeIf(demand -> demand.previousPeak == 0 && demand.existing == 0 && demand.pending == 0);
+                }
             }
         }
     }
@@ -210,9 +402,62 @@ public void execute(WorkerProcess workerProcess) {
                     if (client.isProcess(workerProcess)) {
                         client.setFailed(true);
                         iterator.remove();
+                        forgetClient(client);
                     }
                 }
             }
         }
     }
+
+    /**
+     * The parts of the fork options that must be equal for a daemon to be compatible with a request.
+     */
+    private static class ClientGroup {
+        private final String executable;
+        private final KeepAliveMode keepAliveMode;
+
+        private ClientGroup(String executable, KeepAliveMode keepAliveMode) {
+            this.executable = executable;
+            this.keepAliveMode = keepAliveMode;
+        }
+
+        static ClientGroup of(DaemonForkOptions forkOptions) {
+            return new ClientGroup(normalized(forkOptions.getJavaForkOptions().getExecutable()), forkOptions.getKeepAliveMode());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ClientGroup that = (ClientGroup) o;
+            return executable.equals(that.executable) && keepAliveMode == that.keepAliveMode;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(executable, keepAliveMode);
+        }
+    }
+
+    /**
+     * How many daemons with equivalent fork options were busy at the same time, in this session and in the previous one.
+     */
+    private static class Demand {
+        final ClientGroup group;
+        final DaemonForkOptions forkOptions;
+        int existing;
+        int busy;
+        int pending;
+        int peak;
+        int previousPeak;
+
+        Demand(ClientGroup group, DaemonForkOptions forkOptions) {
+            this.group = group;
+            this.forkOptions = forkOptions;
+        }
+    }
 }
@@ -18,6 +18,8 @@ package org.gradle.workers.internal
 
 import org.gradle.api.Transformer
 import org.gradle.api.logging.LogLevel
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
 import org.gradle.internal.session.BuildSessionLifecycleListener
 import org.gradle.internal.event.DefaultListenerManager
 import org.gradle.internal.event.ListenerManager
@@ -33,14 +35,17 @@ import org.gradle.util.ConcurrentSpecification
 import spock.lang.Subject
 
 class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
-    def options = Stub(DaemonForkOptions)
+    def options = Stub(DaemonForkOptions) {
+        isCompatibleWith(_) >> true
+    }
     def starter = Stub(WorkerDaemonStarter)
     def listenerManager = Stub(ListenerManager)
     def loggingManager = Stub(LoggingManagerInternal)
     def memoryManager = Mock(MemoryManager)
+    def executorFactory = Stub(ExecutorFactory)
 
     @Subject
-        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
 
     def "does not reserve idle client when no clients"() {
         expect:
@@ -149,7 +154,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
 
     def "can stop session-scoped clients"() {
         listenerManager = new DefaultListenerManager(Scopes.BuildSession)
-        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
         def client1 = Mock(WorkerDaemonClient)
         def client2 = Mock(WorkerDaemonClient)
         starter.startDaemon(options, _) >>> [client1, client2]
@@ -168,7 +173,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
 
     def "Stopping session-scoped clients does not stop other clients"() {
         listenerManager = new DefaultListenerManager(Scopes.BuildSession)
-        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
         def client1 = Mock(WorkerDaemonClient)
         def client2 = Mock(WorkerDaemonClient)
         starter.startDaemon(options, _) >>> [client1, client2]
@@ -216,7 +221,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         loggingManager.getLevel() >> LogLevel.INFO
 
         when:
-        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
 
         then:
         listener != null
@@ -236,6 +241,124 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         shouldBeNull == null
     }
 
+    def "forgets clients discarded when log level changes"() {
+        OutputEventListener listener
+        def client = Mock(WorkerDaemonClient) {
+            isCompatibleWith(_) >> true
+            getLogLevel() >> LogLevel.INFO
+        }
+        starter.startDaemon(options, _) >> client
+        loggingManager.addOutputEventListener(_) >> { args -> listener = args[0] }
+        loggingManager.getLevel() >> LogLevel.INFO
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
+        manager.reserveNewClient(options)
+        manager.release(client)
+        listener.onOutput(Stub(LogLevelChangeEvent) { getNewLogLevel() >> LogLevel.QUIET })
+
+        when:
+        manager.reserveIdleClient(options)
+
+        then:
+        1 * client.stop()
+        manager.evictionCount == 1
+
+        when:
+        manager.stop()
+
+        then:
+        0 * client.stop()
+    }
+
+    def "forgets fork options that are no longer needed once a session completes"() {
+        listenerManager = new DefaultListenerManager(Scopes.BuildSession)
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
+        starter.startDaemon(options, _) >> Stub(WorkerDaemonClient) { getKeepAliveMode() >> KeepAliveMode.SESSION }
+
+        when:
+        manager.reserveNewClient(options)
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+
+        then:
+        manager.demandCount == 1
+
+        when:
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+
+        then:
+        manager.demandCount == 0
+    }
+
+    def "starts daemons needed by the previous session ahead of time"() {
+        listenerManager = new DefaultListenerManager(Scopes.BuildSession)
+        def executor = Stub(ManagedExecutor) {
+            execute(_) >> { Runnable action -> action.run() }
+        }
+        executorFactory.create(_, _) >> executor
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
+        def sessionClient1 = Stub(WorkerDaemonClient) { getKeepAliveMode() >> KeepAliveMode.SESSION }
+        def sessionClient2 = Stub(WorkerDaemonClient) { getKeepAliveMode() >> KeepAliveMode.SESSION }
+        def prespawnedClient = Stub(WorkerDaemonClient) { isCompatibleWith(_) >> true }
+        def client = Stub(WorkerDaemonClient)
+        starter.startDaemon(options, _) >>> [sessionClient1, sessionClient2, prespawnedClient, client]
+
+        when:
+        manager.reserveNewClient(options)
+        manager.reserveNewClient(options)
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+
+        then:
+        manager.spawnCount == 0
+        manager.prespawnCount == 0
+
+        when:
+        def reserved = manager.reserveNewClient(options)
+
+        then:
+        reserved == client
+        manager.spawnCount == 1
+        manager.prespawnCount == 1
+
+        and:
+        manager.reserveIdleClient(options) == prespawnedClient
+        manager.reuseCount == 1
+    }
+
+    def "only starts daemons ahead of time for the fork options that the previous session needed"() {
+        listenerManager = new DefaultListenerManager(Scopes.BuildSession)
+        def executor = Stub(ManagedExecutor) {
+            execute(_) >> { Runnable action -> action.run() }
+        }
+        executorFactory.create(_, _) >> executor
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
+        def compilerOptions = Stub(DaemonForkOptions)
+        def workerOptions = Stub(DaemonForkOptions)
+        compilerOptions.isCompatibleWith(_) >> { DaemonForkOptions other -> other.is(compilerOptions) }
+        workerOptions.isCompatibleWith(_) >> { DaemonForkOptions other -> other.is(workerOptions) }
+        def sessionClient = { Stub(WorkerDaemonClient) { getKeepAliveMode() >> KeepAliveMode.SESSION } }
+        starter.startDaemon(compilerOptions, _) >>> [sessionClient(), sessionClient(), Stub(WorkerDaemonClient), Stub(WorkerDaemonClient)]
+        starter.startDaemon(workerOptions, _) >>> [sessionClient(), Stub(WorkerDaemonClient)]
+
+        when:
+        manager.reserveNewClient(compilerOptions)
+        manager.reserveNewClient(compilerOptions)
+        manager.reserveNewClient(workerOptions)
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+
+        and:
+        manager.reserveNewClient(workerOptions)
+
+        then:
+        manager.spawnCount == 1
+        manager.prespawnCount == 0
+
+        when:
+        manager.reserveNewClient(compilerOptions)
+
+        then:
+        manager.spawnCount == 2
+        manager.prespawnCount == 1
+    }
+
     def "prefers to stop less frequently used idle clients when releasing memory"() {
         def client1 = Mock(WorkerDaemonClient) { _ * getUses() >> 5 }
         def client2 = Mock(WorkerDaemonClient) { _ * getUses() >> 1 }
@@ -293,7 +416,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         WorkerDaemonExpiration workerDaemonExpiration
 
         when:
-        def manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        def manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
 
         then:
         1 * memoryManager.addMemoryHolder(_) >> { args -> workerDaemonExpiration = args[0] }